@@ -0,0 +1,56 @@
+package com.documentprocessing.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Synthetic test inputs checked in under src/main/resources/corpus: OCR
+ * output as Tesseract, TrOCR and PDFBox produce it ("ocr") and raw LLM
+ * answers to the extraction prompt ("llm").
+ */
+public final class Corpus {
+
+    private Corpus() {
+    }
+
+    public static String ocr(String name) {
+        return read("corpus/ocr/" + name + ".txt");
+    }
+
+    public static String llm(String name) {
+        return read("corpus/llm/" + name + ".json");
+    }
+
+    public static List<String> allOcr() {
+        return readAll("corpus/ocr/");
+    }
+
+    public static List<String> allLlm() {
+        return readAll("corpus/llm/");
+    }
+
+    private static List<String> readAll(String directory) {
+        List<String> documents = new ArrayList<>();
+        for (String name : read(directory + "index.txt").split("\n")) {
+            if (!name.isBlank()) {
+                documents.add(read(directory + name.trim()));
+            }
+        }
+        return documents;
+    }
+
+    private static String read(String resource) {
+        try (InputStream in = Corpus.class.getClassLoader().getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalArgumentException("Corpus file not found: " + resource);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.documentprocessing.benchmarks;
+
+import com.documentprocessing.service.HandwritingDetection;
+import com.documentprocessing.service.ImagePreprocessor;
+import com.documentprocessing.service.RasterHandwritingClassifier;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Accuracy and latency of the in-process raster classifier against the
+ * Python detector service on a labelled image set. The directory holds
+ * images under handwritten/ and printed/. Latency covers what the pipeline
+ * pays per image: decode plus features for raster, the HTTP round trip for
+ * the service.
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar com.documentprocessing.benchmarks.HandwritingClassifierComparison \
+ *     &lt;labelled-dir&gt; [detector-url|none] [edge-threshold] [variance-threshold] [analysis-edge]
+ * </pre>
+ */
+public final class HandwritingClassifierComparison {
+
+    private static final int WARMUP_ROUNDS = 3;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+
+    private HandwritingClassifierComparison() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: HandwritingClassifierComparison <labelled-dir> [detector-url|none]"
+                    + " [edge-threshold] [variance-threshold] [analysis-edge]");
+            System.exit(2);
+        }
+        Path root = Path.of(args[0]);
+        String detectorUrl = args.length > 1 ? args[1] : "http://localhost:8002";
+        double edgeThreshold = args.length > 2 ? Double.parseDouble(args[2]) : 20;
+        double varianceThreshold = args.length > 3 ? Double.parseDouble(args[3]) : 1000;
+        int analysisEdge = args.length > 4 ? Integer.parseInt(args[4]) : 700;
+
+        List<Sample> samples = new ArrayList<>();
+        samples.addAll(load(root.resolve("handwritten"), true));
+        samples.addAll(load(root.resolve("printed"), false));
+        if (samples.isEmpty()) {
+            System.err.println("No images under " + root + "/handwritten or " + root + "/printed");
+            System.exit(2);
+        }
+
+        new HandwritingClassifierComparison().run(samples, detectorUrl, edgeThreshold, varianceThreshold, analysisEdge);
+    }
+
+    private void run(List<Sample> samples, String detectorUrl, double edgeThreshold,
+                     double varianceThreshold, int analysisEdge) throws Exception {
+        // Preprocessing off: the classifier's decode subsamples regardless and no stripe threads are needed
+        ImagePreprocessor preprocessor = new ImagePreprocessor(false, 300, 4.5, true, 31, 0.2, true, false, 10, 1);
+        RasterHandwritingClassifier raster = new RasterHandwritingClassifier(preprocessor, edgeThreshold,
+                varianceThreshold, analysisEdge);
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            for (Sample sample : samples) {
+                raster.classify(sample.bytes());
+            }
+        }
+
+        boolean compareRemote = !"none".equalsIgnoreCase(detectorUrl);
+        Tally rasterTally = new Tally("raster");
+        Tally remoteTally = new Tally("remote");
+        int agreements = 0;
+
+        System.out.printf(Locale.ROOT, "%-40s %-11s %-22s %-22s%n", "image", "label", "raster", "remote");
+        for (Sample sample : samples) {
+            long start = System.nanoTime();
+            HandwritingDetection rasterAnswer = raster.classify(sample.bytes());
+            rasterTally.add(sample, rasterAnswer, System.nanoTime() - start);
+
+            HandwritingDetection remoteAnswer = null;
+            if (compareRemote) {
+                start = System.nanoTime();
+                remoteAnswer = detect(detectorUrl, sample);
+                remoteTally.add(sample, remoteAnswer, System.nanoTime() - start);
+                if (remoteAnswer.detected() && remoteAnswer.handwritten() == rasterAnswer.handwritten()) {
+                    agreements++;
+                }
+            }
+
+            System.out.printf(Locale.ROOT, "%-40s %-11s %-22s %-22s%n", sample.name(), label(sample.handwritten()),
+                    describe(rasterAnswer), remoteAnswer != null ? describe(remoteAnswer) : "-");
+        }
+
+        System.out.println();
+        System.out.printf(Locale.ROOT, "%-8s %9s %7s %9s %9s %9s%n", "", "accuracy", "failed", "p50 ms", "p95 ms", "mean ms");
+        rasterTally.print();
+        if (compareRemote) {
+            remoteTally.print();
+            System.out.printf(Locale.ROOT, "%nAgreement: %d/%d%n", agreements, samples.size());
+        }
+    }
+
+    private HandwritingDetection detect(String detectorUrl, Sample sample) {
+        String boundary = UUID.randomUUID().toString();
+        try {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            body.write(("--" + boundary + "\r\n"
+                    + "Content-Disposition: form-data; name=\"file\"; filename=\"" + sample.name() + "\"\r\n"
+                    + "Content-Type: application/octet-stream\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+            body.write(sample.bytes());
+            body.write(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+
+            HttpRequest request = HttpRequest.newBuilder(URI.create(detectorUrl + "/detect"))
+                    .timeout(Duration.ofSeconds(60))
+                    .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+                    .build();
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                return HandwritingDetection.failed();
+            }
+            JsonNode json = objectMapper.readTree(response.body());
+            Double confidence = json.hasNonNull("confidence") ? json.get("confidence").asDouble() : null;
+            return HandwritingDetection.of("handwritten".equals(json.path("result").asText()), confidence);
+        } catch (IOException e) {
+            return HandwritingDetection.failed();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return HandwritingDetection.failed();
+        }
+    }
+
+    private static List<Sample> load(Path directory, boolean handwritten) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Sample> samples = new ArrayList<>();
+            for (Path file : files.filter(Files::isRegularFile).sorted().toList()) {
+                samples.add(new Sample(directory.getFileName() + "/" + file.getFileName(),
+                        Files.readAllBytes(file), handwritten));
+            }
+            return samples;
+        }
+    }
+
+    private static String describe(HandwritingDetection answer) {
+        if (!answer.detected()) {
+            return "failed";
+        }
+        return answer.confidence() != null
+                ? String.format(Locale.ROOT, "%s (%.3f)", answer.label(), answer.confidence())
+                : answer.label();
+    }
+
+    private static String label(boolean handwritten) {
+        return handwritten ? "handwritten" : "printed";
+    }
+
+    private record Sample(String name, byte[] bytes, boolean handwritten) {}
+
+    private static final class Tally {
+        private final String name;
+        private final List<Long> nanos = new ArrayList<>();
+        private int correct;
+        private int failed;
+
+        private Tally(String name) {
+            this.name = name;
+        }
+
+        private void add(Sample sample, HandwritingDetection answer, long elapsedNanos) {
+            nanos.add(elapsedNanos);
+            if (!answer.detected()) {
+                failed++;
+            } else if (answer.handwritten() == sample.handwritten()) {
+                correct++;
+            }
+        }
+
+        private void print() {
+            long[] sorted = nanos.stream().mapToLong(Long::longValue).sorted().toArray();
+            double mean = Arrays.stream(sorted).average().orElse(0);
+            System.out.printf(Locale.ROOT, "%-8s %8.1f%% %7d %9.2f %9.2f %9.2f%n", name,
+                    100.0 * correct / sorted.length, failed,
+                    percentile(sorted, 0.50) / 1e6, percentile(sorted, 0.95) / 1e6, mean / 1e6);
+        }
+
+        private static long percentile(long[] sorted, double quantile) {
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.documentprocessing.benchmarks;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Verbatim copy of the per-field {@code *WithNLP} helpers that
+ * RealAIDocumentProcessingService used before LicenseFieldRuleEngine, kept
+ * only as the benchmark baseline. Every call compiles its patterns again.
+ */
+public class LegacyFieldExtractors {
+
+    public Map<String, Object> extractAll(String text) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("licenseNumber", extractLicenseNumberWithNLP(text));
+        result.put("firstName", extractNameWithNLP(text, "first"));
+        result.put("lastName", extractNameWithNLP(text, "last"));
+        result.put("middleName", extractNameWithNLP(text, "middle"));
+        result.put("dateOfBirth", extractDateWithNLP(text, "birth"));
+        result.put("issueDate", extractDateWithNLP(text, "issue"));
+        result.put("expiryDate", extractDateWithNLP(text, "expiry"));
+        result.put("issuingAuthority", extractAuthorityWithNLP(text));
+        result.put("address", extractAddressWithNLP(text));
+        result.put("city", extractCityWithNLP(text));
+        result.put("state", extractStateWithNLP(text));
+        result.put("zipCode", extractZipCodeWithNLP(text));
+        result.put("licenseClass", extractLicenseClassWithNLP(text));
+        result.put("restrictions", extractRestrictionsWithNLP(text));
+        result.put("endorsements", extractEndorsementsWithNLP(text));
+        return result;
+    }
+
+    private LocalDate parseDate(String dateStr) {
+        if (dateStr == null || dateStr.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(dateStr.trim());
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private String extractLicenseNumberWithNLP(String text) {
+        // Advanced pattern matching with context analysis
+        String[] patterns = {
+            "LICENSE[\\s#]*[:\\s]*(\\w{1,15})",
+            "LIC[\\s#]*[:\\s]*(\\w{1,15})",
+            "DL[\\s#]*[:\\s]*(\\w{1,15})",
+            "DRIVER[\\s]*LICENSE[\\s#]*[:\\s]*(\\w{1,15})",
+            "NUMBER[\\s]*[:\\s]*(\\w{1,15})"
+        };
+        
+        for (String pattern : patterns) {
+            Matcher matcher = Pattern.compile(pattern, Pattern.CASE_INSENSITIVE).matcher(text);
+            if (matcher.find() && matcher.group(1) != null) {
+                return matcher.group(1).trim();
+            }
+        }
+        return null;
+    }
+
+    private String extractNameWithNLP(String text, String nameType) {
+        // Context-aware name extraction
+        String[] patterns = {
+            nameType.toUpperCase() + "[\\s]*NAME[\\s]*[:\\s]*([A-Za-z]+)",
+            nameType.toUpperCase() + "[\\s]*[:\\s]*([A-Za-z]+)",
+            "([A-Z][a-z]+)\\s+" + (nameType.equals("first") ? "\\w+" : "")
+        };
+        
+        for (String pattern : patterns) {
+            Matcher matcher = Pattern.compile(pattern, Pattern.CASE_INSENSITIVE).matcher(text);
+            if (matcher.find() && matcher.group(1) != null) {
+                return matcher.group(1).trim();
+            }
+        }
+        return null;
+    }
+
+    private LocalDate extractDateWithNLP(String text, String dateType) {
+        String[] patterns = {
+            dateType.toUpperCase() + "[\\s]*[:\\s]*(\\d{1,2}[/-]\\d{1,2}[/-]\\d{2,4})",
+            dateType.toUpperCase() + "[\\s]*[:\\s]*(\\d{4}[/-]\\d{1,2}[/-]\\d{1,2})",
+            dateType.toUpperCase() + "[\\s]*[:\\s]*(\\w+\\s+\\d{1,2},?\\s+\\d{4})"
+        };
+        
+        for (String pattern : patterns) {
+            Matcher matcher = Pattern.compile(pattern, Pattern.CASE_INSENSITIVE).matcher(text);
+            if (matcher.find() && matcher.group(1) != null) {
+                return parseDate(matcher.group(1).trim());
+            }
+        }
+        return null;
+    }
+
+    private String extractAuthorityWithNLP(String text) {
+        String[] patterns = {
+            "AUTHORITY[\\s]*[:\\s]*([A-Za-z\\s]+)",
+            "ISSUED[\\s]*BY[\\s]*[:\\s]*([A-Za-z\\s]+)",
+            "DEPARTMENT[\\s]*[:\\s]*([A-Za-z\\s]+)"
+        };
+        
+        for (String pattern : patterns) {
+            Matcher matcher = Pattern.compile(pattern, Pattern.CASE_INSENSITIVE).matcher(text);
+            if (matcher.find() && matcher.group(1) != null) {
+                return matcher.group(1).trim();
+            }
+        }
+        return null;
+    }
+
+    private String extractAddressWithNLP(String text) {
+        // Address extraction with context
+        String[] patterns = {
+            "ADDRESS[\\s]*[:\\s]*([A-Za-z0-9\\s,.-]+)",
+            "RESIDENCE[\\s]*[:\\s]*([A-Za-z0-9\\s,.-]+)"
+        };
+        
+        for (String pattern : patterns) {
+            Matcher matcher = Pattern.compile(pattern, Pattern.CASE_INSENSITIVE).matcher(text);
+            if (matcher.find() && matcher.group(1) != null) {
+                return matcher.group(1).trim();
+            }
+        }
+        return null;
+    }
+
+    private String extractCityWithNLP(String text) {
+        String[] patterns = {
+            "CITY[\\s]*[:\\s]*([A-Za-z\\s]+)",
+            "TOWN[\\s]*[:\\s]*([A-Za-z\\s]+)"
+        };
+        
+        for (String pattern : patterns) {
+            Matcher matcher = Pattern.compile(pattern, Pattern.CASE_INSENSITIVE).matcher(text);
+            if (matcher.find() && matcher.group(1) != null) {
+                return matcher.group(1).trim();
+            }
+        }
+        return null;
+    }
+
+    private String extractStateWithNLP(String text) {
+        String[] patterns = {
+            "STATE[\\s]*[:\\s]*([A-Za-z\\s]+)",
+            "PROVINCE[\\s]*[:\\s]*([A-Za-z\\s]+)"
+        };
+        
+        for (String pattern : patterns) {
+            Matcher matcher = Pattern.compile(pattern, Pattern.CASE_INSENSITIVE).matcher(text);
+            if (matcher.find() && matcher.group(1) != null) {
+                return matcher.group(1).trim();
+            }
+        }
+        return null;
+    }
+
+    private String extractZipCodeWithNLP(String text) {
+        String[] patterns = {
+            "ZIP[\\s]*[:\\s]*(\\d{5,6})",
+            "POSTAL[\\s]*[:\\s]*(\\d{5,6})",
+            "PIN[\\s]*[:\\s]*(\\d{5,6})"
+        };
+        
+        for (String pattern : patterns) {
+            Matcher matcher = Pattern.compile(pattern, Pattern.CASE_INSENSITIVE).matcher(text);
+            if (matcher.find() && matcher.group(1) != null) {
+                return matcher.group(1).trim();
+            }
+        }
+        return null;
+    }
+
+    private String extractLicenseClassWithNLP(String text) {
+        String[] patterns = {
+            "CLASS[\\s]*[:\\s]*([A-Za-z0-9\\s]+)",
+            "CATEGORY[\\s]*[:\\s]*([A-Za-z0-9\\s]+)"
+        };
+        
+        for (String pattern : patterns) {
+            Matcher matcher = Pattern.compile(pattern, Pattern.CASE_INSENSITIVE).matcher(text);
+            if (matcher.find() && matcher.group(1) != null) {
+                return matcher.group(1).trim();
+            }
+        }
+        return null;
+    }
+
+    private String extractRestrictionsWithNLP(String text) {
+        String[] patterns = {
+            "RESTRICTIONS[\\s]*[:\\s]*([A-Za-z0-9\\s,.-]+)",
+            "CONDITIONS[\\s]*[:\\s]*([A-Za-z0-9\\s,.-]+)"
+        };
+        
+        for (String pattern : patterns) {
+            Matcher matcher = Pattern.compile(pattern, Pattern.CASE_INSENSITIVE).matcher(text);
+            if (matcher.find() && matcher.group(1) != null) {
+                return matcher.group(1).trim();
+            }
+        }
+        return null;
+    }
+
+    private String extractEndorsementsWithNLP(String text) {
+        String[] patterns = {
+            "ENDORSEMENTS[\\s]*[:\\s]*([A-Za-z0-9\\s,.-]+)",
+            "SPECIAL[\\s]*PERMISSIONS[\\s]*[:\\s]*([A-Za-z0-9\\s,.-]+)"
+        };
+        
+        for (String pattern : patterns) {
+            Matcher matcher = Pattern.compile(pattern, Pattern.CASE_INSENSITIVE).matcher(text);
+            if (matcher.find() && matcher.group(1) != null) {
+                return matcher.group(1).trim();
+            }
+        }
+        return null;
+    }
+}
+
@@ -0,0 +1,48 @@
+package com.documentprocessing.service;
+
+import com.documentprocessing.benchmarks.Corpus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OllamaAIDocumentProcessingService.parseAIResponse on the LLM answers in
+ * corpus/llm: schema-clean, pretty-printed, US dates, literal "null"
+ * strings, unknown extra keys and a truncated (malformed) response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AIResponseParsingBenchmark {
+
+    @Param({"schema-clean", "schema-pretty", "us-dates", "literal-nulls", "extra-keys", "malformed"})
+    public String response;
+
+    private String text;
+    private OllamaAIDocumentProcessingService ollamaService;
+
+    @Setup
+    public void setUp() {
+        text = Corpus.llm(response);
+        ollamaService = new OllamaAIDocumentProcessingService(null, null, null, null);
+    }
+
+    @Benchmark
+    public Map<String, Object> parseAIResponse() {
+        return ollamaService.parseAIResponse(text);
+    }
+}
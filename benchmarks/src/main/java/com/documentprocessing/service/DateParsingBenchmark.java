@@ -0,0 +1,51 @@
+package com.documentprocessing.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Date normalization: DocumentProcessingService.parseDateFlexible and
+ * OllamaAIDocumentProcessingService.parseDate. Both try formats in order,
+ * so the cost depends on which format (if any) finally matches. Lives in
+ * the service package to reach the package-private methods.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DateParsingBenchmark {
+
+    @Param({"1984-04-12", "08/31/1977", "19-01-2018", "01/02/90", "March 3, 1991"})
+    public String date;
+
+    private OllamaAIDocumentProcessingService ollamaService;
+
+    @Setup
+    public void setUp() {
+        ollamaService = new OllamaAIDocumentProcessingService(null, null, null, null);
+    }
+
+    @Benchmark
+    public LocalDate parseDateFlexible() {
+        return DocumentProcessingService.parseDateFlexible(date);
+    }
+
+    @Benchmark
+    public LocalDate ollamaParseDate() {
+        return ollamaService.parseDate(date);
+    }
+}
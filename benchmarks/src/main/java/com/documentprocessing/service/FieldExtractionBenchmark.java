@@ -0,0 +1,65 @@
+package com.documentprocessing.service;
+
+import com.documentprocessing.benchmarks.Corpus;
+import com.documentprocessing.benchmarks.LegacyFieldExtractors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Regex field extraction over the OCR corpus: the old per-call
+ * Pattern.compile helpers, the precompiled LicenseFieldRuleEngine on its
+ * own, and RealAIDocumentProcessingService's local extraction (engine plus
+ * date parsing and confidence).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FieldExtractionBenchmark {
+
+    @Param({"california-printed", "labelled-form", "tesseract-noisy", "trocr-handwritten",
+            "pdf-extracted", "uk-photocard", "sparse-fragment", "long-noisy-scan"})
+    public String document;
+
+    private String text;
+    private LegacyFieldExtractors legacy;
+    private LicenseFieldRuleEngine engine;
+    private RealAIDocumentProcessingService realAIService;
+
+    @Setup
+    public void setUp() {
+        text = Corpus.ocr(document);
+        legacy = new LegacyFieldExtractors();
+        engine = new LicenseFieldRuleEngine();
+        realAIService = new RealAIDocumentProcessingService(engine);
+    }
+
+    @Benchmark
+    public Map<String, Object> legacyHelpers() {
+        return legacy.extractAll(text);
+    }
+
+    @Benchmark
+    public Map<String, String> ruleEngine() {
+        return engine.extract(text);
+    }
+
+    @Benchmark
+    public Map<String, Object> realAILocalExtraction() {
+        return realAIService.extractWithLocalML(text);
+    }
+}
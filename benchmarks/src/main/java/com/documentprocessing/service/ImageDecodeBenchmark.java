@@ -0,0 +1,82 @@
+package com.documentprocessing.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding a 12 MP upload: plain ImageIO.read against
+ * ImagePreprocessor.read, which subsamples inside the ImageReader. Run with
+ * the GC profiler, gc.alloc.rate.norm is the bytes allocated per decode,
+ * most of it the pixel buffer each request holds.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImageDecodeBenchmark {
+
+    @Param({"jpg", "png", "tif"})
+    public String format;
+
+    private byte[] upload;
+    private ImagePreprocessor preprocessor;
+
+    @Setup
+    public void setUp() throws IOException {
+        BufferedImage photo = new BufferedImage(4032, 3024, BufferedImage.TYPE_3BYTE_BGR);
+        Graphics2D g = photo.createGraphics();
+        g.setColor(new Color(214, 222, 235));
+        g.fillRect(0, 0, photo.getWidth(), photo.getHeight());
+        g.setColor(new Color(40, 40, 70));
+        g.setFont(new Font(Font.SANS_SERIF, Font.BOLD, 90));
+        for (int y = 300; y < photo.getHeight(); y += 160) {
+            g.drawString("DL D1234567  EXP 01/15/2029  DOB 01/15/1985", 250, y);
+        }
+        g.dispose();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (!ImageIO.write(photo, format, out)) {
+            throw new IllegalStateException("No ImageIO writer for " + format);
+        }
+        upload = out.toByteArray();
+        preprocessor = new ImagePreprocessor(true, 300, 4.5, true, 31, 0.2, true, false, 10, 1);
+        preprocessor.init();
+    }
+
+    @TearDown
+    public void tearDown() {
+        preprocessor.shutdown();
+    }
+
+    @Benchmark
+    public BufferedImage fullDecode() throws IOException {
+        return ImageIO.read(new ByteArrayInputStream(upload));
+    }
+
+    @Benchmark
+    public BufferedImage subsampledDecode() throws IOException {
+        return preprocessor.read(upload);
+    }
+}
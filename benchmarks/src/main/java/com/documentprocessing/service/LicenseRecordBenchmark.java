@@ -0,0 +1,70 @@
+package com.documentprocessing.service;
+
+import com.documentprocessing.benchmarks.Corpus;
+import com.documentprocessing.model.DrivingLicense;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turning extracted fields into a record: calculateConfidence and
+ * createLicenseFromData. "llm" inputs come from parsing the LLM corpus
+ * (LocalDate values), "rules" inputs from running the rule engine over the
+ * OCR corpus (date strings that still need parsing). Each operation covers
+ * the whole corpus.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LicenseRecordBenchmark {
+
+    @Param({"llm", "rules"})
+    public String source;
+
+    private List<Map<String, Object>> extractions;
+
+    @Setup
+    public void setUp() {
+        if ("llm".equals(source)) {
+            OllamaAIDocumentProcessingService ollamaService = new OllamaAIDocumentProcessingService(null, null, null, null);
+            extractions = Corpus.allLlm().stream().map(ollamaService::parseAIResponse).toList();
+        } else {
+            LicenseFieldRuleEngine engine = new LicenseFieldRuleEngine();
+            extractions = Corpus.allOcr().stream()
+                    .map(text -> (Map<String, Object>) new HashMap<String, Object>(engine.extract(text)))
+                    .toList();
+        }
+    }
+
+    @Benchmark
+    public void calculateConfidence(Blackhole blackhole) {
+        for (Map<String, Object> data : extractions) {
+            blackhole.consume(DocumentProcessingService.calculateConfidence(data));
+        }
+    }
+
+    @Benchmark
+    public void createLicenseFromData(Blackhole blackhole) {
+        for (Map<String, Object> data : extractions) {
+            DrivingLicense license = DocumentProcessingService.createLicenseFromData(data, "IMAGE");
+            blackhole.consume(license);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.documentprocessing.service;
+
+import net.sourceforge.tess4j.Tesseract;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * Tesseract on raw images against Tesseract on the output of
+ * {@link ImagePreprocessor}, over a directory of license scans and photos.
+ * For each side it reports OCR wall time, the CPU time of the OCR call, and
+ * field coverage of the rule engine's extraction from the text. The
+ * preprocessed side goes through {@link ImagePreprocessor#decode} as in the
+ * service, so it uses the resolution the file declares, and also reports
+ * the decode and preprocessing time. Needs the Tesseract native library
+ * and traineddata.
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar com.documentprocessing.service.PreprocessingComparison \
+ *     &lt;image-dir&gt; [tessdata-path] [deskew:true|false]
+ * </pre>
+ */
+public final class PreprocessingComparison {
+
+    private PreprocessingComparison() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: PreprocessingComparison <image-dir> [tessdata-path] [deskew]");
+            System.exit(2);
+        }
+        Path directory = Path.of(args[0]);
+        String dataPath = args.length > 1 ? args[1] : System.getenv().getOrDefault("TESSDATA_PREFIX", "tessdata");
+        boolean deskew = args.length > 2 && Boolean.parseBoolean(args[2]);
+
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(Files::isRegularFile).sorted().toList();
+        }
+
+        Tesseract tesseract = new Tesseract();
+        tesseract.setDatapath(dataPath);
+        tesseract.setLanguage("eng");
+        ImagePreprocessor preprocessor = new ImagePreprocessor(true, 300, 4.5, true, 31, 0.2, true, deskew, 10, 0);
+        preprocessor.init();
+        LicenseFieldRuleEngine ruleEngine = new LicenseFieldRuleEngine();
+        ThreadMXBean cpu = ManagementFactory.getThreadMXBean();
+
+        Tally raw = new Tally("raw");
+        Tally cleaned = new Tally("cleaned");
+        List<Long> preprocessNanos = new ArrayList<>();
+        try {
+            System.out.printf(Locale.ROOT, "%-36s %11s %10s %9s %11s %10s %9s %9s%n", "image",
+                    "raw ocr ms", "raw cpu", "raw cov", "clean ocr", "clean cpu", "clean cov", "prep ms");
+            for (Path file : files) {
+                byte[] bytes = Files.readAllBytes(file);
+                BufferedImage image = ImageIO.read(new ByteArrayInputStream(bytes));
+                if (image == null) {
+                    continue;
+                }
+                Run before = ocr(tesseract, cpu, ruleEngine, image);
+
+                long start = System.nanoTime();
+                BufferedImage prepared = preprocessor.preprocess(preprocessor.decode(bytes));
+                long prep = System.nanoTime() - start;
+                Run after = ocr(tesseract, cpu, ruleEngine, prepared);
+
+                raw.add(before);
+                cleaned.add(after);
+                preprocessNanos.add(prep);
+                System.out.printf(Locale.ROOT, "%-36s %11.1f %10.1f %9.2f %11.1f %10.1f %9.2f %9.1f%n",
+                        file.getFileName(), before.wallNanos() / 1e6, before.cpuNanos() / 1e6, before.coverage(),
+                        after.wallNanos() / 1e6, after.cpuNanos() / 1e6, after.coverage(), prep / 1e6);
+            }
+        } finally {
+            preprocessor.shutdown();
+        }
+
+        if (preprocessNanos.isEmpty()) {
+            System.err.println("No readable images in " + directory);
+            System.exit(2);
+        }
+        System.out.println();
+        System.out.printf(Locale.ROOT, "%-8s %12s %12s %12s %9s%n", "", "p50 ocr ms", "mean ocr ms", "mean cpu ms", "coverage");
+        raw.print();
+        cleaned.print();
+        System.out.printf(Locale.ROOT, "%nPreprocessing mean %.1f ms%n",
+                preprocessNanos.stream().mapToLong(Long::longValue).average().orElse(0) / 1e6);
+    }
+
+    private static Run ocr(Tesseract tesseract, ThreadMXBean cpu, LicenseFieldRuleEngine ruleEngine,
+                           BufferedImage image) throws Exception {
+        long cpuStart = cpu.getCurrentThreadCpuTime();
+        long start = System.nanoTime();
+        String text = tesseract.doOCR(image);
+        long wall = System.nanoTime() - start;
+        long cpuTime = cpu.getCurrentThreadCpuTime() - cpuStart;
+        return new Run(wall, cpuTime, FieldCoverage.score(ruleEngine.extract(text)));
+    }
+
+    private record Run(long wallNanos, long cpuNanos, double coverage) {}
+
+    private static final class Tally {
+        private final String name;
+        private final List<Run> runs = new ArrayList<>();
+
+        private Tally(String name) {
+            this.name = name;
+        }
+
+        private void add(Run run) {
+            runs.add(run);
+        }
+
+        private void print() {
+            long[] wall = runs.stream().mapToLong(Run::wallNanos).sorted().toArray();
+            System.out.printf(Locale.ROOT, "%-8s %12.1f %12.1f %12.1f %9.3f%n", name,
+                    wall[(wall.length - 1) / 2] / 1e6,
+                    Arrays.stream(wall).average().orElse(0) / 1e6,
+                    runs.stream().mapToLong(Run::cpuNanos).average().orElse(0) / 1e6,
+                    runs.stream().mapToDouble(Run::coverage).average().orElse(0));
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.documentprocessing.loadtest;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Simulated service time. Specs:
+ * <ul>
+ *   <li>{@code none} - no delay</li>
+ *   <li>{@code fixed:120} - always 120 ms</li>
+ *   <li>{@code uniform:50-300} - uniform between 50 and 300 ms</li>
+ *   <li>{@code lognormal:800,0.5} - log-normal with median 800 ms and sigma 0.5, the usual
+ *       shape of model inference latency (long right tail)</li>
+ * </ul>
+ */
+public final class LatencyDistribution {
+
+    private final String spec;
+    private final Kind kind;
+    private final double a;
+    private final double b;
+
+    private enum Kind { NONE, FIXED, UNIFORM, LOGNORMAL }
+
+    private LatencyDistribution(String spec, Kind kind, double a, double b) {
+        this.spec = spec;
+        this.kind = kind;
+        this.a = a;
+        this.b = b;
+    }
+
+    public static LatencyDistribution parse(String spec) {
+        String trimmed = spec.trim().toLowerCase();
+        if (trimmed.isEmpty() || trimmed.equals("none")) {
+            return new LatencyDistribution(spec, Kind.NONE, 0, 0);
+        }
+
+        int colon = trimmed.indexOf(':');
+        if (colon < 0) {
+            throw new IllegalArgumentException("Latency spec needs a kind, e.g. fixed:100 - got " + spec);
+        }
+        String kind = trimmed.substring(0, colon);
+        String args = trimmed.substring(colon + 1);
+        try {
+            switch (kind) {
+                case "fixed":
+                    return new LatencyDistribution(spec, Kind.FIXED, Double.parseDouble(args), 0);
+                case "uniform": {
+                    String[] range = args.split("-");
+                    return new LatencyDistribution(spec, Kind.UNIFORM,
+                            Double.parseDouble(range[0]), Double.parseDouble(range[1]));
+                }
+                case "lognormal": {
+                    String[] params = args.split(",");
+                    return new LatencyDistribution(spec, Kind.LOGNORMAL,
+                            Double.parseDouble(params[0]), Double.parseDouble(params[1]));
+                }
+                default:
+                    throw new IllegalArgumentException("Unknown latency distribution: " + kind);
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Malformed latency spec: " + spec, e);
+        }
+    }
+
+    public long sampleMillis() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return switch (kind) {
+            case NONE -> 0;
+            case FIXED -> Math.round(a);
+            case UNIFORM -> Math.round(a + random.nextDouble() * (b - a));
+            case LOGNORMAL -> Math.round(a * Math.exp(b * random.nextGaussian()));
+        };
+    }
+
+    public void pause() throws InterruptedException {
+        long millis = sampleMillis();
+        if (millis > 0) {
+            Thread.sleep(millis);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return spec;
+    }
+}
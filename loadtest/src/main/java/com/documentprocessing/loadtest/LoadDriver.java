@@ -0,0 +1,115 @@
+package com.documentprocessing.loadtest;
+
+import com.documentprocessing.loadtest.SampleCorpus.Sample;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Closed-loop load: a fixed number of workers, each uploading the next
+ * document as soon as its previous upload returned.
+ */
+public class LoadDriver {
+
+    public record Result(Sample sample, long latencyNanos, int httpStatus, String processingStatus, String error) {
+    }
+
+    private final URI processUri;
+    private final SampleCorpus corpus;
+    private final double pdfRatio;
+    private final Duration requestTimeout;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public LoadDriver(URI processUri, SampleCorpus corpus, double pdfRatio, Duration requestTimeout) {
+        this.processUri = processUri;
+        this.corpus = corpus;
+        this.pdfRatio = pdfRatio;
+        this.requestTimeout = requestTimeout;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    public List<Result> run(int concurrency, int requests) throws InterruptedException {
+        List<Result> results = Collections.synchronizedList(new ArrayList<>(requests));
+        AtomicInteger issued = new AtomicInteger();
+
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        for (int w = 0; w < concurrency; w++) {
+            workers.execute(() -> {
+                while (issued.getAndIncrement() < requests) {
+                    results.add(uploadOne());
+                }
+            });
+        }
+        workers.shutdown();
+        workers.awaitTermination(1, TimeUnit.DAYS);
+        return results;
+    }
+
+    private Result uploadOne() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<Sample> pool = random.nextDouble() < pdfRatio ? corpus.getPdfs() : corpus.getImages();
+        Sample sample = pool.get(random.nextInt(pool.size()));
+
+        String boundary = "loadtest-" + UUID.randomUUID();
+        HttpRequest request = HttpRequest.newBuilder(processUri)
+                .timeout(requestTimeout)
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(multipartBody(boundary, sample)))
+                .build();
+
+        long start = System.nanoTime();
+        try {
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            long latency = System.nanoTime() - start;
+            String processingStatus = null;
+            if (response.statusCode() == 200) {
+                JsonNode body = objectMapper.readTree(response.body());
+                processingStatus = body.path("processingStatus").asText(null);
+            }
+            return new Result(sample, latency, response.statusCode(), processingStatus, null);
+        } catch (IOException e) {
+            return new Result(sample, System.nanoTime() - start, 0, null, e.getClass().getSimpleName());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Result(sample, System.nanoTime() - start, 0, null, "interrupted");
+        }
+    }
+
+    /**
+     * Every upload gets a unique trailer after the image/PDF data, so the
+     * app's content-hash cache and duplicate coalescing never short-circuit
+     * the pipeline. Both formats ignore bytes after their end marker.
+     */
+    private byte[] multipartBody(String boundary, Sample sample) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(sample.content().length + 512);
+        String header = "--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"" + sample.fileName() + "\"\r\n"
+                + "Content-Type: " + sample.contentType() + "\r\n\r\n";
+        body.writeBytes(header.getBytes(StandardCharsets.UTF_8));
+        body.writeBytes(sample.content());
+        body.writeBytes(("\n%" + UUID.randomUUID() + "\n").getBytes(StandardCharsets.UTF_8));
+        body.writeBytes(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+        return body.toByteArray();
+    }
+}
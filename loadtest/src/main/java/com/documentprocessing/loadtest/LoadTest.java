@@ -0,0 +1,262 @@
+package com.documentprocessing.loadtest;
+
+import com.documentprocessing.loadtest.LoadDriver.Result;
+import com.documentprocessing.loadtest.PrometheusSnapshot.Histogram;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end load test: starts the model-service stubs, launches the app
+ * pointed at them (unless --app.url targets one already running), drives
+ * concurrent uploads and prints client-side latency plus the per-stage
+ * breakdown from the app's own Prometheus histograms. With
+ * --app.threads=both the scenario runs once on platform threads and once on
+ * virtual threads and the two are compared.
+ */
+public final class LoadTest {
+
+    private record RunSummary(String mode, int requests, int succeeded, double throughput,
+                              long p50Nanos, long p95Nanos, long p99Nanos, double peakThreads) {
+    }
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.fromArgs(args);
+        List<String> modes = threadModes(config.get("app.threads"));
+        if (modes.size() > 1 && !config.get("app.url").isBlank()) {
+            throw new IllegalArgumentException("--app.threads=both needs to launch the app, drop --app.url");
+        }
+
+        SampleCorpus corpus = SampleCorpus.load();
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+        try (StubServers stubs = new StubServers(config, corpus.getTexts())) {
+            stubs.start();
+
+            List<RunSummary> summaries = new ArrayList<>();
+            for (String mode : modes) {
+                summaries.add(runScenario(config, corpus, client, mode));
+            }
+            if (summaries.size() > 1) {
+                printComparison(summaries);
+            }
+
+            System.out.println();
+            System.out.println("=== Stubs (all runs including warmup) ===");
+            stubs.getStats().forEach((stub, stats) -> System.out.printf("  %-10s requests %6d   injected errors %5d%n",
+                    stub, stats.requests().get(), stats.injectedErrors().get()));
+        }
+    }
+
+    private static List<String> threadModes(String setting) {
+        return switch (setting) {
+            case "platform", "virtual" -> List.of(setting);
+            case "both" -> List.of("platform", "virtual");
+            default -> throw new IllegalArgumentException("app.threads must be platform, virtual or both: " + setting);
+        };
+    }
+
+    private static RunSummary runScenario(LoadTestConfig config, SampleCorpus corpus, HttpClient client,
+                                          String mode) throws Exception {
+        Process app = null;
+        try {
+            URI baseUri;
+            if (config.get("app.url").isBlank()) {
+                app = launchApp(config, mode);
+                baseUri = URI.create("http://localhost:" + config.getInt("app.port"));
+            } else {
+                baseUri = URI.create(config.get("app.url"));
+            }
+            awaitReady(client, baseUri, app, Duration.ofSeconds(config.getInt("app.startup-timeout-seconds")));
+
+            LoadDriver driver = new LoadDriver(baseUri.resolve("/api/documents/process"), corpus,
+                    config.getDouble("pdf-ratio"), Duration.ofSeconds(config.getInt("request-timeout-seconds")));
+            int concurrency = config.getInt("concurrency");
+
+            if (config.getInt("warmup") > 0) {
+                System.out.printf("[%s] Warming up with %d uploads...%n", mode, config.getInt("warmup"));
+                driver.run(concurrency, config.getInt("warmup"));
+            }
+
+            PrometheusSnapshot before = PrometheusSnapshot.scrape(client, baseUri);
+            System.out.printf("[%s] Running %d uploads at concurrency %d...%n", mode, config.getInt("requests"), concurrency);
+            long start = System.nanoTime();
+            List<Result> results = driver.run(concurrency, config.getInt("requests"));
+            long elapsed = System.nanoTime() - start;
+            PrometheusSnapshot during = PrometheusSnapshot.scrape(client, baseUri).since(before);
+
+            return printReport(config, mode, results, elapsed, during);
+        } finally {
+            if (app != null) {
+                app.destroy();
+                if (!app.waitFor(30, TimeUnit.SECONDS)) {
+                    app.destroyForcibly();
+                }
+            }
+        }
+    }
+
+    private static Process launchApp(LoadTestConfig config, String mode) throws IOException {
+        File jar = new File(config.get("app.jar"));
+        if (!jar.isFile()) {
+            throw new IllegalStateException("App jar not found: " + jar.getAbsolutePath()
+                    + " (run 'mvn package -DskipTests' in the project root, or pass --app.url)");
+        }
+        Path logFile = Path.of("target", "app-" + mode + ".log");
+        Files.createDirectories(logFile.getParent());
+
+        String javaBin = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        List<String> command = new ArrayList<>(List.of(
+                javaBin, "-jar", jar.getAbsolutePath(),
+                "--server.port=" + config.get("app.port"),
+                "--app.microservices.handwriting-detector.url=http://localhost:" + config.get("detector.port"),
+                "--app.microservices.trocr.url=http://localhost:" + config.get("trocr.port"),
+                "--ollama.api.urls=http://localhost:" + config.get("ollama.port"),
+                // Every upload must go through the whole pipeline
+                "--app.cache.enabled=false",
+                "--logging.level.root=" + config.get("app.log-level"),
+                "--logging.level.com.documentprocessing=" + config.get("app.log-level"),
+                "--spring.threads.virtual.enabled=" + "virtual".equals(mode)));
+        for (String extra : config.get("app.args").trim().split("\\s+")) {
+            if (!extra.isEmpty()) {
+                command.add(extra);
+            }
+        }
+
+        System.out.printf("[%s] Starting %s (log: %s)%n", mode, jar.getName(), logFile.toAbsolutePath());
+        return new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(logFile.toFile())
+                .start();
+    }
+
+    private static void awaitReady(HttpClient client, URI baseUri, Process app, Duration timeout)
+            throws InterruptedException {
+        HttpRequest readiness = HttpRequest.newBuilder(baseUri.resolve("/actuator/health/readiness"))
+                .timeout(Duration.ofSeconds(5))
+                .GET()
+                .build();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (app != null && !app.isAlive()) {
+                throw new IllegalStateException("App exited with code " + app.exitValue() + ", see its log in target/");
+            }
+            try {
+                if (client.send(readiness, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // Not listening yet
+            }
+            Thread.sleep(500);
+        }
+        throw new IllegalStateException("App not ready after " + timeout.toSeconds() + "s");
+    }
+
+    private static RunSummary printReport(LoadTestConfig config, String mode, List<Result> results, long elapsedNanos,
+                                          PrometheusSnapshot server) {
+        List<Long> latencies = new ArrayList<>(results.size());
+        Map<String, Integer> httpStatuses = new TreeMap<>();
+        Map<String, Integer> processingStatuses = new TreeMap<>();
+        int succeeded = 0;
+        for (Result result : results) {
+            latencies.add(result.latencyNanos());
+            String http = result.error() != null ? result.error() : String.valueOf(result.httpStatus());
+            httpStatuses.merge(http, 1, Integer::sum);
+            if (result.processingStatus() != null) {
+                processingStatuses.merge(result.processingStatus(), 1, Integer::sum);
+            }
+            if (result.httpStatus() == 200) {
+                succeeded++;
+            }
+        }
+        latencies.sort(null);
+
+        System.out.println();
+        System.out.printf("=== Configuration (%s threads) ===%n", mode);
+        config.asMap().forEach((key, value) -> System.out.printf("  %-30s %s%n", key, value));
+
+        System.out.println();
+        System.out.println("=== Client (end-to-end upload) ===");
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf("  requests      %d in %.1fs%n", results.size(), seconds);
+        System.out.printf("  throughput    %.2f docs/s%n", results.size() / seconds);
+        System.out.printf("  p50/p95/p99   %s / %s / %s ms   max %s ms%n",
+                millis(percentile(latencies, 0.50)), millis(percentile(latencies, 0.95)),
+                millis(percentile(latencies, 0.99)), millis(latencies.isEmpty() ? 0 : latencies.get(latencies.size() - 1)));
+        System.out.printf("  HTTP status   %s%n", httpStatuses);
+        System.out.printf("  processing    %s%n", processingStatuses);
+
+        System.out.println();
+        System.out.println("=== Server stages (document.stage.duration) ===");
+        System.out.printf("  %-22s %8s %8s %10s %10s %10s%n", "stage", "count", "errors", "p50 ms", "p95 ms", "p99 ms");
+        server.getStages().forEach((stage, histogram) -> printHistogramRow(stage, histogram));
+        Map<String, Long> finalStatuses = new TreeMap<>();
+        server.getOutcomes().forEach((status, count) -> finalStatuses.put(status, Math.round(count)));
+        System.out.printf("  final status  %s%n", finalStatuses);
+
+        System.out.println();
+        System.out.println("=== Ollama calls (ollama.generate.duration) ===");
+        if (server.getOllamaModels().isEmpty()) {
+            System.out.println("  none (every document was answered by the rule tier)");
+        }
+        server.getOllamaModels().forEach((model, histogram) -> printHistogramRow(model, histogram));
+
+        System.out.println();
+        System.out.println("=== App JVM ===");
+        System.out.printf("  platform threads  live %.0f, peak %.0f%n", server.getLiveThreads(), server.getPeakThreads());
+
+        return new RunSummary(mode, results.size(), succeeded, results.size() / seconds,
+                percentile(latencies, 0.50), percentile(latencies, 0.95), percentile(latencies, 0.99),
+                server.getPeakThreads());
+    }
+
+    private static void printComparison(List<RunSummary> summaries) {
+        System.out.println();
+        System.out.println("=== Platform vs virtual threads ===");
+        System.out.printf("  %-10s %8s %8s %10s %9s %9s %9s %13s%n",
+                "mode", "requests", "ok", "docs/s", "p50 ms", "p95 ms", "p99 ms", "peak threads");
+        for (RunSummary summary : summaries) {
+            System.out.printf("  %-10s %8d %8d %10.2f %9s %9s %9s %13.0f%n", summary.mode(), summary.requests(),
+                    summary.succeeded(), summary.throughput(), millis(summary.p50Nanos()), millis(summary.p95Nanos()),
+                    millis(summary.p99Nanos()), summary.peakThreads());
+        }
+    }
+
+    private static void printHistogramRow(String name, Histogram histogram) {
+        System.out.printf("  %-22s %8.0f %8.0f %10s %10s %10s%n", name, histogram.getCount(), histogram.getErrors(),
+                seconds(histogram.percentileSeconds(0.50)), seconds(histogram.percentileSeconds(0.95)),
+                seconds(histogram.percentileSeconds(0.99)));
+    }
+
+    private static long percentile(List<Long> sorted, double quantile) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.size()) - 1;
+        return sorted.get(Math.max(0, Math.min(index, sorted.size() - 1)));
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.0f", nanos / 1e6);
+    }
+
+    private static String seconds(double value) {
+        return Double.isNaN(value) ? "-" : String.format("%.0f", value * 1000);
+    }
+}
@@ -0,0 +1,93 @@
+package com.documentprocessing.loadtest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Command line settings, given as {@code --key=value}. Every key has a
+ * default so a bare run works against the local build.
+ */
+public final class LoadTestConfig {
+
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+
+    static {
+        // Application under test; set app.url to target an already running instance instead
+        DEFAULTS.put("app.jar", "../target/document-processing-app-1.0.0-exec.jar");
+        DEFAULTS.put("app.url", "");
+        DEFAULTS.put("app.port", "18080");
+        DEFAULTS.put("app.log-level", "WARN");
+        DEFAULTS.put("app.startup-timeout-seconds", "180");
+        // platform | virtual | both (runs the scenario once per mode and compares them)
+        DEFAULTS.put("app.threads", "platform");
+        // Extra application arguments, space separated, e.g. "--app.admission.enabled=false"
+        DEFAULTS.put("app.args", "");
+
+        // Stub microservices (same ports as the real ones by default)
+        DEFAULTS.put("detector.port", "8002");
+        DEFAULTS.put("detector.latency", "lognormal:150,0.4");
+        DEFAULTS.put("detector.error-rate", "0.0");
+        DEFAULTS.put("detector.handwritten-ratio", "0.5");
+        DEFAULTS.put("trocr.port", "8001");
+        DEFAULTS.put("trocr.latency", "lognormal:900,0.5");
+        DEFAULTS.put("trocr.error-rate", "0.01");
+        DEFAULTS.put("ollama.port", "11434");
+        DEFAULTS.put("ollama.latency", "lognormal:2500,0.6");
+        DEFAULTS.put("ollama.error-rate", "0.01");
+        DEFAULTS.put("ollama.chunk-chars", "12");
+
+        // Load shape
+        DEFAULTS.put("concurrency", "8");
+        DEFAULTS.put("requests", "200");
+        DEFAULTS.put("warmup", "16");
+        DEFAULTS.put("pdf-ratio", "0.2");
+        DEFAULTS.put("request-timeout-seconds", "300");
+    }
+
+    private final Map<String, String> values = new LinkedHashMap<>(DEFAULTS);
+
+    public static LoadTestConfig fromArgs(String[] args) {
+        LoadTestConfig config = new LoadTestConfig();
+        for (String arg : args) {
+            if (arg.equals("--help") || arg.equals("-h")) {
+                printUsage();
+                System.exit(0);
+            }
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --key=value, got: " + arg);
+            }
+            String key = arg.substring(2, arg.indexOf('='));
+            if (!DEFAULTS.containsKey(key)) {
+                throw new IllegalArgumentException("Unknown option: " + key + " (see --help)");
+            }
+            config.values.put(key, arg.substring(arg.indexOf('=') + 1));
+        }
+        return config;
+    }
+
+    private static void printUsage() {
+        System.out.println("Usage: java -jar target/loadtest.jar [--key=value ...]");
+        System.out.println("Latency specs: none | fixed:MS | uniform:MIN-MAX | lognormal:MEDIAN_MS,SIGMA");
+        DEFAULTS.forEach((key, value) -> System.out.printf("  --%-28s default: %s%n", key, value));
+    }
+
+    public String get(String key) {
+        return values.get(key);
+    }
+
+    public int getInt(String key) {
+        return Integer.parseInt(values.get(key));
+    }
+
+    public double getDouble(String key) {
+        return Double.parseDouble(values.get(key));
+    }
+
+    public LatencyDistribution getLatency(String key) {
+        return LatencyDistribution.parse(values.get(key));
+    }
+
+    public Map<String, String> asMap() {
+        return values;
+    }
+}
@@ -0,0 +1,193 @@
+package com.documentprocessing.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * One scrape of the app's /actuator/prometheus endpoint, reduced to the
+ * series the load test reports on. Two snapshots taken around a run are
+ * diffed so warmup traffic and earlier runs do not leak into the report.
+ */
+public final class PrometheusSnapshot {
+
+    private static final Pattern SAMPLE = Pattern.compile("^([a-zA-Z_:][a-zA-Z0-9_:]*)(?:\\{([^}]*)})?\\s+(\\S+)");
+    private static final Pattern LABEL = Pattern.compile("(\\w+)=\"((?:[^\"\\\\]|\\\\.)*)\"");
+
+    private static final String STAGE_METRIC = "document_stage_duration_seconds";
+    private static final String OLLAMA_METRIC = "ollama_generate_duration_seconds";
+    private static final String OUTCOMES_METRIC = "document_outcomes_total";
+    private static final String LIVE_THREADS_METRIC = "jvm_threads_live_threads";
+    private static final String PEAK_THREADS_METRIC = "jvm_threads_peak_threads";
+
+    /** Aggregated histogram of one series group: le bound -> cumulative count */
+    public static final class Histogram {
+        private final TreeMap<Double, Double> buckets = new TreeMap<>();
+        private double count;
+        private double errors;
+
+        public double getCount() {
+            return count;
+        }
+
+        public double getErrors() {
+            return errors;
+        }
+
+        /**
+         * Percentile estimated by linear interpolation inside the bucket that
+         * holds it, the same way Prometheus' histogram_quantile does
+         */
+        public double percentileSeconds(double quantile) {
+            double total = buckets.isEmpty() ? 0 : buckets.lastEntry().getValue();
+            if (total <= 0) {
+                return Double.NaN;
+            }
+            double rank = quantile * total;
+            double lowerBound = 0;
+            double lowerCount = 0;
+            for (Map.Entry<Double, Double> bucket : buckets.entrySet()) {
+                if (bucket.getValue() >= rank) {
+                    if (bucket.getKey().isInfinite()) {
+                        return lowerBound;
+                    }
+                    double inBucket = bucket.getValue() - lowerCount;
+                    double fraction = inBucket > 0 ? (rank - lowerCount) / inBucket : 1;
+                    return lowerBound + (bucket.getKey() - lowerBound) * fraction;
+                }
+                lowerBound = bucket.getKey();
+                lowerCount = bucket.getValue();
+            }
+            return lowerBound;
+        }
+
+        private Histogram minus(Histogram before) {
+            Histogram diff = new Histogram();
+            buckets.forEach((le, value) -> diff.buckets.put(le, value - before.buckets.getOrDefault(le, 0.0)));
+            diff.count = count - before.count;
+            diff.errors = errors - before.errors;
+            return diff;
+        }
+    }
+
+    private final Map<String, Histogram> stages = new TreeMap<>();
+    private final Map<String, Histogram> ollamaModels = new TreeMap<>();
+    private final Map<String, Double> outcomes = new TreeMap<>();
+    /** Platform threads only; virtual threads are not counted by the JVM thread gauges */
+    private double liveThreads = Double.NaN;
+    private double peakThreads = Double.NaN;
+
+    public static PrometheusSnapshot scrape(HttpClient client, URI baseUri) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(baseUri.resolve("/actuator/prometheus")).GET().build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IOException("Prometheus scrape returned HTTP " + response.statusCode());
+        }
+        return parse(response.body());
+    }
+
+    static PrometheusSnapshot parse(String exposition) {
+        PrometheusSnapshot snapshot = new PrometheusSnapshot();
+        for (String line : exposition.split("\n")) {
+            Matcher sample = SAMPLE.matcher(line);
+            if (!line.startsWith("#") && sample.find()) {
+                String labels = sample.group(2) != null ? sample.group(2) : "";
+                snapshot.add(sample.group(1), labels(labels), Double.parseDouble(sample.group(3)));
+            }
+        }
+        return snapshot;
+    }
+
+    private void add(String name, Map<String, String> labels, double value) {
+        if (name.startsWith(STAGE_METRIC)) {
+            addHistogramSample(stages, labels.get("stage"), name.substring(STAGE_METRIC.length()), labels, value);
+        } else if (name.startsWith(OLLAMA_METRIC)) {
+            addHistogramSample(ollamaModels, labels.get("model"), name.substring(OLLAMA_METRIC.length()), labels, value);
+        } else if (name.equals(OUTCOMES_METRIC)) {
+            outcomes.merge(labels.get("status"), value, Double::sum);
+        } else if (name.equals(LIVE_THREADS_METRIC)) {
+            liveThreads = value;
+        } else if (name.equals(PEAK_THREADS_METRIC)) {
+            peakThreads = value;
+        }
+    }
+
+    private static void addHistogramSample(Map<String, Histogram> target, String key, String suffix,
+                                           Map<String, String> labels, double value) {
+        if (key == null) {
+            return;
+        }
+        Histogram histogram = target.computeIfAbsent(key, k -> new Histogram());
+        switch (suffix) {
+            case "_bucket" -> histogram.buckets.merge(parseBound(labels.get("le")), value, Double::sum);
+            case "_count" -> {
+                histogram.count += value;
+                if ("error".equals(labels.get("outcome"))) {
+                    histogram.errors += value;
+                }
+            }
+            default -> {
+                // _sum and _max are not needed for the report
+            }
+        }
+    }
+
+    private static double parseBound(String le) {
+        return "+Inf".equals(le) ? Double.POSITIVE_INFINITY : Double.parseDouble(le);
+    }
+
+    private static Map<String, String> labels(String raw) {
+        Map<String, String> labels = new HashMap<>();
+        Matcher label = LABEL.matcher(raw);
+        while (label.find()) {
+            labels.put(label.group(1), label.group(2));
+        }
+        return labels;
+    }
+
+    /**
+     * What happened between {@code before} and this snapshot
+     */
+    public PrometheusSnapshot since(PrometheusSnapshot before) {
+        PrometheusSnapshot diff = new PrometheusSnapshot();
+        stages.forEach((stage, histogram) ->
+                diff.stages.put(stage, histogram.minus(before.stages.getOrDefault(stage, new Histogram()))));
+        ollamaModels.forEach((model, histogram) ->
+                diff.ollamaModels.put(model, histogram.minus(before.ollamaModels.getOrDefault(model, new Histogram()))));
+        outcomes.forEach((status, count) ->
+                diff.outcomes.put(status, count - before.outcomes.getOrDefault(status, 0.0)));
+        diff.stages.values().removeIf(h -> h.count <= 0);
+        diff.ollamaModels.values().removeIf(h -> h.count <= 0);
+        diff.outcomes.values().removeIf(count -> count <= 0);
+        diff.liveThreads = liveThreads;
+        diff.peakThreads = peakThreads;
+        return diff;
+    }
+
+    public Map<String, Histogram> getStages() {
+        return stages;
+    }
+
+    public Map<String, Histogram> getOllamaModels() {
+        return ollamaModels;
+    }
+
+    public Map<String, Double> getOutcomes() {
+        return outcomes;
+    }
+
+    public double getLiveThreads() {
+        return liveThreads;
+    }
+
+    public double getPeakThreads() {
+        return peakThreads;
+    }
+}
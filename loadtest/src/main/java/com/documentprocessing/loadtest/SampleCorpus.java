@@ -0,0 +1,118 @@
+package com.documentprocessing.loadtest;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Upload corpus built from the synthetic license texts in
+ * src/main/resources/corpus: each text is rendered once as a PNG scan and
+ * once as a text PDF.
+ */
+public final class SampleCorpus {
+
+    public record Sample(String fileName, String contentType, byte[] content) {
+    }
+
+    private final List<String> texts = new ArrayList<>();
+    private final List<Sample> images = new ArrayList<>();
+    private final List<Sample> pdfs = new ArrayList<>();
+
+    public static SampleCorpus load() throws IOException {
+        SampleCorpus corpus = new SampleCorpus();
+        for (String name : read("corpus/index.txt").split("\n")) {
+            if (name.isBlank()) {
+                continue;
+            }
+            String text = read("corpus/" + name.trim());
+            String baseName = name.trim().replace(".txt", "");
+            corpus.texts.add(text);
+            corpus.images.add(new Sample(baseName + ".png", "image/png", renderPng(text)));
+            corpus.pdfs.add(new Sample(baseName + ".pdf", "application/pdf", renderPdf(text)));
+        }
+        return corpus;
+    }
+
+    public List<String> getTexts() {
+        return texts;
+    }
+
+    public List<Sample> getImages() {
+        return images;
+    }
+
+    public List<Sample> getPdfs() {
+        return pdfs;
+    }
+
+    private static byte[] renderPng(String text) throws IOException {
+        String[] lines = text.split("\n");
+        BufferedImage image = new BufferedImage(1000, 60 + lines.length * 34, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        try {
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, image.getWidth(), image.getHeight());
+            graphics.setColor(Color.BLACK);
+            graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            graphics.setFont(new Font(Font.MONOSPACED, Font.BOLD, 24));
+            for (int i = 0; i < lines.length; i++) {
+                graphics.drawString(lines[i], 30, 50 + i * 34);
+            }
+        } finally {
+            graphics.dispose();
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    private static byte[] renderPdf(String text) throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            PDPage page = new PDPage(PDRectangle.LETTER);
+            document.addPage(page);
+            try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                content.beginText();
+                content.setFont(PDType1Font.COURIER, 11);
+                content.setLeading(14);
+                content.newLineAtOffset(50, 740);
+                for (String line : text.split("\n")) {
+                    // Standard 14 fonts only cover WinAnsi
+                    content.showText(line.replaceAll("[^\\x20-\\x7E]", "?"));
+                    content.newLine();
+                }
+                content.endText();
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            document.save(out);
+            return out.toByteArray();
+        }
+    }
+
+    private static String read(String resource) {
+        try (InputStream in = SampleCorpus.class.getClassLoader().getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalArgumentException("Corpus file not found: " + resource);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
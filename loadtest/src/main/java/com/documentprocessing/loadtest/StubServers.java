@@ -0,0 +1,297 @@
+package com.documentprocessing.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local stand-ins for the three model services, speaking the same HTTP
+ * contracts as the real ones:
+ * <ul>
+ *   <li>handwriting detector: {@code POST /detect} -> {"result": "handwritten"|"printed", "confidence"}</li>
+ *   <li>TrOCR: {@code POST /ocr} -> {"text", "confidence"}, and {@code POST /ocr/batch} with one
+ *       "files" part per image -> {"results": [{"text", "confidence"}, ...]}</li>
+ *   <li>Ollama: {@code POST /api/generate} (streaming NDJSON or single JSON, answering with the
+ *       fields of the requested schema), {@code GET /api/ps} and {@code GET /api/version}</li>
+ * </ul>
+ * Each stub sleeps for a sampled service time and fails a configurable
+ * fraction of requests with HTTP 500.
+ */
+public class StubServers implements AutoCloseable {
+
+    private static final Map<String, String> LICENSE_VALUES = new LinkedHashMap<>();
+
+    static {
+        LICENSE_VALUES.put("licenseNumber", "D1234567");
+        LICENSE_VALUES.put("firstName", "JOHN");
+        LICENSE_VALUES.put("lastName", "SAMPLE");
+        LICENSE_VALUES.put("middleName", "Q");
+        LICENSE_VALUES.put("dateOfBirth", "1985-01-15");
+        LICENSE_VALUES.put("address", "123 MAIN ST");
+        LICENSE_VALUES.put("city", "SACRAMENTO");
+        LICENSE_VALUES.put("state", "CA");
+        LICENSE_VALUES.put("zipCode", "95814");
+        LICENSE_VALUES.put("issueDate", "2021-03-01");
+        LICENSE_VALUES.put("expiryDate", "2029-01-15");
+        LICENSE_VALUES.put("issuingAuthority", "DMV");
+        LICENSE_VALUES.put("licenseClass", "C");
+        LICENSE_VALUES.put("restrictions", "NONE");
+        LICENSE_VALUES.put("endorsements", null);
+    }
+
+    private final LoadTestConfig config;
+    private final List<String> ocrTexts;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<HttpServer> servers = new ArrayList<>();
+    private final List<ExecutorService> executors = new ArrayList<>();
+    private final Set<String> loadedModels = ConcurrentHashMap.newKeySet();
+    private final Map<String, StubStats> stats = new LinkedHashMap<>();
+
+    public record StubStats(AtomicLong requests, AtomicLong injectedErrors) {
+        StubStats() {
+            this(new AtomicLong(), new AtomicLong());
+        }
+    }
+
+    public StubServers(LoadTestConfig config, List<String> ocrTexts) {
+        this.config = config;
+        this.ocrTexts = ocrTexts;
+        stats.put("detector", new StubStats());
+        stats.put("trocr", new StubStats());
+        stats.put("ollama", new StubStats());
+    }
+
+    public void start() throws IOException {
+        HttpServer detector = create(config.getInt("detector.port"));
+        detector.createContext("/detect", this::handleDetect);
+        detector.createContext("/health", this::handleHealth);
+
+        HttpServer trocr = create(config.getInt("trocr.port"));
+        trocr.createContext("/ocr", this::handleOcr);
+        trocr.createContext("/ocr/batch", this::handleOcrBatch);
+        trocr.createContext("/health", this::handleHealth);
+
+        HttpServer ollama = create(config.getInt("ollama.port"));
+        ollama.createContext("/api/generate", this::handleGenerate);
+        ollama.createContext("/api/ps", this::handlePs);
+        ollama.createContext("/api/version", this::handleVersion);
+
+        servers.forEach(HttpServer::start);
+    }
+
+    private HttpServer create(int port) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 256);
+        // Like the real services, requests are served concurrently
+        ExecutorService executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        servers.add(server);
+        executors.add(executor);
+        return server;
+    }
+
+    private void handleDetect(HttpExchange exchange) throws IOException {
+        try {
+            drain(exchange.getRequestBody());
+            if (simulate("detector", exchange)) {
+                return;
+            }
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            boolean handwritten = random.nextDouble() < config.getDouble("detector.handwritten-ratio");
+            double confidence = 0.5 + random.nextDouble() * 0.5;
+            respond(exchange, 200, String.format("{\"result\": \"%s\", \"confidence\": %.3f}",
+                    handwritten ? "handwritten" : "printed", confidence));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleOcr(HttpExchange exchange) throws IOException {
+        try {
+            drain(exchange.getRequestBody());
+            if (simulate("trocr", exchange)) {
+                return;
+            }
+            String text = ocrTexts.get(ThreadLocalRandom.current().nextInt(ocrTexts.size()));
+            respond(exchange, 200, objectMapper.writeValueAsString(Map.of("text", text, "confidence", 0.8)));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleOcrBatch(HttpExchange exchange) throws IOException {
+        try {
+            // Count the parts rather than parse them; the images themselves are not used
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.ISO_8859_1);
+            int images = body.split("name=\"files\"", -1).length - 1;
+            if (simulate("trocr", exchange)) {
+                return;
+            }
+            List<Map<String, Object>> results = new ArrayList<>();
+            for (int i = 0; i < images; i++) {
+                String text = ocrTexts.get(ThreadLocalRandom.current().nextInt(ocrTexts.size()));
+                results.add(Map.of("text", text, "confidence", 0.8));
+            }
+            respond(exchange, 200, objectMapper.writeValueAsString(Map.of("results", results)));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleGenerate(HttpExchange exchange) throws IOException {
+        try {
+            JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+            String model = request.path("model").asText("unknown");
+            loadedModels.add(model);
+
+            // A generate request without a prompt only loads the model
+            if (!request.hasNonNull("prompt")) {
+                respond(exchange, 200, objectMapper.writeValueAsString(
+                        Map.of("model", model, "response", "", "done", true)));
+                return;
+            }
+            if (simulate("ollama", exchange)) {
+                return;
+            }
+
+            String answer = objectMapper.writeValueAsString(answerFor(request.path("format")));
+            if (request.path("stream").asBoolean(true)) {
+                streamAnswer(exchange, model, answer);
+            } else {
+                respond(exchange, 200, objectMapper.writeValueAsString(
+                        Map.of("model", model, "response", answer, "done", true)));
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Fill exactly the fields the request's JSON schema asks for; plain JSON
+     * mode gets all of them
+     */
+    private Map<String, String> answerFor(JsonNode format) {
+        Map<String, String> answer = new LinkedHashMap<>();
+        JsonNode properties = format.path("properties");
+        if (properties.isObject()) {
+            Iterator<String> fields = properties.fieldNames();
+            while (fields.hasNext()) {
+                String field = fields.next();
+                answer.put(field, LICENSE_VALUES.get(field));
+            }
+        } else {
+            answer.putAll(LICENSE_VALUES);
+        }
+        return answer;
+    }
+
+    private void streamAnswer(HttpExchange exchange, String model, String answer) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/x-ndjson");
+        exchange.sendResponseHeaders(200, 0);
+        int chunkChars = Math.max(1, config.getInt("ollama.chunk-chars"));
+        try (OutputStream out = exchange.getResponseBody()) {
+            for (int i = 0; i < answer.length(); i += chunkChars) {
+                String piece = answer.substring(i, Math.min(answer.length(), i + chunkChars));
+                writeLine(out, Map.of("model", model, "response", piece, "done", false));
+            }
+            // Real models keep talking after the JSON; the app is expected to hang up before this
+            writeLine(out, Map.of("model", model, "response", "\n\nLet me know if you need anything else!", "done", false));
+            writeLine(out, Map.of("model", model, "response", "", "done", true));
+        } catch (IOException e) {
+            // Client cancelled once the JSON object was complete
+        }
+    }
+
+    private void writeLine(OutputStream out, Map<String, Object> chunk) throws IOException {
+        out.write(objectMapper.writeValueAsBytes(chunk));
+        out.write('\n');
+        out.flush();
+    }
+
+    private void handleHealth(HttpExchange exchange) throws IOException {
+        try {
+            respond(exchange, 200, "{\"status\": \"healthy\"}");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleVersion(HttpExchange exchange) throws IOException {
+        try {
+            respond(exchange, 200, "{\"version\": \"stub\"}");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handlePs(HttpExchange exchange) throws IOException {
+        try {
+            List<Map<String, String>> models = new ArrayList<>();
+            for (String model : loadedModels) {
+                models.add(Map.of("name", model, "model", model));
+            }
+            respond(exchange, 200, objectMapper.writeValueAsString(Map.of("models", models)));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Apply the configured service time and error rate. Returns true when an
+     * error response has already been sent.
+     */
+    private boolean simulate(String stub, HttpExchange exchange) throws IOException {
+        StubStats stubStats = stats.get(stub);
+        stubStats.requests().incrementAndGet();
+        try {
+            config.getLatency(stub + ".latency").pause();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (ThreadLocalRandom.current().nextDouble() < config.getDouble(stub + ".error-rate")) {
+            stubStats.injectedErrors().incrementAndGet();
+            respond(exchange, 500, "{\"error\": \"injected failure\"}");
+            return true;
+        }
+        return false;
+    }
+
+    private void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    private void drain(InputStream body) throws IOException {
+        body.transferTo(OutputStream.nullOutputStream());
+    }
+
+    public Map<String, StubStats> getStats() {
+        return stats;
+    }
+
+    @Override
+    public void close() {
+        servers.forEach(server -> server.stop(0));
+        executors.forEach(ExecutorService::shutdownNow);
+    }
+}
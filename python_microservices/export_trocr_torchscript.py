@@ -0,0 +1,116 @@
+"""Export TrOCR to TorchScript for the in-process DJL engine (app.trocr.engine=djl).
+
+Writes encoder.pt, decoder.pt, vocab.json and config.json into the output
+directory, which app.trocr.djl.model-dir then points at.
+
+    python export_trocr_torchscript.py [model-name] [output-dir]
+
+DJL 0.22 bundles libtorch 2.0, so run this under torch 2.0.x: TorchScript
+written by a newer torch may not load in an older runtime.
+
+The graphs are traced, and tracing records any shape that passes through a
+Python int as a constant. Before anything is written, the traced encoder and
+decoder are run at other batch sizes and prefix lengths and compared with
+the eager model. The export fails if they differ.
+"""
+import json
+import os
+import sys
+
+import torch
+from transformers import TrOCRProcessor, VisionEncoderDecoderModel
+
+
+class Encoder(torch.nn.Module):
+    def __init__(self, model):
+        super().__init__()
+        self.encoder = model.encoder
+
+    def forward(self, pixel_values):
+        # Index rather than name the output: torchscript=True makes the model return tuples
+        return self.encoder(pixel_values=pixel_values)[0]
+
+
+class Decoder(torch.nn.Module):
+    """Full decoder pass over the prefix; no cache, so the traced graph has no state"""
+
+    def __init__(self, model):
+        super().__init__()
+        self.decoder = model.decoder
+
+    def forward(self, input_ids, encoder_hidden_states):
+        return self.decoder(input_ids=input_ids, encoder_hidden_states=encoder_hidden_states,
+                            use_cache=False)[0]
+
+
+VERIFY_BATCHES = (1, 3, 5)
+VERIFY_PREFIXES = (1, 4, 17, 64)
+
+
+def check(what, traced, eager):
+    if traced.shape != eager.shape:
+        raise SystemExit(f"Traced {what}: shape {tuple(traced.shape)}, eager model gives {tuple(eager.shape)}")
+    difference = (traced - eager).abs().max().item()
+    if difference > 1e-3 or not torch.equal(traced.argmax(-1), eager.argmax(-1)):
+        raise SystemExit(f"Traced {what} differs from the eager model (max difference {difference:.2e}); "
+                         "the graph has a shape frozen in, so it cannot be used for other batches")
+
+
+def verify(encoder, decoder, model, size):
+    """Run the traced graphs at batch sizes and prefix lengths other than the traced ones"""
+    eager_encoder = Encoder(model).eval()
+    eager_decoder = Decoder(model).eval()
+    start_id = model.config.decoder_start_token_id
+    vocab_size = model.config.decoder.vocab_size
+    with torch.no_grad():
+        for batch in VERIFY_BATCHES:
+            pixel_values = torch.randn(batch, 3, size, size)
+            states = encoder(pixel_values)
+            check(f"encoder at batch {batch}", states, eager_encoder(pixel_values))
+            for length in VERIFY_PREFIXES:
+                input_ids = torch.randint(0, vocab_size, (batch, length))
+                input_ids[:, 0] = start_id
+                check(f"decoder at batch {batch}, prefix {length}",
+                      decoder(input_ids, states), eager_decoder(input_ids, states))
+    print(f"Traced graphs match the eager model at batches {VERIFY_BATCHES} and prefixes {VERIFY_PREFIXES}")
+
+
+def main():
+    model_name = sys.argv[1] if len(sys.argv) > 1 else "microsoft/trocr-base-handwritten"
+    output_dir = sys.argv[2] if len(sys.argv) > 2 else "models/trocr"
+    os.makedirs(output_dir, exist_ok=True)
+
+    processor = TrOCRProcessor.from_pretrained(model_name)
+    model = VisionEncoderDecoderModel.from_pretrained(model_name, torchscript=True).eval()
+    image_processor = processor.image_processor
+    tokenizer = processor.tokenizer
+    size = image_processor.size["height"]
+
+    # Traced at batch 2, prefix 3; verify() checks the other shapes the service uses
+    pixel_values = torch.randn(2, 3, size, size)
+    with torch.no_grad():
+        encoder = torch.jit.trace(Encoder(model), pixel_values)
+        states = encoder(pixel_values)
+        input_ids = torch.full((2, 3), model.config.decoder_start_token_id, dtype=torch.long)
+        decoder = torch.jit.trace(Decoder(model), (input_ids, states))
+    verify(encoder, decoder, model, size)
+    encoder.save(os.path.join(output_dir, "encoder.pt"))
+    decoder.save(os.path.join(output_dir, "decoder.pt"))
+
+    with open(os.path.join(output_dir, "vocab.json"), "w", encoding="utf-8") as f:
+        json.dump(tokenizer.get_vocab(), f, ensure_ascii=False)
+    with open(os.path.join(output_dir, "config.json"), "w", encoding="utf-8") as f:
+        json.dump({
+            "image_size": size,
+            "image_mean": list(image_processor.image_mean),
+            "image_std": list(image_processor.image_std),
+            "decoder_start_token_id": model.config.decoder_start_token_id,
+            "eos_token_id": model.config.eos_token_id,
+            "pad_token_id": model.config.pad_token_id,
+            "special_ids": tokenizer.all_special_ids,
+        }, f, indent=2)
+    print(f"Exported {model_name} to {output_dir}")
+
+
+if __name__ == "__main__":
+    main()
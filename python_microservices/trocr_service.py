@@ -5,6 +5,7 @@ import io
 import numpy as np
 from transformers import TrOCRProcessor, VisionEncoderDecoderModel
 import logging
+from typing import List
 
 # Set up logging
 logging.basicConfig(level=logging.INFO)
@@ -78,6 +79,38 @@ async def ocr_image(file: UploadFile = File(...)):
             status_code=500
         )
 
+@app.post("/ocr/batch")
+async def ocr_batch(files: List[UploadFile] = File(...)):
+    """OCR several images with one generate call; results are in upload order"""
+    results = [None] * len(files)
+    images = []
+    positions = []
+    for i, file in enumerate(files):
+        try:
+            image = Image.open(io.BytesIO(await file.read()))
+            images.append(preprocess_image(image))
+            positions.append(i)
+        except Exception as e:
+            logger.error(f"Error reading image {i} of batch: {str(e)}")
+            results[i] = {"error": f"Failed to process image: {str(e)}"}
+
+    if images:
+        try:
+            pixel_values = processor(images=images, return_tensors="pt").pixel_values
+            generated_ids = model.generate(pixel_values)
+            texts = processor.batch_decode(generated_ids, skip_special_tokens=True)
+        except Exception as e:
+            logger.error(f"Error processing batch: {str(e)}")
+            return JSONResponse(
+                {"error": f"Failed to process batch: {str(e)}"},
+                status_code=500
+            )
+        for i, text in zip(positions, texts):
+            results[i] = {"text": text, "confidence": 0.8}
+
+    logger.info(f"Batch of {len(files)} images, {len(images)} recognised")
+    return JSONResponse({"results": results})
+
 @app.get("/health")
 async def health_check():
     return JSONResponse({"status": "healthy", "service": "trocr"}) 
\ No newline at end of file
@@ -1,19 +1,30 @@
 package com.documentprocessing.controller;
 
+import com.documentprocessing.exception.AdmissionRejectedException;
 import com.documentprocessing.model.DrivingLicense;
+import com.documentprocessing.model.ProcessingJob;
+import com.documentprocessing.service.AdmissionControl;
+import com.documentprocessing.service.BatchProcessingService;
+import com.documentprocessing.service.DocumentJobService;
 import com.documentprocessing.service.DocumentProcessingService;
 import com.documentprocessing.service.DrivingLicenseService;
+import com.documentprocessing.service.HandwritingDetection;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import jakarta.servlet.http.HttpServletRequest;
 
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.HashMap;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/documents")
@@ -23,31 +34,42 @@ public class DocumentController {
 
     private final DocumentProcessingService documentProcessingService;
     private final DrivingLicenseService drivingLicenseService;
+    private final DocumentJobService documentJobService;
+    private final BatchProcessingService batchProcessingService;
+    private final AdmissionControl admissionControl;
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
 
     public DocumentController(DocumentProcessingService documentProcessingService, 
-                            DrivingLicenseService drivingLicenseService) {
+                            DrivingLicenseService drivingLicenseService,
+                            DocumentJobService documentJobService,
+                            BatchProcessingService batchProcessingService,
+                            AdmissionControl admissionControl) {
         this.documentProcessingService = documentProcessingService;
         this.drivingLicenseService = drivingLicenseService;
+        this.documentJobService = documentJobService;
+        this.batchProcessingService = batchProcessingService;
+        this.admissionControl = admissionControl;
     }
 
     @PostMapping("/process")
     public ResponseEntity<?> uploadAndProcess(@RequestParam("file") MultipartFile file) {
         try {
-            if (file.isEmpty()) {
-                return ResponseEntity.badRequest().body("Please upload a file");
+            String validationError = validateUpload(file);
+            if (validationError != null) {
+                return ResponseEntity.badRequest().body(validationError);
             }
 
-            // Check if it's a supported file type
-            String contentType = file.getContentType();
-            if (contentType == null || (!contentType.contains("pdf") && !contentType.contains("image"))) {
-                return ResponseEntity.badRequest().body("Only PDF and image files are supported");
+            // Admit before the pipeline buffers the upload, so shed requests cost almost nothing
+            try (AdmissionControl.Permit permit = admissionControl.admit(AdmissionControl.classify(file.getContentType()))) {
+                log.info("Processing {} ({} bytes)", file.getOriginalFilename(), file.getSize());
+                DrivingLicense result = documentProcessingService.processDocument(file, permit);
+
+                return ResponseEntity.ok(result);
             }
 
-            log.info("Processing {} ({} bytes)", file.getOriginalFilename(), file.getSize());
-            DrivingLicense result = documentProcessingService.processDocument(file);
-            
-            return ResponseEntity.ok(result);
-            
+        } catch (AdmissionRejectedException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Failed to process document: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -55,6 +77,75 @@ public class DocumentController {
         }
     }
 
+    @PostMapping("/jobs")
+    public ResponseEntity<?> submitJob(@RequestParam("file") MultipartFile file) {
+        try {
+            String validationError = validateUpload(file);
+            if (validationError != null) {
+                return ResponseEntity.badRequest().body(validationError);
+            }
+
+            ProcessingJob job = documentJobService.submit(file);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("jobId", job.getId());
+            response.put("status", job.getStatus());
+            return ResponseEntity.accepted()
+                    .header(HttpHeaders.LOCATION, "/api/documents/jobs/" + job.getId())
+                    .body(response);
+
+        } catch (RejectedExecutionException e) {
+            log.warn("Job queue full, rejecting {}", file.getOriginalFilename());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body("Processing queue is full, please retry later");
+        } catch (Exception e) {
+            log.error("Failed to queue document: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error queueing document: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<ProcessingJob> getJob(@PathVariable String id) {
+        return documentJobService.getJob(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping(value = "/batch", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<StreamingResponseBody> processBatch(@RequestParam("files") List<MultipartFile> files,
+                                                              @RequestParam(required = false) Integer parallelism) {
+        int level = batchProcessingService.resolveParallelism(parallelism);
+        log.info("Processing batch of {} uploads with parallelism {}", files.size(), level);
+
+        StreamingResponseBody body = out -> batchProcessingService.processFiles(files, level, out);
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
+    @PostMapping(value = "/batch", consumes = {"application/zip", "application/x-zip-compressed",
+            MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseEntity<StreamingResponseBody> processZipBatch(HttpServletRequest request,
+                                                                 @RequestParam(required = false) Integer parallelism) {
+        int level = batchProcessingService.resolveParallelism(parallelism);
+        log.info("Processing streamed ZIP batch with parallelism {}", level);
+
+        StreamingResponseBody body = out -> batchProcessingService.processZip(request.getInputStream(), level, out);
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
+    private String validateUpload(MultipartFile file) {
+        if (file.isEmpty()) {
+            return "Please upload a file";
+        }
+
+        // Check if it's a supported file type
+        String contentType = file.getContentType();
+        if (contentType == null || (!contentType.contains("pdf") && !contentType.contains("image"))) {
+            return "Only PDF and image files are supported";
+        }
+        return null;
+    }
+
     @GetMapping("/licenses")
     public ResponseEntity<List<DrivingLicense>> getAllLicenses() {
         List<DrivingLicense> licenses = drivingLicenseService.getAllDrivingLicenses();
@@ -191,8 +282,9 @@ public class DocumentController {
                 return ResponseEntity.badRequest().body("Please upload a file");
             }
 
-            String result = documentProcessingService.testHandwritingDetection(file.getBytes());
-            return ResponseEntity.ok("Handwriting detection result: " + result);
+            HandwritingDetection result = documentProcessingService.testHandwritingDetection(file.getBytes());
+            String confidence = result.confidence() != null ? " (confidence " + result.confidence() + ")" : "";
+            return ResponseEntity.ok("Handwriting detection result: " + result.label() + confidence);
             
         } catch (Exception e) {
             log.error("Handwriting detection test failed: {}", e.getMessage(), e);
@@ -0,0 +1,92 @@
+package com.documentprocessing.controller;
+
+import com.documentprocessing.service.AdmissionControl;
+import com.documentprocessing.service.DocumentJobService;
+import com.documentprocessing.service.DocumentProcessingService;
+import com.documentprocessing.service.DocumentResultCache;
+import com.documentprocessing.service.ExternalServiceGuard;
+import com.documentprocessing.service.OllamaEndpointBalancer;
+import com.documentprocessing.service.ServiceHttpClient;
+import com.documentprocessing.service.TesseractPool;
+import com.documentprocessing.service.TieredExtractionRouter;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/monitoring")
+@CrossOrigin(origins = "*")
+public class MonitoringController {
+
+    private final TesseractPool tesseractPool;
+    private final DocumentJobService documentJobService;
+    private final DocumentResultCache resultCache;
+    private final ServiceHttpClient serviceHttpClient;
+    private final DocumentProcessingService documentProcessingService;
+    private final TieredExtractionRouter extractionRouter;
+    private final ExternalServiceGuard guard;
+    private final AdmissionControl admissionControl;
+    private final OllamaEndpointBalancer ollamaEndpoints;
+
+    public MonitoringController(TesseractPool tesseractPool, DocumentJobService documentJobService,
+                                DocumentResultCache resultCache, ServiceHttpClient serviceHttpClient,
+                                DocumentProcessingService documentProcessingService,
+                                TieredExtractionRouter extractionRouter, ExternalServiceGuard guard,
+                                AdmissionControl admissionControl, OllamaEndpointBalancer ollamaEndpoints) {
+        this.tesseractPool = tesseractPool;
+        this.documentJobService = documentJobService;
+        this.resultCache = resultCache;
+        this.serviceHttpClient = serviceHttpClient;
+        this.documentProcessingService = documentProcessingService;
+        this.extractionRouter = extractionRouter;
+        this.guard = guard;
+        this.admissionControl = admissionControl;
+        this.ollamaEndpoints = ollamaEndpoints;
+    }
+
+    @GetMapping("/ocr-pool")
+    public ResponseEntity<Map<String, Object>> getOcrPoolStats() {
+        return ResponseEntity.ok(tesseractPool.getStats());
+    }
+
+    @GetMapping("/jobs")
+    public ResponseEntity<Map<String, Object>> getJobQueueStats() {
+        return ResponseEntity.ok(documentJobService.getStats());
+    }
+
+    @GetMapping("/result-cache")
+    public ResponseEntity<Map<String, Object>> getResultCacheStats() {
+        return ResponseEntity.ok(resultCache.getStats());
+    }
+
+    @GetMapping("/http-pool")
+    public ResponseEntity<Map<String, Object>> getHttpPoolStats() {
+        return ResponseEntity.ok(serviceHttpClient.getStats());
+    }
+
+    @GetMapping("/in-flight")
+    public ResponseEntity<Map<String, Object>> getInFlightStats() {
+        return ResponseEntity.ok(documentProcessingService.getInFlightStats());
+    }
+
+    @GetMapping("/extraction-tiers")
+    public ResponseEntity<Map<String, Object>> getExtractionTierStats() {
+        return ResponseEntity.ok(extractionRouter.getStats());
+    }
+
+    @GetMapping("/dependencies")
+    public ResponseEntity<Map<String, Object>> getDependencyStats() {
+        return ResponseEntity.ok(guard.getStats());
+    }
+
+    @GetMapping("/admission")
+    public ResponseEntity<Map<String, Object>> getAdmissionStats() {
+        return ResponseEntity.ok(admissionControl.getStats());
+    }
+
+    @GetMapping("/ollama-endpoints")
+    public ResponseEntity<Map<String, Object>> getOllamaEndpointStats() {
+        return ResponseEntity.ok(ollamaEndpoints.getStats());
+    }
+}
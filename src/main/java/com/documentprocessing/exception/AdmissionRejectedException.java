@@ -0,0 +1,21 @@
+package com.documentprocessing.exception;
+
+/**
+ * An upload was shed because its work class has no free pipeline slot and
+ * its wait queue is full. Mapped to 429 with a Retry-After header.
+ */
+public class AdmissionRejectedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAfterSeconds;
+
+    public AdmissionRejectedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
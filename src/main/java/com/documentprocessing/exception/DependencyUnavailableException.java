@@ -0,0 +1,29 @@
+package com.documentprocessing.exception;
+
+import java.io.IOException;
+
+/**
+ * A microservice call was not made or was cut short by its guard: the
+ * circuit breaker is open, the bulkhead is full, or the call ran past its
+ * deadline. Callers treat it like any other I/O failure and fall back.
+ */
+public class DependencyUnavailableException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String service;
+
+    public DependencyUnavailableException(String service, String message) {
+        super(service + ": " + message);
+        this.service = service;
+    }
+
+    public DependencyUnavailableException(String service, String message, Throwable cause) {
+        super(service + ": " + message, cause);
+        this.service = service;
+    }
+
+    public String getService() {
+        return service;
+    }
+}
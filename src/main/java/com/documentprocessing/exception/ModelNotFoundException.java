@@ -0,0 +1,22 @@
+package com.documentprocessing.exception;
+
+/**
+ * Ollama answered 404 because the requested model has not been pulled on
+ * that host. The host itself is fine, so this counts neither against its
+ * circuit breaker nor as an endpoint failure.
+ */
+public class ModelNotFoundException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String model;
+
+    public ModelNotFoundException(String model, String message) {
+        super("Ollama model " + model + " not found (run ollama pull " + model + "): " + message);
+        this.model = model;
+    }
+
+    public String getModel() {
+        return model;
+    }
+}
@@ -79,6 +79,10 @@ public class DrivingLicense {
     @Column(name = "handwritten")
     private Boolean handwritten;
 
+    @Enumerated(EnumType.STRING)
+    @Column(name = "extraction_tier")
+    private ExtractionTier extractionTier;
+
     // Default constructor
     public DrivingLicense() {}
 
@@ -88,7 +92,7 @@ public class DrivingLicense {
                          String licenseClass, LocalDate issueDate, LocalDate expiryDate, String issuingAuthority,
                          String restrictions, String endorsements, String documentType, ProcessingStatus processingStatus,
                          Double confidenceScore, Boolean aiProcessed, Double aiConfidence, LocalDate createdAt,
-                         Boolean handwritten) {
+                         Boolean handwritten, ExtractionTier extractionTier) {
         this.id = id;
         this.licenseNumber = licenseNumber;
         this.firstName = firstName;
@@ -112,6 +116,7 @@ public class DrivingLicense {
         this.aiConfidence = aiConfidence;
         this.createdAt = createdAt;
         this.handwritten = handwritten;
+        this.extractionTier = extractionTier;
     }
 
     // Builder pattern
@@ -143,7 +148,8 @@ public class DrivingLicense {
                 .aiProcessed(this.aiProcessed)
                 .aiConfidence(this.aiConfidence)
                 .createdAt(this.createdAt)
-                .handwritten(this.handwritten);
+                .handwritten(this.handwritten)
+                .extractionTier(this.extractionTier);
     }
 
     // Getters and Setters
@@ -216,6 +222,9 @@ public class DrivingLicense {
     public Boolean getHandwritten() { return handwritten; }
     public void setHandwritten(Boolean handwritten) { this.handwritten = handwritten; }
 
+    public ExtractionTier getExtractionTier() { return extractionTier; }
+    public void setExtractionTier(ExtractionTier extractionTier) { this.extractionTier = extractionTier; }
+
     public enum ProcessingStatus {
         PROCESSING,
         PROCESSED,
@@ -223,6 +232,15 @@ public class DrivingLicense {
         MANUAL_REVIEW_REQUIRED
     }
 
+    /**
+     * Which tier of the extraction cascade produced the fields
+     */
+    public enum ExtractionTier {
+        RULES,
+        SMALL_MODEL,
+        LARGE_MODEL
+    }
+
     // Builder class
     public static class DrivingLicenseBuilder {
         private Long id;
@@ -248,6 +266,7 @@ public class DrivingLicense {
         private Double aiConfidence;
         private LocalDate createdAt;
         private Boolean handwritten;
+        private ExtractionTier extractionTier;
 
         public DrivingLicenseBuilder id(Long id) { this.id = id; return this; }
         public DrivingLicenseBuilder licenseNumber(String licenseNumber) { this.licenseNumber = licenseNumber; return this; }
@@ -272,11 +291,12 @@ public class DrivingLicense {
         public DrivingLicenseBuilder aiConfidence(Double aiConfidence) { this.aiConfidence = aiConfidence; return this; }
         public DrivingLicenseBuilder createdAt(LocalDate createdAt) { this.createdAt = createdAt; return this; }
         public DrivingLicenseBuilder handwritten(Boolean handwritten) { this.handwritten = handwritten; return this; }
+        public DrivingLicenseBuilder extractionTier(ExtractionTier extractionTier) { this.extractionTier = extractionTier; return this; }
 
         public DrivingLicense build() {
             return new DrivingLicense(id, licenseNumber, firstName, lastName, middleName, dateOfBirth, address, city, state, zipCode,
                     licenseClass, issueDate, expiryDate, issuingAuthority, restrictions, endorsements, documentType, processingStatus,
-                    confidenceScore, aiProcessed, aiConfidence, createdAt, handwritten);
+                    confidenceScore, aiProcessed, aiConfidence, createdAt, handwritten, extractionTier);
         }
     }
 } 
\ No newline at end of file
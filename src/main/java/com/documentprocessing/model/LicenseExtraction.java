@@ -0,0 +1,35 @@
+package com.documentprocessing.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.List;
+
+/**
+ * Typed form of the structured output returned by the LLM extractor. Field
+ * names match the JSON schema sent to Ollama.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record LicenseExtraction(
+        String licenseNumber,
+        String firstName,
+        String lastName,
+        String middleName,
+        String dateOfBirth,
+        String address,
+        String city,
+        String state,
+        String zipCode,
+        String issueDate,
+        String expiryDate,
+        String issuingAuthority,
+        String licenseClass,
+        String restrictions,
+        String endorsements) {
+
+    public static final List<String> FIELDS = List.of(
+            "licenseNumber", "firstName", "lastName", "middleName", "dateOfBirth",
+            "address", "city", "state", "zipCode", "issueDate", "expiryDate",
+            "issuingAuthority", "licenseClass", "restrictions", "endorsements");
+
+    public static final List<String> DATE_FIELDS = List.of("dateOfBirth", "issueDate", "expiryDate");
+}
@@ -0,0 +1,105 @@
+package com.documentprocessing.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * In-memory record of an asynchronous document processing job
+ */
+public class ProcessingJob {
+
+    private final String id;
+    private final String fileName;
+    private final Instant submittedAt;
+    private final Map<ProcessingStage, StageProgress> stages = new EnumMap<>(ProcessingStage.class);
+
+    private volatile JobStatus status = JobStatus.QUEUED;
+    private volatile ProcessingStage currentStage;
+    private volatile DrivingLicense result;
+    private volatile String error;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile OcrSpeculation speculativeOcr;
+
+    public ProcessingJob(String id, String fileName) {
+        this.id = id;
+        this.fileName = fileName;
+        this.submittedAt = Instant.now();
+    }
+
+    public void markRunning() {
+        this.startedAt = Instant.now();
+        this.status = JobStatus.RUNNING;
+    }
+
+    public void markCompleted(DrivingLicense result) {
+        this.result = result;
+        this.currentStage = null;
+        this.finishedAt = Instant.now();
+        this.status = JobStatus.COMPLETED;
+    }
+
+    public void markFailed(String error) {
+        this.error = error;
+        this.currentStage = null;
+        this.finishedAt = Instant.now();
+        this.status = JobStatus.FAILED;
+    }
+
+    public synchronized void stageStarted(ProcessingStage stage) {
+        this.currentStage = stage;
+        stages.put(stage, new StageProgress(StageStatus.RUNNING, null));
+    }
+
+    public synchronized void stageCompleted(ProcessingStage stage, long elapsedMillis, boolean success) {
+        stages.put(stage, new StageProgress(success ? StageStatus.COMPLETED : StageStatus.FAILED, elapsedMillis));
+    }
+
+    public void speculativeOcrCompleted(boolean used, long savedMillis) {
+        this.speculativeOcr = new OcrSpeculation(used, savedMillis);
+    }
+
+    @JsonIgnore
+    public boolean isFinished() {
+        return status == JobStatus.COMPLETED || status == JobStatus.FAILED;
+    }
+
+    // Getters
+    public String getId() { return id; }
+    public String getFileName() { return fileName; }
+    public JobStatus getStatus() { return status; }
+    public ProcessingStage getCurrentStage() { return currentStage; }
+    public DrivingLicense getResult() { return result; }
+    public String getError() { return error; }
+    public Instant getSubmittedAt() { return submittedAt; }
+    public Instant getStartedAt() { return startedAt; }
+    public Instant getFinishedAt() { return finishedAt; }
+    public OcrSpeculation getSpeculativeOcr() { return speculativeOcr; }
+
+    public synchronized Map<ProcessingStage, StageProgress> getStages() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(stages));
+    }
+
+    public enum JobStatus {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    public enum StageStatus {
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    public record StageProgress(StageStatus status, Long elapsedMillis) {}
+
+    /** Whether Tesseract started during handwriting detection was used, and the latency it saved */
+    public record OcrSpeculation(boolean used, long savedMillis) {}
+}
@@ -0,0 +1,12 @@
+package com.documentprocessing.model;
+
+public enum ProcessingStage {
+    HANDWRITING_DETECTION,
+    TESSERACT_OCR,
+    TROCR_OCR,
+    DUAL_OCR,
+    PDF_TEXT_EXTRACTION,
+    LANGUAGE_DETECTION,
+    FIELD_EXTRACTION,
+    PERSISTENCE
+}
@@ -0,0 +1,213 @@
+package com.documentprocessing.service;
+
+import com.documentprocessing.exception.AdmissionRejectedException;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits how many synchronous uploads run the pipeline at once, with separate
+ * budgets for heavy work (PDFs, handwriting going to TrOCR) and light work
+ * (printed images). An upload that finds no free slot waits in a short queue
+ * for at most max-wait-ms; when the queue is full or the wait runs out it is
+ * rejected straight away with a Retry-After estimate, before its bytes are
+ * read into memory.
+ */
+@Component
+public class AdmissionControl {
+    private static final Logger log = LoggerFactory.getLogger(AdmissionControl.class);
+
+    /** Weight of the newest run in the per-class latency average */
+    private static final double EWMA_ALPHA = 0.2;
+    private static final long MAX_RETRY_AFTER_SECONDS = 300;
+
+    public enum WorkClass { LIGHT, HEAVY }
+
+    @Value("${app.admission.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.admission.light.max-in-flight:16}")
+    private int lightMaxInFlight;
+
+    @Value("${app.admission.light.max-queue:16}")
+    private int lightMaxQueue;
+
+    @Value("${app.admission.heavy.max-in-flight:4}")
+    private int heavyMaxInFlight;
+
+    @Value("${app.admission.heavy.max-queue:8}")
+    private int heavyMaxQueue;
+
+    @Value("${app.admission.max-wait-ms:2000}")
+    private long maxWaitMs;
+
+    private final PipelineMetrics metrics;
+    private final Map<WorkClass, Budget> budgets = new EnumMap<>(WorkClass.class);
+
+    public AdmissionControl(PipelineMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @PostConstruct
+    void init() {
+        budgets.put(WorkClass.LIGHT, new Budget(lightMaxInFlight, lightMaxQueue));
+        budgets.put(WorkClass.HEAVY, new Budget(heavyMaxInFlight, heavyMaxQueue));
+        log.info("Admission control {}: light {} in flight + {} queued, heavy {} in flight + {} queued",
+                enabled ? "enabled" : "disabled", lightMaxInFlight, lightMaxQueue, heavyMaxInFlight, heavyMaxQueue);
+    }
+
+    /**
+     * Work class known from the upload alone; images start out light and are
+     * upgraded by their permit once handwriting is detected
+     */
+    public static WorkClass classify(String contentType) {
+        return contentType != null && contentType.contains("pdf") ? WorkClass.HEAVY : WorkClass.LIGHT;
+    }
+
+    /**
+     * Take a pipeline slot for the given class or throw
+     * {@link AdmissionRejectedException}. The returned permit must be closed.
+     */
+    public Permit admit(WorkClass workClass) {
+        Permit permit = new Permit();
+        if (enabled) {
+            acquire(workClass);
+            permit.held = workClass;
+        }
+        return permit;
+    }
+
+    private void acquire(WorkClass workClass) {
+        Budget budget = budgets.get(workClass);
+        boolean acquired = tryAcquire(budget.slots, 0);
+        // The queue bound is approximate under races, which only matters by a request or two
+        if (!acquired && budget.slots.getQueueLength() < budget.maxQueue) {
+            acquired = tryAcquire(budget.slots, maxWaitMs);
+        }
+        if (!acquired) {
+            budget.rejected.incrementAndGet();
+            metrics.recordAdmissionRejected(workClass);
+            long retryAfter = retryAfterSeconds(workClass);
+            log.warn("Shedding {} upload: {} in flight, {} queued, retry after {}s", workClass,
+                    budget.maxInFlight - budget.slots.availablePermits(), budget.slots.getQueueLength(), retryAfter);
+            throw new AdmissionRejectedException("Too many " + workClass.name().toLowerCase()
+                    + " documents in progress, please retry later", retryAfter);
+        }
+    }
+
+    /**
+     * Timed tryAcquire even for a zero wait, because the untimed one barges
+     * past uploads already queued on the fair semaphore
+     */
+    private static boolean tryAcquire(Semaphore slots, long waitMs) {
+        try {
+            return slots.tryAcquire(waitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Seconds until the work ahead of a new arrival has likely drained: the
+     * queued and running runs, spread over the class's slots, at the recent
+     * average run time
+     */
+    long retryAfterSeconds(WorkClass workClass) {
+        Budget budget = budgets.get(workClass);
+        double averageMs = budget.averageMillis();
+        int ahead = budget.slots.getQueueLength() + budget.maxInFlight - budget.slots.availablePermits();
+        double drainMs = averageMs * Math.max(1, ahead) / budget.maxInFlight;
+        return Math.max(1, Math.min(MAX_RETRY_AFTER_SECONDS, (long) Math.ceil(drainMs / 1000)));
+    }
+
+    public int getInFlight(WorkClass workClass) {
+        Budget budget = budgets.get(workClass);
+        return budget.maxInFlight - budget.slots.availablePermits();
+    }
+
+    public int getQueued(WorkClass workClass) {
+        return budgets.get(workClass).slots.getQueueLength();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("maxWaitMs", maxWaitMs);
+        budgets.forEach((workClass, budget) -> {
+            Map<String, Object> classStats = new LinkedHashMap<>();
+            classStats.put("maxInFlight", budget.maxInFlight);
+            classStats.put("inFlight", getInFlight(workClass));
+            classStats.put("maxQueue", budget.maxQueue);
+            classStats.put("queued", getQueued(workClass));
+            classStats.put("completed", budget.completed.get());
+            classStats.put("rejected", budget.rejected.get());
+            classStats.put("averageRunMs", Math.round(budget.averageMillis()));
+            classStats.put("retryAfterSeconds", retryAfterSeconds(workClass));
+            stats.put(workClass.name().toLowerCase(), classStats);
+        });
+        return stats;
+    }
+
+    private static final class Budget {
+        private final int maxInFlight;
+        private final int maxQueue;
+        private final Semaphore slots;
+        private final AtomicLong completed = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private volatile double averageMillis = -1;
+
+        private Budget(int maxInFlight, int maxQueue) {
+            this.maxInFlight = maxInFlight;
+            this.maxQueue = maxQueue;
+            this.slots = new Semaphore(maxInFlight, true);
+        }
+
+        private synchronized void recordRun(long millis) {
+            completed.incrementAndGet();
+            averageMillis = averageMillis < 0 ? millis : EWMA_ALPHA * millis + (1 - EWMA_ALPHA) * averageMillis;
+        }
+
+        /** Before the first run completes, assume one second */
+        private double averageMillis() {
+            return averageMillis < 0 ? 1000 : averageMillis;
+        }
+    }
+
+    /**
+     * One admitted upload. Passed to the pipeline as its listener so an image
+     * can move to the heavy budget once it turns out to be handwritten.
+     */
+    public final class Permit implements ProcessingListener, AutoCloseable {
+        private final long start = System.nanoTime();
+        private WorkClass held;
+
+        @Override
+        public void handwritingDetected(boolean handwritten) {
+            if (handwritten && held == WorkClass.LIGHT) {
+                acquire(WorkClass.HEAVY);
+                budgets.get(WorkClass.LIGHT).slots.release();
+                held = WorkClass.HEAVY;
+            }
+        }
+
+        @Override
+        public void close() {
+            if (held != null) {
+                Budget budget = budgets.get(held);
+                budget.slots.release();
+                budget.recordRun((System.nanoTime() - start) / 1_000_000);
+                held = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package com.documentprocessing.service;
+
+import com.documentprocessing.model.DrivingLicense;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Processes many documents in one request. Entries are pulled from the source
+ * one at a time (ZIP archives are read entry by entry as a stream), at most
+ * {@code parallelism} of them are in flight at once, and one NDJSON line is
+ * written per document as soon as it finishes.
+ */
+@Service
+public class BatchProcessingService {
+    private static final Logger log = LoggerFactory.getLogger(BatchProcessingService.class);
+
+    private final DocumentProcessingService documentProcessingService;
+    private final ObjectMapper objectMapper;
+    private final ThreadingMode threadingMode;
+
+    @Value("${app.batch.max-parallelism:0}")
+    private int configuredMaxParallelism;
+
+    @Value("${app.batch.max-entry-size:10485760}")
+    private long maxEntrySize;
+
+    private ExecutorService executor;
+    private int maxParallelism;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public BatchProcessingService(DocumentProcessingService documentProcessingService, ObjectMapper objectMapper,
+                                  ThreadingMode threadingMode) {
+        this.documentProcessingService = documentProcessingService;
+        this.objectMapper = objectMapper;
+        this.threadingMode = threadingMode;
+    }
+
+    @PostConstruct
+    void start() {
+        maxParallelism = configuredMaxParallelism > 0
+                ? configuredMaxParallelism : Runtime.getRuntime().availableProcessors();
+        executor = Executors.newFixedThreadPool(maxParallelism, threadingMode.threadFactory("document-batch-"));
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Resolve the parallelism requested by a client against the configured ceiling
+     */
+    public int resolveParallelism(Integer requested) {
+        if (requested == null || requested <= 0) {
+            return maxParallelism;
+        }
+        return Math.min(requested, maxParallelism);
+    }
+
+    /**
+     * Process uploaded files, expanding any ZIP archives among them
+     */
+    public void processFiles(List<MultipartFile> files, int parallelism, OutputStream out) throws IOException {
+        process(new UploadedFilesSource(files), parallelism, out);
+    }
+
+    /**
+     * Process a ZIP archive read directly from a stream
+     */
+    public void processZip(InputStream zipStream, int parallelism, OutputStream out) throws IOException {
+        try (ZipEntrySource source = new ZipEntrySource(zipStream, "")) {
+            process(source, parallelism, out);
+        }
+    }
+
+    private void process(BatchEntrySource source, int parallelism, OutputStream out) throws IOException {
+        BlockingQueue<Map<String, Object>> completed = new LinkedBlockingQueue<>();
+        int pending = 0;
+        int index = 0;
+
+        try {
+            BatchEntry entry;
+            while ((entry = source.next()) != null) {
+                // Only pull the next entry once a slot is free, so the batch never buffers ahead
+                while (pending >= parallelism) {
+                    writeLine(out, completed.take());
+                    pending--;
+                }
+                pending -= drainCompleted(completed, out);
+
+                int entryIndex = index++;
+                if (entry.error() != null) {
+                    writeLine(out, errorLine(entryIndex, entry.name(), "SKIPPED", entry.error()));
+                    continue;
+                }
+
+                BatchEntry task = entry;
+                inFlight.incrementAndGet();
+                try {
+                    executor.execute(() -> completed.add(processEntry(entryIndex, task)));
+                } catch (RejectedExecutionException e) {
+                    inFlight.decrementAndGet();
+                    writeLine(out, errorLine(entryIndex, entry.name(), "ERROR", "Batch executor is shut down"));
+                    continue;
+                }
+                pending++;
+            }
+
+            while (pending > 0) {
+                writeLine(out, completed.take());
+                pending--;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Batch interrupted", e);
+        }
+
+        log.info("Batch finished: {} entries", index);
+    }
+
+    private int drainCompleted(BlockingQueue<Map<String, Object>> completed, OutputStream out) throws IOException {
+        int drained = 0;
+        Map<String, Object> line;
+        while ((line = completed.poll()) != null) {
+            writeLine(out, line);
+            drained++;
+        }
+        return drained;
+    }
+
+    /**
+     * Always returns a line, even when processing throws an Error, since the
+     * writer waits for one per submitted entry
+     */
+    private Map<String, Object> processEntry(int index, BatchEntry entry) {
+        long start = System.nanoTime();
+        try {
+            DrivingLicense license = documentProcessingService.processDocument(entry.file());
+
+            Map<String, Object> line = new LinkedHashMap<>();
+            line.put("index", index);
+            line.put("fileName", entry.name());
+            line.put("outcome", "OK");
+            line.put("licenseId", license.getId());
+            line.put("licenseNumber", license.getLicenseNumber());
+            line.put("processingStatus", license.getProcessingStatus());
+            line.put("confidenceScore", license.getConfidenceScore());
+            line.put("elapsedMs", (System.nanoTime() - start) / 1_000_000);
+            return line;
+        } catch (Throwable e) {
+            log.warn("Batch entry {} failed: {}", entry.name(), e.toString());
+            Map<String, Object> line = errorLine(index, entry.name(), "ERROR",
+                    e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+            line.put("elapsedMs", (System.nanoTime() - start) / 1_000_000);
+            return line;
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private Map<String, Object> errorLine(int index, String name, String outcome, String error) {
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("index", index);
+        line.put("fileName", name);
+        line.put("outcome", outcome);
+        line.put("error", error);
+        return line;
+    }
+
+    private void writeLine(OutputStream out, Map<String, Object> line) throws IOException {
+        out.write(objectMapper.writeValueAsBytes(line));
+        out.write('\n');
+        out.flush();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public int getMaxParallelism() {
+        return maxParallelism;
+    }
+
+    private static String contentTypeFor(String name) {
+        String lower = name.toLowerCase(Locale.ROOT);
+        if (lower.endsWith(".pdf")) return "application/pdf";
+        if (lower.endsWith(".jpg") || lower.endsWith(".jpeg")) return "image/jpeg";
+        if (lower.endsWith(".png")) return "image/png";
+        if (lower.endsWith(".tif") || lower.endsWith(".tiff")) return "image/tiff";
+        return null;
+    }
+
+    private static boolean isZip(MultipartFile file) {
+        String contentType = file.getContentType();
+        String name = file.getOriginalFilename();
+        return (contentType != null && contentType.contains("zip"))
+                || (name != null && name.toLowerCase(Locale.ROOT).endsWith(".zip"));
+    }
+
+    private record BatchEntry(String name, MultipartFile file, String error) {}
+
+    private interface BatchEntrySource {
+        /** Next entry, or null when the source is exhausted */
+        BatchEntry next() throws IOException;
+    }
+
+    /**
+     * Reads a ZIP archive one entry at a time; only the current entry is held in memory
+     */
+    private class ZipEntrySource implements BatchEntrySource, AutoCloseable {
+        private final ZipInputStream zip;
+        private final String prefix;
+
+        ZipEntrySource(InputStream in, String prefix) {
+            this.zip = new ZipInputStream(in, StandardCharsets.UTF_8);
+            this.prefix = prefix;
+        }
+
+        @Override
+        public BatchEntry next() throws IOException {
+            ZipEntry zipEntry;
+            while ((zipEntry = zip.getNextEntry()) != null) {
+                String name = zipEntry.getName();
+                String baseName = name.substring(name.lastIndexOf('/') + 1);
+                if (zipEntry.isDirectory() || baseName.startsWith(".") || name.startsWith("__MACOSX/")) {
+                    continue;
+                }
+
+                String fullName = prefix + name;
+                String contentType = contentTypeFor(baseName);
+                if (contentType == null) {
+                    return new BatchEntry(fullName, null, "Unsupported file type");
+                }
+
+                byte[] content = readEntry();
+                if (content == null) {
+                    return new BatchEntry(fullName, null, "Entry exceeds " + maxEntrySize + " bytes");
+                }
+                return new BatchEntry(fullName, new InMemoryMultipartFile("file", baseName, contentType, content), null);
+            }
+            return null;
+        }
+
+        private byte[] readEntry() throws IOException {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            byte[] chunk = new byte[8192];
+            long total = 0;
+            int read;
+            while ((read = zip.read(chunk)) != -1) {
+                total += read;
+                if (total > maxEntrySize) {
+                    zip.closeEntry();
+                    return null;
+                }
+                buffer.write(chunk, 0, read);
+            }
+            return buffer.toByteArray();
+        }
+
+        @Override
+        public void close() throws IOException {
+            zip.close();
+        }
+    }
+
+    /**
+     * Walks multipart uploads, descending into any ZIP archive among them
+     */
+    private class UploadedFilesSource implements BatchEntrySource {
+        private final Iterator<MultipartFile> files;
+        private final Deque<ZipEntrySource> archives = new ArrayDeque<>();
+
+        UploadedFilesSource(List<MultipartFile> files) {
+            this.files = files.iterator();
+        }
+
+        @Override
+        public BatchEntry next() throws IOException {
+            while (true) {
+                ZipEntrySource archive = archives.peek();
+                if (archive != null) {
+                    BatchEntry entry = archive.next();
+                    if (entry != null) {
+                        return entry;
+                    }
+                    archives.pop().close();
+                    continue;
+                }
+
+                if (!files.hasNext()) {
+                    return null;
+                }
+
+                MultipartFile file = files.next();
+                String name = file.getOriginalFilename() != null ? file.getOriginalFilename() : file.getName();
+                if (isZip(file)) {
+                    archives.push(new ZipEntrySource(file.getInputStream(), name + "!/"));
+                    continue;
+                }
+
+                String contentType = file.getContentType();
+                if (file.isEmpty() || contentType == null
+                        || (!contentType.contains("pdf") && !contentType.contains("image"))) {
+                    return new BatchEntry(name, null, "Only PDF and image files are supported");
+                }
+                return new BatchEntry(name, file, null);
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.documentprocessing.service;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Turns token ids from TrOCR's RoBERTa (GPT-2 style byte-level BPE)
+ * tokenizer back into text. Each token is a string of characters that each
+ * stand for one byte; the bytes of all tokens are UTF-8.
+ */
+final class ByteLevelBpeDecoder {
+
+    private static final int[] BYTE_OF_CHAR = byteOfChar();
+
+    private final String[] tokens;
+    private final Set<Integer> specialIds;
+
+    /**
+     * @param vocab the tokenizer's vocab.json, token to id
+     */
+    ByteLevelBpeDecoder(Map<String, Integer> vocab, Set<Integer> specialIds) {
+        int size = vocab.values().stream().mapToInt(Integer::intValue).max().orElse(-1) + 1;
+        this.tokens = new String[size];
+        vocab.forEach((token, id) -> tokens[id] = token);
+        this.specialIds = Set.copyOf(specialIds);
+    }
+
+    String decode(long[] ids) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        for (long id : ids) {
+            if (id < 0 || id >= tokens.length || tokens[(int) id] == null || specialIds.contains((int) id)) {
+                continue;
+            }
+            String token = tokens[(int) id];
+            for (int i = 0; i < token.length(); i++) {
+                char c = token.charAt(i);
+                int b = c < BYTE_OF_CHAR.length ? BYTE_OF_CHAR[c] : -1;
+                if (b >= 0) {
+                    bytes.write(b);
+                }
+            }
+        }
+        return bytes.toString(StandardCharsets.UTF_8).trim();
+    }
+
+    /**
+     * Inverse of GPT-2's bytes_to_unicode: printable Latin-1 bytes map to
+     * themselves, the other 68 bytes to code points from 256 upwards
+     */
+    private static int[] byteOfChar() {
+        int[] byteOfChar = new int[256 + 68];
+        Arrays.fill(byteOfChar, -1);
+        int shifted = 0;
+        for (int b = 0; b < 256; b++) {
+            boolean printable = (b >= '!' && b <= '~') || (b >= 0xA1 && b <= 0xAC) || (b >= 0xAE && b <= 0xFF);
+            if (printable) {
+                byteOfChar[b] = b;
+            } else {
+                byteOfChar[256 + shifted++] = b;
+            }
+        }
+        return byteOfChar;
+    }
+}
@@ -0,0 +1,384 @@
+package com.documentprocessing.service;
+
+import ai.djl.Device;
+import ai.djl.inference.Predictor;
+import ai.djl.ndarray.NDArray;
+import ai.djl.ndarray.NDList;
+import ai.djl.ndarray.NDManager;
+import ai.djl.ndarray.index.NDIndex;
+import ai.djl.ndarray.types.DataType;
+import ai.djl.ndarray.types.Shape;
+import ai.djl.repository.zoo.Criteria;
+import ai.djl.repository.zoo.ZooModel;
+import ai.djl.translate.Batchifier;
+import ai.djl.translate.Translator;
+import ai.djl.translate.TranslatorContext;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.FloatBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * TrOCR run inside the JVM through DJL's PyTorch engine, on the CPU. The
+ * model directory holds the TorchScript encoder and decoder written by
+ * python_microservices/export_trocr_torchscript.py, plus the tokenizer
+ * vocabulary and a small config.json.
+ *
+ * Each worker thread owns one encoder/decoder predictor pair, since DJL
+ * predictors must not be shared between threads. A worker takes every image
+ * already waiting (up to max-batch) and decodes them greedily as one batch,
+ * so batching adds no wait when the queue is empty.
+ */
+@Component
+@ConditionalOnProperty(name = "app.trocr.engine", havingValue = "djl")
+public class DjlHandwrittenTextRecognizer implements HandwrittenTextRecognizer {
+    private static final Logger log = LoggerFactory.getLogger(DjlHandwrittenTextRecognizer.class);
+
+    @Value("${app.trocr.djl.model-dir:models/trocr}")
+    private String modelDir;
+
+    @Value("${app.trocr.djl.predictors:2}")
+    private int predictorCount;
+
+    @Value("${app.trocr.djl.max-batch:4}")
+    private int maxBatch;
+
+    @Value("${app.trocr.djl.max-length:64}")
+    private int maxLength;
+
+    @Value("${app.trocr.djl.timeout-ms:60000}")
+    private long timeoutMs;
+
+    private final ImagePreprocessor preprocessor;
+    private final PipelineMetrics metrics;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final BlockingQueue<Pending> waiting = new LinkedBlockingQueue<>();
+
+    private ZooModel<NDList, NDList> encoderModel;
+    private ZooModel<NDList, NDList> decoderModel;
+    private ByteLevelBpeDecoder tokenizer;
+    private ExecutorService workers;
+
+    private int imageSize;
+    private float[] mean;
+    private float[] std;
+    private long decoderStartId;
+    private long eosId;
+    private long padId;
+
+    public DjlHandwrittenTextRecognizer(ImagePreprocessor preprocessor, PipelineMetrics metrics) {
+        this.preprocessor = preprocessor;
+        this.metrics = metrics;
+    }
+
+    @PostConstruct
+    void init() throws Exception {
+        // CPU build of libtorch, with the cores split between the predictors
+        System.setProperty("PYTORCH_FLAVOR", System.getProperty("PYTORCH_FLAVOR", "cpu"));
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / predictorCount);
+        System.setProperty("ai.djl.pytorch.num_threads",
+                System.getProperty("ai.djl.pytorch.num_threads", String.valueOf(threads)));
+        System.setProperty("ai.djl.pytorch.num_interop_threads",
+                System.getProperty("ai.djl.pytorch.num_interop_threads", "1"));
+
+        Path dir = Path.of(modelDir);
+        readConfig(dir);
+        encoderModel = load(dir, "encoder");
+        decoderModel = load(dir, "decoder");
+
+        workers = Executors.newFixedThreadPool(predictorCount, new CustomizableThreadFactory("trocr-djl-"));
+        for (int i = 0; i < predictorCount; i++) {
+            workers.execute(this::decodeLoop);
+        }
+        log.info("Local TrOCR ready from {} with {} predictors, batches of up to {}", dir, predictorCount, maxBatch);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdownNow();
+        Pending pending;
+        while ((pending = waiting.poll()) != null) {
+            pending.result().completeExceptionally(new IllegalStateException("Shutting down"));
+        }
+        encoderModel.close();
+        decoderModel.close();
+    }
+
+    @Override
+    public String getName() {
+        return "djl";
+    }
+
+    @Override
+    public String recognize(byte[] imageBytes) {
+        Pending pending;
+        try {
+            // The encoder takes imageSize squared, so no more than that is decoded
+            BufferedImage image = preprocessor.read(imageBytes, imageSize);
+            if (image == null) {
+                throw new IllegalArgumentException("unsupported image format");
+            }
+            pending = new Pending(pixelValues(image), new CompletableFuture<>());
+        } catch (IOException | IllegalArgumentException e) {
+            throw new RuntimeException("Local TrOCR failed: " + e.getMessage(), e);
+        }
+
+        waiting.add(pending);
+        try {
+            return pending.result().get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            pending.result().cancel(false);
+            throw new RuntimeException("Local TrOCR gave no result within " + timeoutMs + " ms");
+        } catch (InterruptedException e) {
+            pending.result().cancel(false);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for local TrOCR");
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Local TrOCR failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private void decodeLoop() {
+        try (Predictor<NDList, NDList> encoder = encoderModel.newPredictor();
+             Predictor<NDList, NDList> decoder = decoderModel.newPredictor()) {
+            List<Pending> batch = new ArrayList<>(maxBatch);
+            while (!Thread.currentThread().isInterrupted()) {
+                batch.clear();
+                batch.add(waiting.take());
+                waiting.drainTo(batch, maxBatch - 1);
+                // Callers that timed out have gone
+                batch.removeIf(pending -> pending.result().isDone());
+                if (batch.isEmpty()) {
+                    continue;
+                }
+
+                long start = System.nanoTime();
+                try {
+                    List<String> texts = decodeBatch(encoder, decoder, batch);
+                    for (int i = 0; i < batch.size(); i++) {
+                        batch.get(i).result().complete(texts.get(i));
+                    }
+                    metrics.recordLocalTrOcrBatch(batch.size(), System.nanoTime() - start);
+                } catch (Throwable e) {
+                    // Errors from libtorch included: fail this batch, keep the worker for the next
+                    log.error("Local TrOCR batch of {} failed: {}", batch.size(), e.toString());
+                    batch.forEach(pending -> pending.result().completeExceptionally(e));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * One decoder step: the next token of every row, given the rows'
+     * prefixes flattened one after another, each length tokens long
+     */
+    @FunctionalInterface
+    interface DecoderStep {
+        long[] next(long[] prefix, int length) throws Exception;
+    }
+
+    /**
+     * Encode the batch once, then decode it greedily
+     */
+    private List<String> decodeBatch(Predictor<NDList, NDList> encoder, Predictor<NDList, NDList> decoder,
+                                     List<Pending> batch) throws Exception {
+        int size = batch.size();
+        int plane = 3 * imageSize * imageSize;
+        float[] pixels = new float[size * plane];
+        for (int i = 0; i < size; i++) {
+            System.arraycopy(batch.get(i).pixels(), 0, pixels, i * plane, plane);
+        }
+
+        long[][] ids;
+        try (NDManager manager = encoderModel.getNDManager().newSubManager()) {
+            NDArray input = manager.create(FloatBuffer.wrap(pixels), new Shape(size, 3, imageSize, imageSize));
+            NDArray encoderStates = encoder.predict(new NDList(input)).head();
+
+            ids = greedyDecode(size, maxLength, decoderStartId, eosId, padId, (prefix, length) -> {
+                // A step's logits are freed before the next step
+                try (NDManager step = manager.newSubManager()) {
+                    NDArray inputIds = step.create(prefix, new Shape(size, length));
+                    NDArray logits = decoder.predict(new NDList(inputIds, encoderStates)).head();
+                    return logits.get(new NDIndex(":, -1, :")).argMax(-1)
+                            .toType(DataType.INT64, false).toLongArray();
+                }
+            });
+        }
+
+        List<String> texts = new ArrayList<>(size);
+        for (long[] row : ids) {
+            texts.add(tokenizer.decode(row));
+        }
+        return texts;
+    }
+
+    /**
+     * Greedy decoding of a batch. Every row starts with the start token;
+     * rows that have produced the end token are padded until every row is
+     * done or max-length tokens have been generated. Returns each row's ids,
+     * all of the same length.
+     */
+    static long[][] greedyDecode(int size, int maxLength, long startId, long eosId, long padId,
+                                 DecoderStep step) throws Exception {
+        long[][] ids = new long[size][maxLength + 1];
+        boolean[] done = new boolean[size];
+        int length = 1;
+        for (long[] row : ids) {
+            row[0] = startId;
+        }
+
+        int remaining = size;
+        while (remaining > 0 && length <= maxLength) {
+            long[] prefix = new long[size * length];
+            for (int i = 0; i < size; i++) {
+                System.arraycopy(ids[i], 0, prefix, i * length, length);
+            }
+            long[] next = step.next(prefix, length);
+
+            for (int i = 0; i < size; i++) {
+                if (done[i]) {
+                    ids[i][length] = padId;
+                } else {
+                    ids[i][length] = next[i];
+                    if (next[i] == eosId) {
+                        done[i] = true;
+                        remaining--;
+                    }
+                }
+            }
+            length++;
+        }
+
+        long[][] rows = new long[size][];
+        for (int i = 0; i < size; i++) {
+            rows[i] = Arrays.copyOf(ids[i], length);
+        }
+        return rows;
+    }
+
+    /**
+     * What TrOCRProcessor does: bilinear resize to a square, scale to 0..1,
+     * normalise per channel, channels first
+     */
+    private float[] pixelValues(BufferedImage image) {
+        BufferedImage resized = new BufferedImage(imageSize, imageSize, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = resized.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.drawImage(image, 0, 0, imageSize, imageSize, null);
+        g.dispose();
+
+        int area = imageSize * imageSize;
+        float[] values = new float[3 * area];
+        int[] row = new int[imageSize];
+        for (int y = 0; y < imageSize; y++) {
+            resized.getRGB(0, y, imageSize, 1, row, 0, imageSize);
+            for (int x = 0; x < imageSize; x++) {
+                int rgb = row[x];
+                int offset = y * imageSize + x;
+                values[offset] = (((rgb >> 16) & 0xFF) / 255f - mean[0]) / std[0];
+                values[area + offset] = (((rgb >> 8) & 0xFF) / 255f - mean[1]) / std[1];
+                values[2 * area + offset] = ((rgb & 0xFF) / 255f - mean[2]) / std[2];
+            }
+        }
+        return values;
+    }
+
+    private void readConfig(Path dir) throws IOException {
+        JsonNode config = objectMapper.readTree(dir.resolve("config.json").toFile());
+        imageSize = config.path("image_size").asInt(384);
+        mean = floats(config.path("image_mean"), 0.5f);
+        std = floats(config.path("image_std"), 0.5f);
+        decoderStartId = config.path("decoder_start_token_id").asLong(2);
+        eosId = config.path("eos_token_id").asLong(2);
+        padId = config.path("pad_token_id").asLong(1);
+
+        Set<Integer> specialIds = new HashSet<>();
+        config.path("special_ids").forEach(id -> specialIds.add(id.asInt()));
+        specialIds.add((int) decoderStartId);
+        specialIds.add((int) eosId);
+        specialIds.add((int) padId);
+
+        Map<String, Integer> vocab = objectMapper.readValue(dir.resolve("vocab.json").toFile(),
+                new TypeReference<Map<String, Integer>>() {});
+        tokenizer = new ByteLevelBpeDecoder(vocab, specialIds);
+    }
+
+    private static float[] floats(JsonNode values, float fallback) {
+        float[] result = {fallback, fallback, fallback};
+        for (int i = 0; i < 3 && i < values.size(); i++) {
+            result[i] = (float) values.get(i).asDouble(fallback);
+        }
+        return result;
+    }
+
+    private static ZooModel<NDList, NDList> load(Path dir, String name) throws Exception {
+        Criteria<NDList, NDList> criteria = Criteria.builder()
+                .setTypes(NDList.class, NDList.class)
+                .optModelPath(dir)
+                .optModelName(name)
+                .optEngine("PyTorch")
+                .optDevice(Device.cpu())
+                .optTranslator(new CallerManagedTranslator())
+                .build();
+        return criteria.loadModel();
+    }
+
+    private record Pending(float[] pixels, CompletableFuture<String> result) {}
+
+    /**
+     * Passes tensors through unchanged and hands the outputs to the manager
+     * of the first input, so they outlive the predictor's per-call context
+     * and are freed with the caller's manager
+     */
+    private static final class CallerManagedTranslator implements Translator<NDList, NDList> {
+
+        private static final String CALLER_MANAGER = "callerManager";
+
+        @Override
+        public NDList processInput(TranslatorContext ctx, NDList input) {
+            ctx.setAttachment(CALLER_MANAGER, input.head().getManager());
+            return input;
+        }
+
+        @Override
+        public NDList processOutput(TranslatorContext ctx, NDList output) {
+            output.attach((NDManager) ctx.getAttachment(CALLER_MANAGER));
+            return output;
+        }
+
+        @Override
+        public Batchifier getBatchifier() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.documentprocessing.service;
+
+import com.documentprocessing.model.DrivingLicense;
+import com.documentprocessing.model.ProcessingJob;
+import com.documentprocessing.model.ProcessingStage;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs document processing off the request thread. Uploads are queued on a
+ * bounded queue and picked up by a fixed pool of workers; callers poll the
+ * job for progress and the resulting license.
+ */
+@Service
+public class DocumentJobService {
+    private static final Logger log = LoggerFactory.getLogger(DocumentJobService.class);
+
+    private final DocumentProcessingService documentProcessingService;
+    private final ThreadingMode threadingMode;
+    private final Map<String, ProcessingJob> jobs = new ConcurrentHashMap<>();
+
+    @Value("${app.jobs.workers:0}")
+    private int configuredWorkers;
+
+    @Value("${app.jobs.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${app.jobs.retention-minutes:60}")
+    private long retentionMinutes;
+
+    private ThreadPoolExecutor executor;
+
+    public DocumentJobService(DocumentProcessingService documentProcessingService, ThreadingMode threadingMode) {
+        this.documentProcessingService = documentProcessingService;
+        this.threadingMode = threadingMode;
+    }
+
+    @PostConstruct
+    void start() {
+        int workers = configuredWorkers > 0 ? configuredWorkers : Runtime.getRuntime().availableProcessors();
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                threadingMode.threadFactory("document-job-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        log.info("Document job workers started: {} workers, queue capacity {}", workers, queueCapacity);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Queue a document for processing. Throws RejectedExecutionException when
+     * the queue is full.
+     */
+    public ProcessingJob submit(MultipartFile file) throws IOException {
+        MultipartFile upload = InMemoryMultipartFile.copyOf(file);
+        ProcessingJob job = new ProcessingJob(UUID.randomUUID().toString(), file.getOriginalFilename());
+
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(() -> runJob(job, upload));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            throw e;
+        }
+
+        log.info("Queued job {} for {}", job.getId(), job.getFileName());
+        return job;
+    }
+
+    public Optional<ProcessingJob> getJob(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    private void runJob(ProcessingJob job, MultipartFile upload) {
+        job.markRunning();
+        try {
+            DrivingLicense result = documentProcessingService.processDocument(upload, new ProcessingListener() {
+                @Override
+                public void stageStarted(ProcessingStage stage) {
+                    job.stageStarted(stage);
+                }
+
+                @Override
+                public void stageCompleted(ProcessingStage stage, long elapsedMillis, boolean success) {
+                    job.stageCompleted(stage, elapsedMillis, success);
+                }
+
+                @Override
+                public void speculativeOcrCompleted(boolean used, long savedMillis) {
+                    job.speculativeOcrCompleted(used, savedMillis);
+                }
+            });
+            job.markCompleted(result);
+            log.info("Job {} completed with status {}", job.getId(), result.getProcessingStatus());
+        } catch (Exception e) {
+            log.error("Job {} failed: {}", job.getId(), e.getMessage(), e);
+            job.markFailed(e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.jobs.cleanup-interval-ms:60000}")
+    void evictFinishedJobs() {
+        Instant cutoff = Instant.now().minus(Duration.ofMinutes(retentionMinutes));
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt().isBefore(cutoff));
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public int getActiveWorkers() {
+        return executor.getActiveCount();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("workers", executor.getMaximumPoolSize());
+        stats.put("activeWorkers", getActiveWorkers());
+        stats.put("queueDepth", getQueueDepth());
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("trackedJobs", jobs.size());
+        stats.put("completedJobs", executor.getCompletedTaskCount());
+        return stats;
+    }
+}
@@ -1,40 +1,42 @@
 package com.documentprocessing.service;
 
+import com.documentprocessing.exception.AdmissionRejectedException;
 import com.documentprocessing.model.DrivingLicense;
+import com.documentprocessing.model.ProcessingStage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import net.sourceforge.tess4j.Tesseract;
 import net.sourceforge.tess4j.TesseractException;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.text.PDFTextStripper;
-import org.apache.hc.client5.http.classic.methods.HttpPost;
-import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
-import org.apache.hc.client5.http.impl.classic.HttpClients;
-import org.apache.hc.core5.http.ContentType;
-import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.ParseException;
 import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
 import org.apache.hc.core5.http.io.entity.EntityUtils;
 import org.apache.hc.core5.http.io.entity.InputStreamEntity;
 import org.apache.hc.core5.http.io.entity.StringEntity;
-import org.json.JSONObject;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
-import org.apache.hc.client5.http.entity.mime.MultipartEntityBuilder;
 import com.github.pemistahl.lingua.api.Language;
 import com.github.pemistahl.lingua.api.LanguageDetector;
 import com.github.pemistahl.lingua.api.LanguageDetectorBuilder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 
-import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -46,76 +48,230 @@ public class DocumentProcessingService {
     private DrivingLicenseService drivingLicenseService;
 
     @Autowired
-    private OllamaAIDocumentProcessingService ollamaAIDocumentProcessingService;
+    private TieredExtractionRouter extractionRouter;
+
+    @Autowired
+    private TesseractPool tesseractPool;
+
+    @Autowired
+    private ImagePreprocessor imagePreprocessor;
+
+    @Autowired
+    private DocumentResultCache resultCache;
+
+    @Autowired
+    private PipelineMetrics metrics;
+
+    @Autowired
+    private ExternalServiceGuard guard;
+
+    @Autowired
+    private ThreadingMode threadingMode;
+
+    @Autowired
+    private LicenseFieldRuleEngine ruleEngine;
+
+    @Autowired
+    private List<HandwritingClassifier> handwritingClassifiers;
+
+    @Value("${app.handwriting.classifier:remote}")
+    private String handwritingClassifierName;
+
+    @Autowired
+    private List<HandwrittenTextRecognizer> handwrittenTextRecognizers;
+
+    @Value("${app.trocr.engine:remote}")
+    private String handwrittenTextRecognizerName;
+
+    @Value("${app.ocr.speculative.enabled:true}")
+    private boolean speculativeOcrEnabled;
+
+    @Value("${app.ocr.hedge.enabled:true}")
+    private boolean hedgeEnabled;
+
+    @Value("${app.ocr.hedge.threshold:0.5}")
+    private double hedgeThreshold;
+
+    @Value("${app.ocr.hedge.band:0.1}")
+    private double hedgeBand;
+
+    @Value("${app.ocr.hedge.deadline-ms:5000}")
+    private long hedgeDeadlineMs;
 
-    private final Tesseract tesseract;
     private static final double MIN_CONFIDENCE = 0.5;
     private final LanguageDetector languageDetector;
+    private final SingleFlight<DrivingLicense> inFlightDocuments = new SingleFlight<>();
+    private ExecutorService speculativeOcrExecutor;
+    private HandwritingClassifier handwritingClassifier;
+    private HandwrittenTextRecognizer handwrittenTextRecognizer;
 
     public DocumentProcessingService() {
-        this.tesseract = new Tesseract();
-        
-        // Setup Tesseract paths for macOS
-        System.setProperty("jna.library.path", "/opt/homebrew/opt/tesseract/lib");
-        System.setProperty("TESSDATA_PREFIX", "/opt/homebrew/Cellar/tesseract/5.5.1/share/tessdata");
-        
-        tesseract.setLanguage("eng");
-        tesseract.setDatapath("/opt/homebrew/Cellar/tesseract/5.5.1/share/tessdata");
-        
-        log.info("Tesseract OCR engine ready");
         this.languageDetector = LanguageDetectorBuilder.fromAllLanguages().build();
     }
 
+    @PostConstruct
+    void init() {
+        handwritingClassifier = handwritingClassifiers.stream()
+                .filter(classifier -> classifier.getName().equals(handwritingClassifierName))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException(
+                        "Unknown app.handwriting.classifier: " + handwritingClassifierName));
+        handwrittenTextRecognizer = handwrittenTextRecognizers.stream()
+                .filter(recognizer -> recognizer.getName().equals(handwrittenTextRecognizerName))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException(
+                        "Unknown or disabled app.trocr.engine: " + handwrittenTextRecognizerName));
+        log.info("Handwriting classifier: {}, handwritten OCR: {}",
+                handwritingClassifierName, handwrittenTextRecognizerName);
+
+        // Unbounded, but each thread is one admitted image and mostly waits for an engine
+        speculativeOcrExecutor = Executors.newCachedThreadPool(threadingMode.threadFactory("ocr-speculative-"));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        speculativeOcrExecutor.shutdownNow();
+    }
+
     public DrivingLicense processDocument(MultipartFile uploadedFile) throws Exception {
+        return processDocument(uploadedFile, ProcessingListener.NONE);
+    }
+
+    public DrivingLicense processDocument(MultipartFile uploadedFile, ProcessingListener listener) throws Exception {
         String fileType = figureOutFileType(uploadedFile);
         log.info("Processing {} file: {}", fileType, uploadedFile.getOriginalFilename());
-        
+
+        byte[] fileBytes = uploadedFile.getBytes();
+        String documentHash = DocumentResultCache.hash(fileBytes);
+
+        DrivingLicense cached = resolveFromCache(documentHash);
+        if (cached != null) {
+            return cached;
+        }
+
+        // Identical uploads arriving while this one is still running share its result
+        return inFlightDocuments.execute(documentHash, () -> {
+            // An identical upload may have finished between the lookup above and becoming leader
+            DrivingLicense justCached = resolveFromCache(documentHash);
+            return justCached != null
+                    ? justCached
+                    : runPipeline(uploadedFile, fileBytes, fileType, documentHash, listener);
+        });
+    }
+
+    private DrivingLicense runPipeline(MultipartFile uploadedFile, byte[] fileBytes, String fileType,
+                                       String documentHash, ProcessingListener listener) throws Exception {
+        long start = System.nanoTime();
+        DrivingLicense result = null;
+        boolean shed = false;
+        try {
+            result = runStages(uploadedFile, fileBytes, fileType, documentHash, listener);
+            return result;
+        } catch (AdmissionRejectedException e) {
+            // Counted by admission control, not as a processing outcome
+            shed = true;
+            throw e;
+        } finally {
+            if (!shed) {
+                metrics.recordDocument(fileType,
+                        PipelineMetrics.handwritingTag(fileType, result != null ? result.getHandwritten() : null),
+                        result != null ? result.getProcessingStatus() : null, System.nanoTime() - start);
+            }
+        }
+    }
+
+    private DrivingLicense runStages(MultipartFile uploadedFile, byte[] fileBytes, String fileType,
+                                     String documentHash, ProcessingListener listener) throws Exception {
         String rawText = null;
+        String handwriting = PipelineMetrics.handwritingTag(fileType, null);
         boolean hasHandwriting = false;
         
         try {
-            byte[] fileBytes = uploadedFile.getBytes();
-            
             if ("IMAGE".equals(fileType)) {
-                // Figure out if it's handwritten or printed
-                String handwritingResult = checkForHandwriting(fileBytes);
-                log.info("Handwriting check result: {}", handwritingResult);
-                
-                hasHandwriting = "handwritten".equals(handwritingResult);
-                
-                if (hasHandwriting) {
-                    log.info("Looks like handwriting - using TrOCR");
-                    rawText = extractHandwrittenText(fileBytes);
-                } else {
-                    log.info("Looks like printed text - using Tesseract");
-                    rawText = extractPrintedText(uploadedFile);
+                // Tesseract runs while the detector decides; most uploads are printed
+                SpeculativeOcr speculative = speculativeOcrEnabled
+                        ? SpeculativeOcr.start(speculativeOcrExecutor, () -> extractPrintedText(fileBytes))
+                        : null;
+                try {
+                    // Figure out if it's handwritten or printed
+                    HandwritingDetection detection = runStage(listener, ProcessingStage.HANDWRITING_DETECTION,
+                            fileType, handwriting, () -> handwritingClassifier.classify(fileBytes));
+                    long detectionDone = System.nanoTime();
+                    log.info("Handwriting check result: {} (confidence {})",
+                            detection.label(), detection.confidence());
+
+                    boolean hedge = shouldHedge(detection);
+                    hasHandwriting = detection.handwritten();
+                    handwriting = PipelineMetrics.handwritingTag(fileType, hasHandwriting);
+                    // A hedged run calls TrOCR as well, so it is admitted as handwritten work
+                    listener.handwritingDetected(hasHandwriting || hedge);
+
+                    if (hedge) {
+                        log.info("Handwriting check is ambiguous - running Tesseract and TrOCR");
+                        HedgedOcr.Result hedged = runStage(listener, ProcessingStage.DUAL_OCR, fileType,
+                                PipelineMetrics.HANDWRITING_UNKNOWN, () -> runHedgedOcr(fileBytes, speculative));
+                        hasHandwriting = hedged.engine() == HedgedOcr.Engine.TROCR;
+                        handwriting = PipelineMetrics.handwritingTag(fileType, hasHandwriting);
+                        rawText = hedged.text();
+                    } else if (hasHandwriting) {
+                        log.info("Looks like handwriting - using TrOCR");
+                        rawText = extractHandwrittenTextOrFallBack(fileBytes, fileType, handwriting, listener,
+                                speculative);
+                    } else if (speculative != null) {
+                        log.info("Looks like printed text - using the speculative Tesseract result");
+                        rawText = runStage(listener, ProcessingStage.TESSERACT_OCR, fileType, handwriting,
+                                speculative::await);
+                        long savedNanos = speculative.savedNanos(detectionDone);
+                        log.info("Speculative OCR saved {} ms", savedNanos / 1_000_000);
+                        metrics.recordSpeculativeOcr(true, savedNanos);
+                        listener.speculativeOcrCompleted(true, savedNanos / 1_000_000);
+                    } else {
+                        log.info("Looks like printed text - using Tesseract");
+                        rawText = runStage(listener, ProcessingStage.TESSERACT_OCR, fileType, handwriting,
+                                () -> extractPrintedText(fileBytes));
+                    }
+                } finally {
+                    // No-op once the result has been used
+                    if (speculative != null) {
+                        speculative.cancel();
+                    }
                 }
             } else if ("PDF".equals(fileType)) {
                 log.info("PDF detected - extracting text");
-                rawText = extractPdfText(uploadedFile);
+                rawText = runStage(listener, ProcessingStage.PDF_TEXT_EXTRACTION, fileType, handwriting,
+                        () -> extractPdfText(uploadedFile));
             } else {
                 log.warn("Can't handle this file type: {}", fileType);
                 throw new UnsupportedOperationException("Unsupported file type: " + fileType);
             }
+        } catch (AdmissionRejectedException e) {
+            // Shed, not failed: nothing is recorded and the caller gets a 429
+            throw e;
         } catch (Exception e) {
             log.error("Failed to extract text: {}", e.getMessage());
-            return createFailedRecord(fileType, "Text extraction failed: " + e.getMessage());
+            String reason = "Text extraction failed: " + e.getMessage();
+            return runStage(listener, ProcessingStage.PERSISTENCE, fileType, handwriting,
+                    () -> createFailedRecord(fileType, reason));
         }
         
         if (rawText == null || rawText.trim().isEmpty()) {
             log.warn("No text found in document");
-            return createFailedRecord(fileType, "No text extracted from document");
+            return runStage(listener, ProcessingStage.PERSISTENCE, fileType, handwriting,
+                    () -> createFailedRecord(fileType, "No text extracted from document"));
         }
 
         // Language detection step
-        Language detectedLanguage = detectLanguage(rawText);
+        String text = rawText;
+        Language detectedLanguage = runStage(listener, ProcessingStage.LANGUAGE_DETECTION, fileType, handwriting,
+                () -> detectLanguage(text));
         String langName = detectedLanguage != null ? detectedLanguage.getIsoCode639_1().name() : "unknown";
         log.info("Detected language: {} (ISO 639-1: {})", detectedLanguage, langName);
 
         log.info("Extracted {} characters of text", rawText.length());
 
         // Try to extract license data using AI
-        Map<String, Object> extractedData = extractLicenseData(rawText);
+        Map<String, Object> extractedData = runStage(listener, ProcessingStage.FIELD_EXTRACTION, fileType, handwriting,
+                () -> extractLicenseData(text));
 
         // Build the license record
         DrivingLicense license = buildLicenseRecord(extractedData, fileType, hasHandwriting);
@@ -123,19 +279,143 @@ public class DocumentProcessingService {
         log.info("Processing complete - Status: {}, Confidence: {}", 
                 license.getProcessingStatus(), license.getConfidenceScore());
 
-        return drivingLicenseService.saveDrivingLicense(license);
+        DrivingLicense saved = runStage(listener, ProcessingStage.PERSISTENCE, fileType, handwriting,
+                () -> drivingLicenseService.saveDrivingLicense(license));
+        // Don't pin a transient extraction failure in the cache
+        if (!extractedData.containsKey("error")) {
+            resultCache.put(documentHash, extractedData, saved.getId(), fileType, hasHandwriting);
+        }
+        return saved;
     }
 
-    private Map<String, Object> extractLicenseData(String text) {
-        // Use only Ollama (local AI)
-        Map<String, Object> ollamaResult = new HashMap<>();
+    /**
+     * Answer a repeat upload from the result cache. Returns the stored record
+     * if it still holds this document's fields. Saves are upserts by license
+     * number, so another document with the same number may have overwritten
+     * it since; then, or if it was deleted, the record is rebuilt from the
+     * cached fields.
+     */
+    private DrivingLicense resolveFromCache(String documentHash) {
+        DocumentResultCache.CachedResult cached = resultCache.get(documentHash);
+        if (cached == null) {
+            return null;
+        }
+
+        DrivingLicense license = buildLicenseRecord(cached.extractedData(), cached.fileType(), cached.handwritten());
+        Optional<DrivingLicense> existing = drivingLicenseService.findById(cached.licenseId());
+        if (existing.isPresent() && sameDocument(existing.get(), license)) {
+            log.info("Result cache hit for document {} - returning license {}", documentHash, cached.licenseId());
+            return existing.get();
+        }
+
+        log.info("Result cache hit for document {} - license {} {}, rebuilding it", documentHash,
+                cached.licenseId(), existing.isPresent() ? "now holds another document" : "was deleted");
+        DrivingLicense saved = drivingLicenseService.saveDrivingLicense(license);
+        resultCache.put(documentHash, cached.extractedData(), saved.getId(), cached.fileType(), cached.handwritten());
+        return saved;
+    }
+
+    /**
+     * Whether a stored record still carries the identifying fields of the
+     * record built from a cached extraction
+     */
+    static boolean sameDocument(DrivingLicense stored, DrivingLicense expected) {
+        return Objects.equals(stored.getLicenseNumber(), expected.getLicenseNumber())
+                && Objects.equals(stored.getFirstName(), expected.getFirstName())
+                && Objects.equals(stored.getLastName(), expected.getLastName())
+                && Objects.equals(stored.getDateOfBirth(), expected.getDateOfBirth());
+    }
+
+    /**
+     * TrOCR, or Tesseract when TrOCR is unavailable (breaker open, no free
+     * slot, timed out or failing). Tesseract reads handwriting poorly, but a
+     * record for manual review beats a failed document. A speculative
+     * Tesseract run is kept as the fallback while the breaker is open and
+     * cancelled otherwise.
+     */
+    private String extractHandwrittenTextOrFallBack(byte[] fileBytes, String fileType, String handwriting,
+                                                    ProcessingListener listener,
+                                                    SpeculativeOcr speculative) throws Exception {
+        if (guard.isAvailable(ExternalService.TROCR)) {
+            if (speculative != null) {
+                speculative.cancel();
+                metrics.recordSpeculativeOcr(false, 0);
+                listener.speculativeOcrCompleted(false, 0);
+            }
+            try {
+                return runStage(listener, ProcessingStage.TROCR_OCR, fileType, handwriting,
+                        () -> handwrittenTextRecognizer.recognize(fileBytes));
+            } catch (RuntimeException e) {
+                log.warn("TrOCR unavailable, falling back to Tesseract: {}", e.getMessage());
+            }
+        } else {
+            log.warn("TrOCR circuit open, falling back to Tesseract");
+            if (speculative != null) {
+                metrics.recordFallback(ExternalService.TROCR);
+                String text = runStage(listener, ProcessingStage.TESSERACT_OCR, fileType, handwriting,
+                        speculative::await);
+                metrics.recordSpeculativeOcr(true, 0);
+                listener.speculativeOcrCompleted(true, 0);
+                return text;
+            }
+        }
+        metrics.recordFallback(ExternalService.TROCR);
+        return runStage(listener, ProcessingStage.TESSERACT_OCR, fileType, handwriting,
+                () -> extractPrintedText(fileBytes));
+    }
+
+    /**
+     * Run both engines only when the detector is unsure and TrOCR can take
+     * the call; otherwise the detector's answer stands
+     */
+    private boolean shouldHedge(HandwritingDetection detection) {
+        return hedgeEnabled
+                && detection.isAmbiguous(hedgeThreshold, hedgeBand)
+                && guard.isAvailable(ExternalService.TROCR);
+    }
+
+    /**
+     * Tesseract (the speculative run, if there is one) against TrOCR, judged
+     * by how many license fields the rule engine finds in each text
+     */
+    private HedgedOcr.Result runHedgedOcr(byte[] fileBytes, SpeculativeOcr speculative) throws Exception {
+        HedgedOcr.Result result = HedgedOcr.race(speculativeOcrExecutor,
+                speculative != null ? speculative::await : () -> extractPrintedText(fileBytes),
+                () -> handwrittenTextRecognizer.recognize(fileBytes),
+                hedgeDeadlineMs,
+                text -> FieldCoverage.score(ruleEngine.extract(text)));
+        log.info("Dual OCR picked {} ({})", result.engine(), result.reason());
+        metrics.recordHedgedOcr(result.engine(), result.reason());
+        return result;
+    }
+
+    private <T> T runStage(ProcessingListener listener, ProcessingStage stage, String fileType, String handwriting,
+                           StageWork<T> work) throws Exception {
+        listener.stageStarted(stage);
+        long start = System.nanoTime();
+        boolean success = false;
         try {
-            ollamaResult = ollamaAIDocumentProcessingService.extractDataWithOllama(text);
-            log.info("Ollama extracted data with confidence: {}", ollamaResult.get("aiConfidence"));
-        } catch (Exception e) {
-            log.warn("Ollama failed: {}", e.getMessage());
+            T result = work.run();
+            success = true;
+            return result;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            listener.stageCompleted(stage, elapsed / 1_000_000, success);
+            metrics.recordStage(stage, fileType, handwriting, success, elapsed);
         }
-        return ollamaResult;
+    }
+
+    @FunctionalInterface
+    private interface StageWork<T> {
+        T run() throws Exception;
+    }
+
+    private Map<String, Object> extractLicenseData(String text) {
+        // Rules first; Ollama only for the fields they could not find
+        Map<String, Object> extractedData = extractionRouter.extract(text);
+        log.info("Extraction answered by tier {} with confidence: {}",
+                extractedData.get("extractionTier"), extractedData.get("aiConfidence"));
+        return extractedData;
     }
 
     private DrivingLicense buildLicenseRecord(Map<String, Object> data, String fileType, boolean hasHandwriting) {
@@ -145,6 +425,9 @@ public class DocumentProcessingService {
         // Set AI metadata
         license.setAiProcessed(data.containsKey("aiProcessed") ? (Boolean) data.get("aiProcessed") : false);
         license.setAiConfidence(data.containsKey("aiConfidence") ? (Double) data.get("aiConfidence") : 0.0);
+        if (data.get("extractionTier") != null) {
+            license.setExtractionTier(DrivingLicense.ExtractionTier.valueOf(data.get("extractionTier").toString()));
+        }
 
         // Calculate overall confidence
         double confidence = calculateConfidence(data);
@@ -164,15 +447,7 @@ public class DocumentProcessingService {
     }
 
     private boolean missingImportantFields(Map<String, Object> data) {
-        String[] importantFields = {"licenseNumber", "firstName", "lastName"};
-        
-        for (String field : importantFields) {
-            if (!data.containsKey(field) || data.get(field) == null || 
-                data.get(field).toString().trim().isEmpty()) {
-                return true;
-            }
-        }
-        return false;
+        return FieldCoverage.missingImportantFields(data);
     }
 
     private DrivingLicense createFailedRecord(String fileType, String reason) {
@@ -208,54 +483,33 @@ public class DocumentProcessingService {
         }
     }
 
-    private String extractPrintedText(MultipartFile file) throws IOException, TesseractException {
-        BufferedImage image = ImageIO.read(file.getInputStream());
-        return tesseract.doOCR(image);
-    }
-
-    private String checkForHandwriting(byte[] imageBytes) {
-        try (CloseableHttpClient client = HttpClients.createDefault()) {
-            HttpPost post = new HttpPost("http://localhost:8002/detect");
-            
-            MultipartEntityBuilder builder = MultipartEntityBuilder.create();
-            builder.addBinaryBody("file", imageBytes, ContentType.IMAGE_JPEG, "image.jpg");
-            HttpEntity entity = builder.build();
-            post.setEntity(entity);
-
-            String response = client.execute(post, response1 -> {
-                return EntityUtils.toString(response1.getEntity());
-            });
-
-            JSONObject json = new JSONObject(response);
-            return json.getString("result");
-        } catch (Exception e) {
-            log.error("Handwriting detection failed: {}", e.getMessage());
-            return "printed"; // Default to printed if detection fails
+    private String extractPrintedText(byte[] imageBytes) throws IOException, TesseractException {
+        ImagePreprocessor.Decoded decoded = imagePreprocessor.decode(imageBytes);
+        if (decoded == null) {
+            throw new IOException("Unsupported image format");
         }
+        BufferedImage image = decoded.image();
+        if (imagePreprocessor.isEnabled()) {
+            long start = System.nanoTime();
+            image = imagePreprocessor.preprocess(decoded);
+            metrics.recordPreprocessing(System.nanoTime() - start);
+        }
+        return tesseractPool.doOCR(image);
     }
 
-    private String extractHandwrittenText(byte[] imageBytes) {
-        try (CloseableHttpClient client = HttpClients.createDefault()) {
-            HttpPost post = new HttpPost("http://localhost:8001/ocr");
-            
-            MultipartEntityBuilder builder = MultipartEntityBuilder.create();
-            builder.addBinaryBody("file", imageBytes, ContentType.IMAGE_JPEG, "image.jpg");
-            HttpEntity entity = builder.build();
-            post.setEntity(entity);
-
-            String response = client.execute(post, response1 -> {
-                return EntityUtils.toString(response1.getEntity());
-            });
-
-            JSONObject json = new JSONObject(response);
-            return json.getString("text");
-        } catch (Exception e) {
-            log.error("TrOCR failed: {}", e.getMessage());
-            throw new RuntimeException("TrOCR microservice failed: " + e.getMessage());
+    /**
+     * Response body of a 200, otherwise an IOException so the failure counts
+     * against the service's circuit breaker
+     */
+    static String successBody(ClassicHttpResponse response) throws IOException, ParseException {
+        String body = EntityUtils.toString(response.getEntity());
+        if (response.getCode() != 200) {
+            throw new IOException("HTTP " + response.getCode() + ": " + body);
         }
+        return body;
     }
 
-    private DrivingLicense createLicenseFromData(Map<String, Object> data, String documentType) {
+    static DrivingLicense createLicenseFromData(Map<String, Object> data, String documentType) {
         DrivingLicense.DrivingLicenseBuilder builder = DrivingLicense.builder()
                 .licenseNumber((String) data.getOrDefault("licenseNumber", ""))
                 .firstName((String) data.getOrDefault("firstName", ""))
@@ -282,7 +536,7 @@ public class DocumentProcessingService {
         return builder.build();
     }
 
-    private LocalDate parseDateFlexible(Object value) {
+    static LocalDate parseDateFlexible(Object value) {
         if (value == null) return null;
         if (value instanceof LocalDate) return (LocalDate) value;
         if (value instanceof String) {
@@ -301,25 +555,24 @@ public class DocumentProcessingService {
         return null;
     }
 
-    private double calculateConfidence(Map<String, Object> data) {
-        int totalFields = 10; // Key fields we expect
-        int foundFields = 0;
-        
-        String[] keyFields = {"licenseNumber", "firstName", "lastName", "dateOfBirth", 
-                             "address", "city", "state", "zipCode", "issueDate", "expiryDate"};
-        
-        for (String field : keyFields) {
-            if (data.containsKey(field) && data.get(field) != null && 
-                !data.get(field).toString().trim().isEmpty()) {
-                foundFields++;
-            }
-        }
-        
-        return (double) foundFields / totalFields;
+    static double calculateConfidence(Map<String, Object> data) {
+        return FieldCoverage.score(data);
+    }
+
+    public int getInFlightDocumentCount() {
+        return inFlightDocuments.getInFlight();
+    }
+
+    public Map<String, Object> getInFlightStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("inFlight", inFlightDocuments.getInFlight());
+        stats.put("pipelineExecutions", inFlightDocuments.getExecutions());
+        stats.put("coalescedRequests", inFlightDocuments.getCoalesced());
+        return stats;
     }
 
-    public String testHandwritingDetection(byte[] imageBytes) {
-        return checkForHandwriting(imageBytes);
+    public HandwritingDetection testHandwritingDetection(byte[] imageBytes) {
+        return handwritingClassifier.classify(imageBytes);
     }
 
     private Language detectLanguage(String text) {
@@ -0,0 +1,124 @@
+package com.documentprocessing.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Content-addressed cache of extraction results. Keyed by the SHA-256 of the
+ * uploaded bytes so a re-upload of the same scan skips OCR and the LLM.
+ * Entries are evicted least-recently-used once the cache is full and expire
+ * after the configured TTL.
+ */
+@Component
+public class DocumentResultCache {
+
+    private final boolean enabled;
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final Map<String, CachedResult> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+
+    public DocumentResultCache(@Value("${app.cache.enabled:true}") boolean enabled,
+                               @Value("${app.cache.max-entries:10000}") int maxEntries,
+                               @Value("${app.cache.ttl-minutes:1440}") long ttlMinutes) {
+        this.enabled = enabled;
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMinutes * 60_000;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResult> eldest) {
+                if (size() > DocumentResultCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Hex-encoded SHA-256 of the document bytes
+     */
+    public static String hash(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public synchronized CachedResult get(String documentHash) {
+        if (!enabled) {
+            return null;
+        }
+
+        CachedResult result = entries.get(documentHash);
+        if (result == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        if (System.currentTimeMillis() - result.createdAtMillis() > ttlMillis) {
+            entries.remove(documentHash);
+            expirations.incrementAndGet();
+            misses.incrementAndGet();
+            return null;
+        }
+
+        hits.incrementAndGet();
+        return result;
+    }
+
+    public synchronized void put(String documentHash, Map<String, Object> extractedData, Long licenseId,
+                                 String fileType, boolean handwritten) {
+        if (!enabled) {
+            return;
+        }
+        Map<String, Object> data = Collections.unmodifiableMap(new HashMap<>(extractedData));
+        entries.put(documentHash, new CachedResult(data, licenseId, fileType, handwritten, System.currentTimeMillis()));
+    }
+
+    public synchronized void invalidate(String documentHash) {
+        entries.remove(documentHash);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.get();
+        long lookups = hitCount + misses.get();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("size", size());
+        stats.put("maxEntries", maxEntries);
+        stats.put("ttlMinutes", ttlMillis / 60_000);
+        stats.put("hits", hitCount);
+        stats.put("misses", misses.get());
+        stats.put("hitRate", lookups > 0 ? (double) hitCount / lookups : 0.0);
+        stats.put("evictions", evictions.get());
+        stats.put("expirations", expirations.get());
+        return stats;
+    }
+
+    public record CachedResult(Map<String, Object> extractedData, Long licenseId, String fileType,
+                               boolean handwritten, long createdAtMillis) {}
+}
@@ -8,19 +8,40 @@ import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Service
 public class DrivingLicenseService {
     private static final Logger log = LoggerFactory.getLogger(DrivingLicenseService.class);
 
+    private static final int LOCK_STRIPES = 64;
+
     private final DrivingLicenseRepository drivingLicenseRepository;
+    private final Lock[] licenseNumberLocks = new Lock[LOCK_STRIPES];
 
     public DrivingLicenseService(DrivingLicenseRepository drivingLicenseRepository) {
         this.drivingLicenseRepository = drivingLicenseRepository;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            licenseNumberLocks[i] = new ReentrantLock();
+        }
     }
 
     public DrivingLicense saveDrivingLicense(DrivingLicense license) {
+        // Serialize the find-then-save upsert per license number so concurrent
+        // saves of the same license don't both try to insert it
+        Lock lock = licenseNumberLocks[Math.floorMod(Objects.hashCode(license.getLicenseNumber()), LOCK_STRIPES)];
+        lock.lock();
+        try {
+            return upsert(license);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private DrivingLicense upsert(DrivingLicense license) {
         // Check if we already have this license number
         Optional<DrivingLicense> existing = drivingLicenseRepository.findByLicenseNumber(license.getLicenseNumber());
         
@@ -49,6 +70,7 @@ public class DrivingLicenseService {
                     .aiProcessed(license.getAiProcessed())
                     .aiConfidence(license.getAiConfidence())
                     .handwritten(license.getHandwritten())
+                    .extractionTier(license.getExtractionTier())
                     .documentType(license.getDocumentType())
                     .createdAt(license.getCreatedAt())
                     .build();
@@ -0,0 +1,21 @@
+package com.documentprocessing.service;
+
+/**
+ * External HTTP dependencies of the processing pipeline
+ */
+public enum ExternalService {
+    HANDWRITING_DETECTOR("handwriting-detector"),
+    TROCR("trocr"),
+    OLLAMA("ollama");
+
+    private final String key;
+
+    ExternalService(String key) {
+        this.key = key;
+    }
+
+    /** Short name used in configuration keys and metric tags */
+    public String getKey() {
+        return key;
+    }
+}
@@ -0,0 +1,301 @@
+package com.documentprocessing.service;
+
+import com.documentprocessing.exception.DependencyUnavailableException;
+import com.documentprocessing.exception.ModelNotFoundException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.hc.core5.concurrent.Cancellable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Per-service bulkhead, deadline and circuit breaker for the detector, TrOCR
+ * and Ollama calls. A call first needs a breaker permit, then a bulkhead slot
+ * (waiting at most max-wait-ms), and is cancelled if it has not finished
+ * within timeout-ms, even if the service keeps trickling bytes. Rejected calls
+ * fail immediately with {@link DependencyUnavailableException}, so a hung
+ * service costs callers milliseconds instead of a request thread each.
+ *
+ * Ollama can run on several hosts, so it is guarded per endpoint: each host
+ * gets its own breaker and bulkhead, named {@code ollama@<url>}, and a dead
+ * host neither trips the breaker for the healthy ones nor holds their slots.
+ */
+@Component
+public class ExternalServiceGuard {
+    private static final Logger log = LoggerFactory.getLogger(ExternalServiceGuard.class);
+
+    @Value("${resilience.circuit-breaker.failure-rate-threshold:50}")
+    private float failureRateThreshold;
+
+    @Value("${resilience.circuit-breaker.sliding-window-size:20}")
+    private int slidingWindowSize;
+
+    @Value("${resilience.circuit-breaker.minimum-calls:10}")
+    private int minimumCalls;
+
+    @Value("${resilience.circuit-breaker.open-duration-ms:30000}")
+    private long openDurationMs;
+
+    @Value("${resilience.circuit-breaker.half-open-calls:3}")
+    private int halfOpenCalls;
+
+    @Value("${resilience.handwriting-detector.max-concurrent:10}")
+    private int detectorMaxConcurrent;
+
+    @Value("${resilience.handwriting-detector.max-wait-ms:500}")
+    private long detectorMaxWaitMs;
+
+    @Value("${resilience.handwriting-detector.timeout-ms:15000}")
+    private long detectorTimeoutMs;
+
+    @Value("${resilience.trocr.max-concurrent:10}")
+    private int trocrMaxConcurrent;
+
+    @Value("${resilience.trocr.max-wait-ms:2000}")
+    private long trocrMaxWaitMs;
+
+    @Value("${resilience.trocr.timeout-ms:45000}")
+    private long trocrTimeoutMs;
+
+    @Value("${resilience.ollama.max-concurrent:10}")
+    private int ollamaMaxConcurrent;
+
+    @Value("${resilience.ollama.max-wait-ms:5000}")
+    private long ollamaMaxWaitMs;
+
+    @Value("${resilience.ollama.timeout-ms:180000}")
+    private long ollamaTimeoutMs;
+
+    /** Services with one breaker and bulkhead per endpoint instead of one for the service */
+    private static final Set<ExternalService> PER_ENDPOINT = EnumSet.of(ExternalService.OLLAMA);
+
+    private final CircuitBreakerRegistry circuitBreakerRegistry = CircuitBreakerRegistry.ofDefaults();
+    private final BulkheadRegistry bulkheadRegistry = BulkheadRegistry.ofDefaults();
+    private final Map<String, Protection> protections = new ConcurrentHashMap<>();
+    private final Map<ExternalService, BulkheadConfig> bulkheadConfigs = new EnumMap<>(ExternalService.class);
+    private final Map<ExternalService, Long> timeoutsMs = new EnumMap<>(ExternalService.class);
+    private CircuitBreakerConfig breakerConfig;
+    private ScheduledThreadPoolExecutor deadlines;
+
+    private record Protection(ExternalService service, String name, CircuitBreaker breaker, Bulkhead bulkhead) {}
+
+    @FunctionalInterface
+    public interface GuardedCall<T> {
+        T call() throws IOException;
+    }
+
+    @PostConstruct
+    void init() {
+        breakerConfig = CircuitBreakerConfig.custom()
+                .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+                .slidingWindowSize(slidingWindowSize)
+                .minimumNumberOfCalls(minimumCalls)
+                .failureRateThreshold(failureRateThreshold)
+                .waitDurationInOpenState(Duration.ofMillis(openDurationMs))
+                .permittedNumberOfCallsInHalfOpenState(halfOpenCalls)
+                // Lets callers see HALF_OPEN without having to spend a call to find out
+                .automaticTransitionFromOpenToHalfOpenEnabled(true)
+                // A model that was never pulled says nothing about the host's health
+                .ignoreExceptions(ModelNotFoundException.class)
+                .build();
+
+        configureService(ExternalService.HANDWRITING_DETECTOR, detectorMaxConcurrent, detectorMaxWaitMs, detectorTimeoutMs);
+        configureService(ExternalService.TROCR, trocrMaxConcurrent, trocrMaxWaitMs, trocrTimeoutMs);
+        configureService(ExternalService.OLLAMA, ollamaMaxConcurrent, ollamaMaxWaitMs, ollamaTimeoutMs);
+
+        deadlines = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "service-call-deadlines");
+            thread.setDaemon(true);
+            return thread;
+        });
+        deadlines.setRemoveOnCancelPolicy(true);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        deadlines.shutdownNow();
+    }
+
+    /**
+     * Per-endpoint services get their protection per host through
+     * {@link #addEndpoint}, each with max-concurrent slots
+     */
+    private void configureService(ExternalService service, int maxConcurrent, long maxWaitMs, long timeoutMs) {
+        bulkheadConfigs.put(service, BulkheadConfig.custom()
+                .maxConcurrentCalls(maxConcurrent)
+                .maxWaitDuration(Duration.ofMillis(maxWaitMs))
+                .build());
+        timeoutsMs.put(service, timeoutMs);
+        if (!PER_ENDPOINT.contains(service)) {
+            protection(service, null);
+        }
+    }
+
+    /**
+     * Give an endpoint of a per-endpoint service its own breaker and
+     * bulkhead up front, so the service counts as available while any
+     * endpoint is, including ones not called yet
+     */
+    public void addEndpoint(ExternalService service, String endpoint) {
+        protection(service, endpoint);
+    }
+
+    private static String protectionName(ExternalService service, String endpoint) {
+        return PER_ENDPOINT.contains(service) && endpoint != null ? service.getKey() + "@" + endpoint : service.getKey();
+    }
+
+    private Protection protection(ExternalService service, String endpoint) {
+        return protections.computeIfAbsent(protectionName(service, endpoint), name -> {
+            CircuitBreaker breaker = circuitBreakerRegistry.circuitBreaker(name, breakerConfig);
+            breaker.getEventPublisher().onStateTransition(event ->
+                    log.warn("Circuit breaker for {}: {}", name, event.getStateTransition()));
+            Bulkhead bulkhead = bulkheadRegistry.bulkhead(name, bulkheadConfigs.get(service));
+            return new Protection(service, name, breaker, bulkhead);
+        });
+    }
+
+    /**
+     * Run one call to the service under its breaker, bulkhead and deadline.
+     * The endpoint is the base URL the call goes to and picks the breaker and
+     * bulkhead of per-endpoint services. The request is cancelled when the
+     * deadline passes, which makes the blocked call fail with a
+     * {@link DependencyUnavailableException}.
+     */
+    public <T> T execute(ExternalService service, String endpoint, Cancellable request,
+                         GuardedCall<T> call) throws IOException {
+        Protection protection = protection(service, endpoint);
+        String name = protection.name();
+        CircuitBreaker breaker = protection.breaker();
+        if (!breaker.tryAcquirePermission()) {
+            throw new DependencyUnavailableException(name, "circuit breaker is " + breaker.getState());
+        }
+
+        Bulkhead bulkhead = protection.bulkhead();
+        if (!bulkhead.tryAcquirePermission()) {
+            // Not the service's fault, so it must not count against the breaker
+            breaker.releasePermission();
+            throw new DependencyUnavailableException(name,
+                    "all " + bulkhead.getBulkheadConfig().getMaxConcurrentCalls() + " call slots busy");
+        }
+
+        long timeoutMs = timeoutsMs.get(service);
+        AtomicBoolean timedOut = new AtomicBoolean();
+        ScheduledFuture<?> deadline = deadlines.schedule(() -> {
+            timedOut.set(true);
+            request.cancel();
+        }, timeoutMs, TimeUnit.MILLISECONDS);
+
+        long start = breaker.getCurrentTimestamp();
+        try {
+            T result = call.call();
+            breaker.onSuccess(breaker.getCurrentTimestamp() - start, breaker.getTimestampUnit());
+            return result;
+        } catch (IOException | RuntimeException e) {
+            Exception failure = timedOut.get()
+                    ? new DependencyUnavailableException(name, "no response within " + timeoutMs + " ms", e)
+                    : e;
+            breaker.onError(breaker.getCurrentTimestamp() - start, breaker.getTimestampUnit(), failure);
+            if (failure instanceof IOException ioFailure) {
+                throw ioFailure;
+            }
+            throw (RuntimeException) failure;
+        } finally {
+            deadline.cancel(false);
+            bulkhead.onComplete();
+        }
+    }
+
+    /**
+     * Run a call that is not tied to one endpoint
+     */
+    public <T> T execute(ExternalService service, Cancellable request, GuardedCall<T> call) throws IOException {
+        return execute(service, null, request, call);
+    }
+
+    /**
+     * False while the breaker is open, so callers can skip straight to their
+     * fallback instead of building a request that would be rejected. For a
+     * per-endpoint service, true while any endpoint's breaker lets calls
+     * through.
+     */
+    public boolean isAvailable(ExternalService service) {
+        boolean guarded = false;
+        for (Protection protection : protections.values()) {
+            if (protection.service() == service) {
+                if (isAvailable(protection)) {
+                    return true;
+                }
+                guarded = true;
+            }
+        }
+        return !guarded;
+    }
+
+    /**
+     * False while the breaker for this endpoint of the service is open
+     */
+    public boolean isAvailable(ExternalService service, String endpoint) {
+        Protection protection = protections.get(protectionName(service, endpoint));
+        return protection == null || isAvailable(protection);
+    }
+
+    private static boolean isAvailable(Protection protection) {
+        CircuitBreaker.State state = protection.breaker().getState();
+        return state != CircuitBreaker.State.OPEN && state != CircuitBreaker.State.FORCED_OPEN;
+    }
+
+    public CircuitBreakerRegistry getCircuitBreakerRegistry() {
+        return circuitBreakerRegistry;
+    }
+
+    public BulkheadRegistry getBulkheadRegistry() {
+        return bulkheadRegistry;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        List<Protection> sorted = protections.values().stream()
+                .sorted(Comparator.comparing(Protection::service).thenComparing(Protection::name))
+                .toList();
+        for (Protection protection : sorted) {
+            CircuitBreaker breaker = protection.breaker();
+            CircuitBreaker.Metrics breakerMetrics = breaker.getMetrics();
+            Bulkhead bulkhead = protection.bulkhead();
+
+            Map<String, Object> serviceStats = new LinkedHashMap<>();
+            serviceStats.put("state", breaker.getState().name());
+            serviceStats.put("failureRate", breakerMetrics.getFailureRate());
+            serviceStats.put("bufferedCalls", breakerMetrics.getNumberOfBufferedCalls());
+            serviceStats.put("failedCalls", breakerMetrics.getNumberOfFailedCalls());
+            serviceStats.put("notPermittedCalls", breakerMetrics.getNumberOfNotPermittedCalls());
+            serviceStats.put("maxConcurrentCalls", bulkhead.getBulkheadConfig().getMaxConcurrentCalls());
+            serviceStats.put("availableConcurrentCalls", bulkhead.getMetrics().getAvailableConcurrentCalls());
+            serviceStats.put("timeoutMs", timeoutsMs.get(protection.service()));
+            stats.put(protection.name(), serviceStats);
+        }
+        return stats;
+    }
+}
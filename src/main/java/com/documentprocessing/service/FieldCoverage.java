@@ -0,0 +1,49 @@
+package com.documentprocessing.service;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Field-coverage scoring shared by the final confidence score and the
+ * extraction cascade, so a tier is accepted by the same rule the record is
+ * later judged by.
+ */
+public final class FieldCoverage {
+
+    /** Key fields we expect on every license */
+    public static final List<String> KEY_FIELDS = List.of(
+            "licenseNumber", "firstName", "lastName", "dateOfBirth",
+            "address", "city", "state", "zipCode", "issueDate", "expiryDate");
+
+    /** Fields without which a record always goes to manual review */
+    public static final List<String> IMPORTANT_FIELDS = List.of("licenseNumber", "firstName", "lastName");
+
+    private FieldCoverage() {
+    }
+
+    /**
+     * Fraction of the key fields that have a non-blank value
+     */
+    public static double score(Map<String, ?> data) {
+        int foundFields = 0;
+        for (String field : KEY_FIELDS) {
+            if (isPresent(data.get(field))) {
+                foundFields++;
+            }
+        }
+        return (double) foundFields / KEY_FIELDS.size();
+    }
+
+    public static boolean missingImportantFields(Map<String, ?> data) {
+        for (String field : IMPORTANT_FIELDS) {
+            if (!isPresent(data.get(field))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static boolean isPresent(Object value) {
+        return value != null && !value.toString().trim().isEmpty();
+    }
+}
@@ -0,0 +1,17 @@
+package com.documentprocessing.service;
+
+/**
+ * Decides whether an image is handwritten or printed, which picks the OCR
+ * engine. The implementation in use is chosen by app.handwriting.classifier.
+ */
+public interface HandwritingClassifier {
+
+    /** Value of app.handwriting.classifier that selects this implementation */
+    String getName();
+
+    /**
+     * Classify the encoded image. Never throws: a failure is reported as
+     * {@link HandwritingDetection#failed()}.
+     */
+    HandwritingDetection classify(byte[] imageBytes);
+}
@@ -0,0 +1,34 @@
+package com.documentprocessing.service;
+
+/**
+ * Answer of the handwriting detector. The confidence is the detector's raw
+ * score, which it compares against its own threshold to pick the label, and
+ * may be null if the detector does not report one. When detection failed the
+ * image is assumed to be printed and detected is false.
+ */
+public record HandwritingDetection(boolean handwritten, Double confidence, boolean detected) {
+
+    public static HandwritingDetection of(boolean handwritten, Double confidence) {
+        return new HandwritingDetection(handwritten, confidence, true);
+    }
+
+    /** Detection failed; the pipeline treats the image as printed */
+    public static HandwritingDetection failed() {
+        return new HandwritingDetection(false, null, false);
+    }
+
+    /**
+     * True when detection failed or the score lies within band of the
+     * detector's threshold, so neither OCR engine is a safe choice on its own
+     */
+    public boolean isAmbiguous(double threshold, double band) {
+        if (!detected) {
+            return true;
+        }
+        return confidence != null && Math.abs(confidence - threshold) <= band;
+    }
+
+    public String label() {
+        return handwritten ? "handwritten" : "printed";
+    }
+}
@@ -0,0 +1,17 @@
+package com.documentprocessing.service;
+
+/**
+ * OCR engine for handwritten images. The implementation in use is chosen by
+ * app.trocr.engine.
+ */
+public interface HandwrittenTextRecognizer {
+
+    /** Value of app.trocr.engine that selects this implementation */
+    String getName();
+
+    /**
+     * Text in the encoded image. Throws a RuntimeException when recognition
+     * fails, so the pipeline can fall back to Tesseract.
+     */
+    String recognize(byte[] imageBytes);
+}
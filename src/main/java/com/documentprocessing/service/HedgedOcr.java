@@ -0,0 +1,121 @@
+package com.documentprocessing.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Runs Tesseract and TrOCR on the same image when the handwriting detector
+ * is unsure. Once the first engine returns text, the other gets until the
+ * deadline; if both answer, the text with the higher field coverage wins,
+ * otherwise the first answer is used. An engine that fails or returns no text
+ * does not count as an answer, so the other is awaited past the deadline.
+ */
+final class HedgedOcr {
+
+    enum Engine {
+        TESSERACT,
+        TROCR
+    }
+
+    enum Reason {
+        /** Both answered; the winner found more license fields */
+        COVERAGE,
+        /** The other engine missed the deadline */
+        DEADLINE,
+        /** The other engine failed or returned no text */
+        ONLY_RESULT
+    }
+
+    record Result(Engine engine, String text, Reason reason) {}
+
+    private record Attempt(Engine engine, String text) {}
+
+    private HedgedOcr() {
+    }
+
+    static Result race(ExecutorService executor, Callable<String> tesseract, Callable<String> trocr,
+                       long deadlineMs, ToDoubleFunction<String> coverage) throws Exception {
+        CompletionService<Attempt> completion = new ExecutorCompletionService<>(executor);
+        List<Future<Attempt>> futures = new ArrayList<>(2);
+        futures.add(completion.submit(() -> new Attempt(Engine.TESSERACT, tesseract.call())));
+        futures.add(completion.submit(() -> new Attempt(Engine.TROCR, trocr.call())));
+
+        try {
+            Exception failure = null;
+            Attempt first;
+            try {
+                first = answer(completion.take());
+            } catch (Exception e) {
+                failure = e;
+                first = null;
+            }
+            if (first == null) {
+                // Nothing to fall back on yet, so the other engine gets its full timeout
+                try {
+                    Attempt other = answer(completion.take());
+                    return other != null ? new Result(other.engine(), other.text(), Reason.ONLY_RESULT)
+                            : new Result(Engine.TESSERACT, "", Reason.ONLY_RESULT);
+                } catch (Exception e) {
+                    if (failure != null) {
+                        e.addSuppressed(failure);
+                    }
+                    throw e;
+                }
+            }
+
+            Future<Attempt> next = completion.poll(deadlineMs, TimeUnit.MILLISECONDS);
+            if (next == null) {
+                return new Result(first.engine(), first.text(), Reason.DEADLINE);
+            }
+            Attempt second;
+            try {
+                second = answer(next);
+            } catch (Exception e) {
+                second = null;
+            }
+            if (second == null) {
+                return new Result(first.engine(), first.text(), Reason.ONLY_RESULT);
+            }
+
+            Attempt better = isBetter(second, first, coverage) ? second : first;
+            return new Result(better.engine(), better.text(), Reason.COVERAGE);
+        } finally {
+            for (Future<Attempt> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * The attempt, or null if it produced no text
+     */
+    private static Attempt answer(Future<Attempt> future) throws Exception {
+        try {
+            Attempt attempt = future.get();
+            return attempt.text() == null || attempt.text().isBlank() ? null : attempt;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /** Higher coverage wins; on a tie, the longer text */
+    private static boolean isBetter(Attempt candidate, Attempt current, ToDoubleFunction<String> coverage) {
+        int byCoverage = Double.compare(coverage.applyAsDouble(candidate.text()),
+                coverage.applyAsDouble(current.text()));
+        if (byCoverage != 0) {
+            return byCoverage > 0;
+        }
+        return candidate.text().trim().length() > current.text().trim().length();
+    }
+}
@@ -0,0 +1,667 @@
+package com.documentprocessing.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataFormatImpl;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Rectangle;
+import java.awt.color.ColorSpace;
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.WritableRaster;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Cleans up an image before Tesseract: grayscale, area-average downscale to
+ * the target DPI, Sauvola binarization and an optional projection-profile
+ * deskew. Every step works on flat byte arrays and splits its rows (or
+ * angles) into stripes that run in parallel, with the calling thread taking
+ * the first stripe.
+ *
+ * The resolution is the one the file declares (JFIF density, PNG pHYs, TIFF
+ * XResolution) when it declares a plausible one, so a full-page scan keeps
+ * its 300 dpi. Photos declare nothing or a placeholder 72/96 dpi; for those
+ * the long edge is assumed to cover frame-inches of the document, a card
+ * photographed with some margin. Images already at or below the target are
+ * not scaled up. {@link #decode} applies the same target while decoding, so
+ * the full-resolution pixel buffer is never allocated.
+ */
+@Component
+public class ImagePreprocessor {
+    private static final Logger log = LoggerFactory.getLogger(ImagePreprocessor.class);
+
+    /** Below this many rows per stripe the hand-off costs more than it saves */
+    private static final int MIN_STRIPE_ROWS = 64;
+    private static final double SKEW_STEP_DEGREES = 0.25;
+    private static final double MIN_SKEW_DEGREES = 0.2;
+    /** Source rows decoded at a time when reading a random-access format in bands */
+    private static final int BAND_ROWS = 256;
+    /** Cameras and editors write 72 or 96 dpi when they know nothing, so lower declared values are ignored */
+    private static final double MIN_DECLARED_DPI = 100;
+
+    private final boolean enabled;
+    private final int targetDpi;
+    private final double frameInches;
+    private final boolean binarize;
+    private final int window;
+    private final double sauvolaK;
+    private final boolean subsampleDecode;
+    private final boolean deskew;
+    private final double maxSkewDegrees;
+    private final int threads;
+
+    private ExecutorService stripeExecutor;
+
+    public ImagePreprocessor(@Value("${app.ocr.preprocess.enabled:false}") boolean enabled,
+                             @Value("${app.ocr.preprocess.target-dpi:300}") int targetDpi,
+                             @Value("${app.ocr.preprocess.frame-inches:4.5}") double frameInches,
+                             @Value("${app.ocr.preprocess.binarize:true}") boolean binarize,
+                             @Value("${app.ocr.preprocess.window:31}") int window,
+                             @Value("${app.ocr.preprocess.sauvola-k:0.2}") double sauvolaK,
+                             @Value("${app.ocr.preprocess.subsample-decode:true}") boolean subsampleDecode,
+                             @Value("${app.ocr.preprocess.deskew:false}") boolean deskew,
+                             @Value("${app.ocr.preprocess.max-skew-degrees:10}") double maxSkewDegrees,
+                             @Value("${app.ocr.preprocess.threads:0}") int threads) {
+        this.enabled = enabled;
+        this.targetDpi = targetDpi;
+        this.frameInches = frameInches;
+        this.binarize = binarize;
+        this.window = window;
+        this.sauvolaK = sauvolaK;
+        this.subsampleDecode = subsampleDecode;
+        this.deskew = deskew;
+        this.maxSkewDegrees = maxSkewDegrees;
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+
+    @PostConstruct
+    void init() {
+        if (enabled && threads > 1) {
+            stripeExecutor = Executors.newFixedThreadPool(threads - 1, new CustomizableThreadFactory("ocr-preprocess-"));
+        }
+        log.info("OCR preprocessing: {}", enabled
+                ? String.format("%d dpi (declared, else over %.1f in), binarize=%s, deskew=%s, %d threads",
+                        targetDpi, frameInches, binarize, deskew, threads)
+                : "off");
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (stripeExecutor != null) {
+            stripeExecutor.shutdownNow();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * A decoded image and the resolution of its pixels, 0 when the file
+     * declares none that is usable
+     */
+    public record Decoded(BufferedImage image, double dpi) {}
+
+    /**
+     * The image of {@link #decode}, for callers that do not preprocess
+     */
+    public BufferedImage read(byte[] imageBytes) throws IOException {
+        Decoded decoded = decode(imageBytes);
+        return decoded == null ? null : decoded.image();
+    }
+
+    /**
+     * Decodes the first image, like ImageIO.read, but keeps only every n-th
+     * pixel in both directions, with n the largest factor that leaves the
+     * result no smaller than what preprocessing keeps. n comes from the
+     * header's dimensions and declared resolution, read before any pixels;
+     * the area-average downscale covers the remainder. Returns null when no
+     * reader supports the format.
+     *
+     * Sequential formats (JPEG, PNG) subsample inside the reader. For
+     * random-access ones (TIFF) the reader's subsampling goes pixel by pixel
+     * and is slower than a full decode, so those are decoded as full-width
+     * source regions of a few hundred rows into one reused band buffer
+     * instead, and every n-th pixel copied out.
+     */
+    public Decoded decode(byte[] imageBytes) throws IOException {
+        if (!enabled) {
+            BufferedImage image = ImageIO.read(new ByteArrayInputStream(imageBytes));
+            return image == null ? null : new Decoded(image, 0);
+        }
+        return decode(imageBytes, 0);
+    }
+
+    /**
+     * Decodes the first image with every n-th pixel kept, n the largest
+     * factor that leaves the shorter edge at least minEdge pixels, whether
+     * or not preprocessing is on. For callers that scale to a fixed size of
+     * their own (the raster classifier, local TrOCR). Returns null when no
+     * reader supports the format.
+     */
+    public BufferedImage read(byte[] imageBytes, int minEdge) throws IOException {
+        Decoded decoded = decode(imageBytes, Math.max(1, minEdge));
+        return decoded == null ? null : decoded.image();
+    }
+
+    /**
+     * minEdge 0 subsamples towards the preprocessing target instead
+     */
+    private Decoded decode(byte[] imageBytes, int minEdge) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(imageBytes))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                // The metadata holds the declared resolution, needed only towards the target
+                reader.setInput(input, true, minEdge > 0);
+                double dpi = minEdge > 0 ? 0 : declaredDpi(reader);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                int factor = minEdge > 0 ? Math.max(1, Math.min(width, height) / minEdge)
+                        : subsampleDecode ? subsampling(width, height, dpi) : 1;
+                if (factor > 1 && reader.isRandomAccessEasy(0)) {
+                    return new Decoded(readInBands(reader, factor), dpi / factor);
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                if (factor > 1) {
+                    param.setSourceSubsampling(factor, factor, 0, 0);
+                }
+                return new Decoded(reader.read(0, param), dpi / factor);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Dots per inch from the standard metadata's pixel size, or 0 when the
+     * file declares none or only a placeholder
+     */
+    static double declaredDpi(ImageReader reader) {
+        try {
+            IIOMetadata metadata = reader.getImageMetadata(0);
+            if (metadata == null || !metadata.isStandardMetadataFormatSupported()) {
+                return 0;
+            }
+            Node root = metadata.getAsTree(IIOMetadataFormatImpl.standardMetadataFormatName);
+            for (Node dimension = root.getFirstChild(); dimension != null; dimension = dimension.getNextSibling()) {
+                if (!"Dimension".equals(dimension.getNodeName())) {
+                    continue;
+                }
+                for (Node size = dimension.getFirstChild(); size != null; size = size.getNextSibling()) {
+                    if ("HorizontalPixelSize".equals(size.getNodeName())) {
+                        // Millimetres per pixel
+                        double millimetres = Double.parseDouble(((Element) size).getAttribute("value"));
+                        double dpi = millimetres > 0 ? 25.4 / millimetres : 0;
+                        return dpi >= MIN_DECLARED_DPI ? dpi : 0;
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            log.debug("Unreadable image metadata, assuming no declared resolution: {}", e.getMessage());
+        }
+        return 0;
+    }
+
+    private static BufferedImage readInBands(ImageReader reader, int factor) throws IOException {
+        int width = reader.getWidth(0);
+        int height = reader.getHeight(0);
+        // Bands start on kept rows
+        int bandRows = Math.min(height, (BAND_ROWS + factor - 1) / factor * factor);
+        ImageTypeSpecifier type = reader.getImageTypes(0).next();
+        BufferedImage band = type.createBufferedImage(width, bandRows);
+        BufferedImage result = type.createBufferedImage((width + factor - 1) / factor, (height + factor - 1) / factor);
+
+        WritableRaster in = band.getRaster();
+        WritableRaster out = result.getRaster();
+        int keptWidth = result.getWidth();
+        // Rows move as the raster's own data elements when those are bytes, as samples otherwise
+        boolean bytes = in.getTransferType() == DataBuffer.TYPE_BYTE;
+        int elements = bytes ? in.getNumDataElements() : in.getNumBands();
+        byte[] byteRow = bytes ? new byte[width * elements] : null;
+        byte[] keptBytes = bytes ? new byte[keptWidth * elements] : null;
+        int[] sampleRow = bytes ? null : new int[width * elements];
+        int[] keptSamples = bytes ? null : new int[keptWidth * elements];
+
+        ImageReadParam param = reader.getDefaultReadParam();
+        param.setDestination(band);
+        for (int top = 0; top < height; top += bandRows) {
+            int rows = Math.min(bandRows, height - top);
+            param.setSourceRegion(new Rectangle(0, top, width, rows));
+            reader.read(0, param);
+            for (int y = 0; y < rows; y += factor) {
+                int target = (top + y) / factor;
+                if (bytes) {
+                    in.getDataElements(0, y, width, 1, byteRow);
+                    for (int x = 0, k = 0; x < width; x += factor) {
+                        for (int e = 0; e < elements; e++) {
+                            keptBytes[k++] = byteRow[x * elements + e];
+                        }
+                    }
+                    out.setDataElements(0, target, keptWidth, 1, keptBytes);
+                } else {
+                    in.getPixels(0, y, width, 1, sampleRow);
+                    for (int x = 0, k = 0; x < width; x += factor) {
+                        for (int e = 0; e < elements; e++) {
+                            keptSamples[k++] = sampleRow[x * elements + e];
+                        }
+                    }
+                    out.setPixels(0, target, keptWidth, 1, keptSamples);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Largest whole factor that keeps the image at or above the target; dpi
+     * is the declared resolution, 0 for none
+     */
+    int subsampling(int width, int height, double dpi) {
+        double oversampling = dpi > 0 ? dpi / targetDpi : Math.max(width, height) / (targetDpi * frameInches);
+        // PNG stores pixels per metre, so a declared 600 dpi reads back as 599.998
+        return Math.max(1, (int) (oversampling + 0.001));
+    }
+
+    /**
+     * An 8-bit grey image ready for OCR, taking the image as it was decoded
+     */
+    public BufferedImage preprocess(Decoded decoded) {
+        return preprocess(decoded.image(), decoded.dpi());
+    }
+
+    /**
+     * An 8-bit grey image ready for OCR; dpi is the image's resolution, 0
+     * when unknown. The input is returned unchanged when preprocessing is off.
+     */
+    public BufferedImage preprocess(BufferedImage image, double dpi) {
+        if (!enabled) {
+            return image;
+        }
+        Gray gray = toGray(image);
+
+        double scale = Math.min(1.0, dpi > 0 ? targetDpi / dpi
+                : targetDpi * frameInches / Math.max(gray.width(), gray.height()));
+        if (scale < 1.0) {
+            gray = downscale(gray, Math.max(1, (int) Math.round(gray.width() * scale)),
+                    Math.max(1, (int) Math.round(gray.height() * scale)));
+        }
+        if (binarize) {
+            gray = binarize(gray);
+        }
+        if (deskew) {
+            double angle = estimateSkew(gray);
+            if (Math.abs(angle) >= MIN_SKEW_DEGREES) {
+                gray = rotate(gray, angle);
+            }
+        }
+        return toImage(gray);
+    }
+
+    /**
+     * Grey levels row-major, with the width and height they belong to
+     */
+    record Gray(byte[] pixels, int width, int height) {}
+
+    /**
+     * ITU-R 601 luma, as PIL's "L". Interleaved byte rasters (what ImageIO
+     * decodes JPEG and most PNGs to) and packed int RGB rasters are read
+     * straight from their data arrays; anything else goes through getRGB.
+     */
+    Gray toGray(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        byte[] gray = new byte[width * height];
+        WritableRaster raster = image.getRaster();
+        int colorSpace = image.getColorModel().getColorSpace().getType();
+        boolean topLevel = raster.getSampleModelTranslateX() == 0 && raster.getSampleModelTranslateY() == 0;
+
+        if (topLevel && raster.getDataBuffer() instanceof DataBufferByte buffer
+                && raster.getSampleModel() instanceof ComponentSampleModel model
+                && buffer.getNumBanks() == 1 && model.getSampleSize(0) == 8) {
+            byte[] data = buffer.getData();
+            int base = buffer.getOffset();
+            int stride = model.getScanlineStride();
+            int pixelStride = model.getPixelStride();
+            int[] offsets = model.getBandOffsets();
+
+            if (raster.getNumBands() == 1 && colorSpace == ColorSpace.TYPE_GRAY) {
+                forEachStripe(height, (from, to) -> {
+                    for (int y = from; y < to; y++) {
+                        int in = base + y * stride + offsets[0];
+                        int out = y * width;
+                        for (int x = 0; x < width; x++, in += pixelStride) {
+                            gray[out + x] = data[in];
+                        }
+                    }
+                });
+                return new Gray(gray, width, height);
+            }
+            if (raster.getNumBands() >= 3 && colorSpace == ColorSpace.TYPE_RGB) {
+                int red = offsets[0];
+                int green = offsets[1];
+                int blue = offsets[2];
+                forEachStripe(height, (from, to) -> {
+                    for (int y = from; y < to; y++) {
+                        int in = base + y * stride;
+                        int out = y * width;
+                        for (int x = 0; x < width; x++, in += pixelStride) {
+                            gray[out + x] = luma(data[in + red] & 0xFF, data[in + green] & 0xFF,
+                                    data[in + blue] & 0xFF);
+                        }
+                    }
+                });
+                return new Gray(gray, width, height);
+            }
+        }
+
+        int type = image.getType();
+        if (topLevel && (type == BufferedImage.TYPE_INT_RGB || type == BufferedImage.TYPE_INT_ARGB)
+                && raster.getDataBuffer() instanceof DataBufferInt buffer) {
+            int[] data = buffer.getData();
+            int base = buffer.getOffset();
+            forEachStripe(height, (from, to) -> {
+                for (int y = from; y < to; y++) {
+                    int in = base + y * width;
+                    int out = y * width;
+                    for (int x = 0; x < width; x++) {
+                        int rgb = data[in + x];
+                        gray[out + x] = luma((rgb >> 16) & 0xFF, (rgb >> 8) & 0xFF, rgb & 0xFF);
+                    }
+                }
+            });
+            return new Gray(gray, width, height);
+        }
+
+        forEachStripe(height, (from, to) -> {
+            int[] row = new int[width];
+            for (int y = from; y < to; y++) {
+                image.getRGB(0, y, width, 1, row, 0, width);
+                int out = y * width;
+                for (int x = 0; x < width; x++) {
+                    int rgb = row[x];
+                    gray[out + x] = luma((rgb >> 16) & 0xFF, (rgb >> 8) & 0xFF, rgb & 0xFF);
+                }
+            }
+        });
+        return new Gray(gray, width, height);
+    }
+
+    private static byte luma(int red, int green, int blue) {
+        return (byte) ((red * 19595 + green * 38470 + blue * 7471 + 0x8000) >> 16);
+    }
+
+    /**
+     * Area average: each output pixel is the mean of the source box it covers
+     */
+    Gray downscale(Gray source, int width, int height) {
+        byte[] src = source.pixels();
+        int srcWidth = source.width();
+        int[] x0 = boxStarts(source.width(), width);
+        int[] y0 = boxStarts(source.height(), height);
+        byte[] out = new byte[width * height];
+
+        forEachStripe(height, (from, to) -> {
+            for (int y = from; y < to; y++) {
+                int rowStart = y0[y];
+                int rowEnd = y0[y + 1];
+                for (int x = 0; x < width; x++) {
+                    int colStart = x0[x];
+                    int colEnd = x0[x + 1];
+                    int sum = 0;
+                    for (int sy = rowStart; sy < rowEnd; sy++) {
+                        int offset = sy * srcWidth;
+                        for (int sx = colStart; sx < colEnd; sx++) {
+                            sum += src[offset + sx] & 0xFF;
+                        }
+                    }
+                    int count = (rowEnd - rowStart) * (colEnd - colStart);
+                    out[y * width + x] = (byte) ((sum + count / 2) / count);
+                }
+            }
+        });
+        return new Gray(out, width, height);
+    }
+
+    /**
+     * Box boundaries in the source for each output index, plus the end;
+     * every box is at least one pixel wide
+     */
+    private static int[] boxStarts(int sourceSize, int targetSize) {
+        int[] starts = new int[targetSize + 1];
+        double step = (double) sourceSize / targetSize;
+        for (int i = 0; i <= targetSize; i++) {
+            starts[i] = Math.min(sourceSize, (int) (i * step));
+            if (i > 0 && starts[i] <= starts[i - 1]) {
+                starts[i] = Math.min(sourceSize, starts[i - 1] + 1);
+            }
+        }
+        starts[targetSize] = sourceSize;
+        return starts;
+    }
+
+    /**
+     * Sauvola: a pixel is ink when it is darker than
+     * mean * (1 + k * (stddev / 128 - 1)) over the window around it. Window
+     * sums come from integral images of the values and their squares.
+     */
+    Gray binarize(Gray source) {
+        int width = source.width();
+        int height = source.height();
+        byte[] src = source.pixels();
+        int stride = width + 1;
+        int[] sums = new int[stride * (height + 1)];
+        long[] squares = new long[stride * (height + 1)];
+
+        // Prefix sums along each row, then down each column
+        forEachStripe(height, (from, to) -> {
+            for (int y = from; y < to; y++) {
+                int rowSum = 0;
+                long rowSquares = 0;
+                int in = y * width;
+                int out = (y + 1) * stride + 1;
+                for (int x = 0; x < width; x++) {
+                    int value = src[in + x] & 0xFF;
+                    rowSum += value;
+                    rowSquares += value * value;
+                    sums[out + x] = rowSum;
+                    squares[out + x] = rowSquares;
+                }
+            }
+        });
+        forEachStripe(width, (from, to) -> {
+            for (int y = 2; y <= height; y++) {
+                int row = y * stride;
+                int above = row - stride;
+                for (int x = from + 1; x <= to; x++) {
+                    sums[row + x] += sums[above + x];
+                    squares[row + x] += squares[above + x];
+                }
+            }
+        });
+
+        int radius = Math.max(1, window / 2);
+        byte[] out = new byte[width * height];
+        forEachStripe(height, (from, to) -> {
+            for (int y = from; y < to; y++) {
+                int top = Math.max(0, y - radius) * stride;
+                int bottom = Math.min(height, y + radius + 1) * stride;
+                int rows = (bottom - top) / stride;
+                for (int x = 0; x < width; x++) {
+                    int left = Math.max(0, x - radius);
+                    int right = Math.min(width, x + radius + 1);
+                    int count = rows * (right - left);
+                    double sum = sums[bottom + right] - sums[bottom + left] - sums[top + right] + sums[top + left];
+                    double sumOfSquares = squares[bottom + right] - squares[bottom + left]
+                            - squares[top + right] + squares[top + left];
+                    double mean = sum / count;
+                    double deviation = Math.sqrt(Math.max(0.0, sumOfSquares / count - mean * mean));
+                    double threshold = mean * (1 + sauvolaK * (deviation / 128 - 1));
+                    out[y * width + x] = (src[y * width + x] & 0xFF) <= threshold ? 0 : (byte) 255;
+                }
+            }
+        });
+        return new Gray(out, width, height);
+    }
+
+    /**
+     * Skew of the text lines in degrees, positive when they fall to the right
+     * (y grows with x). For each candidate angle the dark pixels are projected
+     * onto the axis perpendicular to it; the angle whose row profile is most
+     * peaked lines up with the text.
+     */
+    double estimateSkew(Gray source) {
+        int width = source.width();
+        int height = source.height();
+        byte[] src = source.pixels();
+        int dark = 0;
+        for (byte value : src) {
+            if ((value & 0xFF) < 128) {
+                dark++;
+            }
+        }
+        int[] xs = new int[dark];
+        int[] ys = new int[dark];
+        for (int i = 0, n = 0; i < src.length; i++) {
+            if ((src[i] & 0xFF) < 128) {
+                xs[n] = i % width;
+                ys[n++] = i / width;
+            }
+        }
+
+        int steps = (int) Math.round(maxSkewDegrees / SKEW_STEP_DEGREES);
+        double[] scores = new double[2 * steps + 1];
+        forEachStripe(scores.length, 1, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                double slope = Math.tan(Math.toRadians((i - steps) * SKEW_STEP_DEGREES));
+                int shift = (int) Math.ceil(Math.abs(slope) * width);
+                long[] profile = new long[height + 2 * shift + 1];
+                for (int n = 0; n < xs.length; n++) {
+                    profile[(int) Math.round(ys[n] - xs[n] * slope) + shift]++;
+                }
+                double score = 0;
+                for (long count : profile) {
+                    score += (double) count * count;
+                }
+                scores[i] = score;
+            }
+        });
+
+        int best = steps;
+        for (int i = 0; i < scores.length; i++) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+        return (best - steps) * SKEW_STEP_DEGREES;
+    }
+
+    /**
+     * Rotates the image so lines at the given skew become horizontal; nearest
+     * neighbour, uncovered corners filled white
+     */
+    Gray rotate(Gray source, double skewDegrees) {
+        int width = source.width();
+        int height = source.height();
+        byte[] src = source.pixels();
+        double cos = Math.cos(Math.toRadians(skewDegrees));
+        double sin = Math.sin(Math.toRadians(skewDegrees));
+        double cx = (width - 1) / 2.0;
+        double cy = (height - 1) / 2.0;
+        byte[] out = new byte[width * height];
+
+        forEachStripe(height, (from, to) -> {
+            for (int y = from; y < to; y++) {
+                double dy = y - cy;
+                for (int x = 0; x < width; x++) {
+                    double dx = x - cx;
+                    int sx = (int) Math.round(cx + dx * cos - dy * sin);
+                    int sy = (int) Math.round(cy + dx * sin + dy * cos);
+                    out[y * width + x] = sx >= 0 && sx < width && sy >= 0 && sy < height
+                            ? src[sy * width + sx]
+                            : (byte) 255;
+                }
+            }
+        });
+        return new Gray(out, width, height);
+    }
+
+    static BufferedImage toImage(Gray gray) {
+        BufferedImage image = new BufferedImage(gray.width(), gray.height(), BufferedImage.TYPE_BYTE_GRAY);
+        byte[] data = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+        System.arraycopy(gray.pixels(), 0, data, 0, data.length);
+        return image;
+    }
+
+    @FunctionalInterface
+    private interface Stripe {
+        void run(int from, int to);
+    }
+
+    private void forEachStripe(int count, Stripe stripe) {
+        forEachStripe(count, MIN_STRIPE_ROWS, stripe);
+    }
+
+    /**
+     * Splits [0, count) into contiguous stripes of at least minPerStripe, runs
+     * all but the first on the pool and the first on the calling thread, and
+     * waits for all of them
+     */
+    private void forEachStripe(int count, int minPerStripe, Stripe stripe) {
+        int stripes = stripeExecutor == null ? 1 : Math.min(threads, count / minPerStripe);
+        if (stripes <= 1) {
+            stripe.run(0, count);
+            return;
+        }
+
+        int size = (count + stripes - 1) / stripes;
+        List<Future<?>> others = new ArrayList<>(stripes - 1);
+        for (int from = size; from < count; from += size) {
+            int start = from;
+            int end = Math.min(count, from + size);
+            others.add(stripeExecutor.submit(() -> stripe.run(start, end)));
+        }
+        try {
+            stripe.run(0, Math.min(count, size));
+            for (Future<?> other : others) {
+                other.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while preprocessing image", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException runtime
+                    ? runtime
+                    : new IllegalStateException(e.getCause());
+        } finally {
+            others.forEach(other -> other.cancel(true));
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.documentprocessing.service;
+
+/**
+ * Accumulates streamed LLM output and tracks JSON brace depth (ignoring braces
+ * inside string literals) so the caller can tell the moment the first
+ * top-level JSON object is complete.
+ */
+public class JsonObjectCollector {
+
+    private final StringBuilder text = new StringBuilder();
+    private int objectStart = -1;
+    private int objectEnd = -1;
+    private int depth;
+    private boolean inString;
+    private boolean escaped;
+
+    /**
+     * Append the next chunk of generated text. Returns true once the top-level
+     * object has been closed; later chunks are ignored.
+     */
+    public boolean append(String chunk) {
+        if (isComplete()) {
+            return true;
+        }
+
+        int offset = text.length();
+        text.append(chunk);
+        for (int i = 0; i < chunk.length(); i++) {
+            char c = chunk.charAt(i);
+
+            if (objectStart < 0) {
+                if (c == '{') {
+                    objectStart = offset + i;
+                    depth = 1;
+                }
+                continue;
+            }
+
+            if (inString) {
+                if (escaped) {
+                    escaped = false;
+                } else if (c == '\\') {
+                    escaped = true;
+                } else if (c == '"') {
+                    inString = false;
+                }
+            } else if (c == '"') {
+                inString = true;
+            } else if (c == '{') {
+                depth++;
+            } else if (c == '}' && --depth == 0) {
+                objectEnd = offset + i + 1;
+                text.setLength(objectEnd);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isComplete() {
+        return objectEnd > 0;
+    }
+
+    /**
+     * The completed JSON object, or everything received so far if the object
+     * never closed
+     */
+    public String getResult() {
+        return isComplete() ? text.substring(objectStart, objectEnd) : text.toString();
+    }
+
+    public int length() {
+        return text.length();
+    }
+}
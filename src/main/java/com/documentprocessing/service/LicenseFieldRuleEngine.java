@@ -0,0 +1,323 @@
+package com.documentprocessing.service;
+
+import com.documentprocessing.model.LicenseExtraction;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Rule-based extraction of all license fields in one pass over the OCR text.
+ *
+ * Every rule is a label keyword ("LICENSE", "DOB", "CLASS", ...) followed by a
+ * value pattern. The keywords are compiled once into an Aho-Corasick automaton
+ * that finds every label occurrence in a single scan; the precompiled value
+ * pattern is then only tried right after the label. Per field, the rule with
+ * the best priority wins and ties go to the earliest occurrence. Values that
+ * do not have the shape of the field (a license number without a digit, a
+ * state that is no state) are skipped, so a later label can still fill it.
+ * Matching is ASCII case-insensitive, like {@code Pattern.CASE_INSENSITIVE}.
+ *
+ * Bare short labels (LIC, DL, NUMBER, FIRST, ...) and the unanchored name
+ * fallbacks also fire on card headings and noise, so their hits are reported
+ * as low confidence.
+ */
+@Component
+public class LicenseFieldRuleEngine {
+
+    private static final String DATE_SLASHED = "(\\d{1,2}[/-]\\d{1,2}[/-]\\d{2,4})";
+    private static final String DATE_ISO = "(\\d{4}[/-]\\d{1,2}[/-]\\d{1,2})";
+    private static final String DATE_WORDS = "(\\w+\\s+\\d{1,2},?\\s+\\d{4})";
+    private static final String LICENSE_NUMBER = "([A-Za-z0-9](?:[A-Za-z0-9-]{0,22}[A-Za-z0-9])?)";
+
+    /** Marks a rule whose hits are low confidence */
+    private static final String LOW = "low";
+
+    /**
+     * field, label keyword, value pattern tried right after the label, and
+     * optionally {@link #LOW}; listed in priority order per field. Values stop
+     * at the end of the line.
+     */
+    private static final String[][] RULES = {
+            {"licenseNumber", "LICENSE", "[ \\t]*(?:NUMBER|NO\\.?)[\\s#]*[:\\s]*" + LICENSE_NUMBER},
+            {"licenseNumber", "LICENSE", "[\\s#]*[:\\s]*" + LICENSE_NUMBER},
+            {"licenseNumber", "DRIVER", "[\\s]*LICENSE[\\s#]*[:\\s]*" + LICENSE_NUMBER},
+            {"licenseNumber", "LIC", "(?![A-Za-z])[\\s#.]*[:\\s]*" + LICENSE_NUMBER, LOW},
+            {"licenseNumber", "DL", "(?![A-Za-z])[\\s#]*[:\\s]*" + LICENSE_NUMBER, LOW},
+            {"licenseNumber", "NUMBER", "[\\s]*[:\\s]*" + LICENSE_NUMBER, LOW},
+
+            {"firstName", "FIRST", "[\\s]*NAME[\\s]*[:\\s]*([A-Za-z]+)"},
+            {"firstName", "FIRST", "[\\s]*[:\\s]*([A-Za-z]+)", LOW},
+            {"lastName", "LAST", "[\\s]*NAME[\\s]*[:\\s]*([A-Za-z]+)"},
+            {"lastName", "LAST", "[\\s]*[:\\s]*([A-Za-z]+)", LOW},
+            {"middleName", "MIDDLE", "[\\s]*NAME[\\s]*[:\\s]*([A-Za-z]+)"},
+            {"middleName", "MIDDLE", "[\\s]*[:\\s]*([A-Za-z]+)", LOW},
+
+            {"dateOfBirth", "BIRTH", "[\\s]*[:\\s]*" + DATE_SLASHED},
+            {"dateOfBirth", "BIRTH", "[\\s]*[:\\s]*" + DATE_ISO},
+            {"dateOfBirth", "BIRTH", "[\\s]*[:\\s]*" + DATE_WORDS},
+            {"dateOfBirth", "DOB", "[\\s.]*[:\\s]*" + DATE_SLASHED},
+            {"dateOfBirth", "DOB", "[\\s.]*[:\\s]*" + DATE_ISO},
+            {"issueDate", "ISSUE", "[\\s]*[:\\s]*" + DATE_SLASHED},
+            {"issueDate", "ISSUE", "[\\s]*[:\\s]*" + DATE_ISO},
+            {"issueDate", "ISSUE", "[\\s]*[:\\s]*" + DATE_WORDS},
+            {"issueDate", "ISS", "[\\s.]*[:\\s]*" + DATE_SLASHED},
+            {"issueDate", "ISS", "[\\s.]*[:\\s]*" + DATE_ISO},
+            {"expiryDate", "EXPIRY", "[\\s]*[:\\s]*" + DATE_SLASHED},
+            {"expiryDate", "EXPIRY", "[\\s]*[:\\s]*" + DATE_ISO},
+            {"expiryDate", "EXPIRY", "[\\s]*[:\\s]*" + DATE_WORDS},
+            {"expiryDate", "EXP", "[A-Za-z.]*[\\s]*[:\\s]*" + DATE_SLASHED},
+            {"expiryDate", "EXP", "[A-Za-z.]*[\\s]*[:\\s]*" + DATE_ISO},
+
+            {"issuingAuthority", "AUTHORITY", "[\\s]*[:\\s]*([A-Za-z \\t]+)"},
+            {"issuingAuthority", "ISSUED", "[\\s]*BY[\\s]*[:\\s]*([A-Za-z \\t]+)"},
+            {"issuingAuthority", "DEPARTMENT", "[\\s]*[:\\s]*([A-Za-z \\t]+)"},
+            {"address", "ADDRESS", "[\\s]*[:\\s]*([A-Za-z0-9 \\t,.-]+)"},
+            {"address", "RESIDENCE", "[\\s]*[:\\s]*([A-Za-z0-9 \\t,.-]+)"},
+            {"city", "CITY", "[\\s]*[:\\s]*([A-Za-z \\t]+)"},
+            {"city", "TOWN", "[\\s]*[:\\s]*([A-Za-z \\t]+)"},
+            {"state", "STATE", "[\\s]*[:\\s]*([A-Za-z \\t]+)"},
+            {"state", "PROVINCE", "[\\s]*[:\\s]*([A-Za-z \\t]+)"},
+            {"zipCode", "ZIP", "[\\s]*[:\\s]*(\\d{5,6})(?!\\d)"},
+            {"zipCode", "POSTAL", "[\\s]*[:\\s]*(\\d{5,6})(?!\\d)"},
+            {"zipCode", "PIN", "[\\s]*[:\\s]*(\\d{5,6})(?!\\d)"},
+
+            {"licenseClass", "CLASS", "[\\s]*[:\\s]*([A-Za-z0-9 \\t]+)"},
+            {"licenseClass", "CATEGORY", "[\\s]*[:\\s]*([A-Za-z0-9 \\t]+)"},
+            {"restrictions", "RESTRICTIONS", "[\\s]*[:\\s]*([A-Za-z0-9 \\t,.-]+)"},
+            {"restrictions", "CONDITIONS", "[\\s]*[:\\s]*([A-Za-z0-9 \\t,.-]+)"},
+            {"endorsements", "ENDORSEMENTS", "[\\s]*[:\\s]*([A-Za-z0-9 \\t,.-]+)"},
+            {"endorsements", "SPECIAL", "[\\s]*PERMISSIONS[\\s]*[:\\s]*([A-Za-z0-9 \\t,.-]+)"},
+    };
+
+    /**
+     * Unanchored last resort for names when no label was found; always low
+     * confidence. Case-sensitive, so only capitalised words qualify rather
+     * than every all-caps heading and field code on the card.
+     */
+    private static final Map<String, Pattern> NAME_FALLBACKS = Map.of(
+            "firstName", Pattern.compile("\\b([A-Z][a-z]+)\\s+\\w+"),
+            "lastName", Pattern.compile("\\b([A-Z][a-z]+)\\s+"),
+            "middleName", Pattern.compile("\\b([A-Z][a-z]+)\\s+"));
+
+    /** Has a digit, at least four characters, and nothing but letters, digits and dashes */
+    private static final Pattern LICENSE_NUMBER_SHAPE = Pattern.compile("(?=.*\\d)[A-Za-z0-9-]{4,24}");
+
+    /** US states and Canadian provinces, as codes and names */
+    private static final Set<String> REGIONS = Set.of(
+            "AL", "AK", "AZ", "AR", "CA", "CO", "CT", "DE", "DC", "FL", "GA", "HI", "ID", "IL", "IN", "IA",
+            "KS", "KY", "LA", "ME", "MD", "MA", "MI", "MN", "MS", "MO", "MT", "NE", "NV", "NH", "NJ", "NM",
+            "NY", "NC", "ND", "OH", "OK", "OR", "PA", "RI", "SC", "SD", "TN", "TX", "UT", "VT", "VA", "WA",
+            "WV", "WI", "WY",
+            "ALABAMA", "ALASKA", "ARIZONA", "ARKANSAS", "CALIFORNIA", "COLORADO", "CONNECTICUT", "DELAWARE",
+            "DISTRICT OF COLUMBIA", "FLORIDA", "GEORGIA", "HAWAII", "IDAHO", "ILLINOIS", "INDIANA", "IOWA",
+            "KANSAS", "KENTUCKY", "LOUISIANA", "MAINE", "MARYLAND", "MASSACHUSETTS", "MICHIGAN", "MINNESOTA",
+            "MISSISSIPPI", "MISSOURI", "MONTANA", "NEBRASKA", "NEVADA", "NEW HAMPSHIRE", "NEW JERSEY",
+            "NEW MEXICO", "NEW YORK", "NORTH CAROLINA", "NORTH DAKOTA", "OHIO", "OKLAHOMA", "OREGON",
+            "PENNSYLVANIA", "RHODE ISLAND", "SOUTH CAROLINA", "SOUTH DAKOTA", "TENNESSEE", "TEXAS", "UTAH",
+            "VERMONT", "VIRGINIA", "WASHINGTON", "WEST VIRGINIA", "WISCONSIN", "WYOMING",
+            "AB", "BC", "MB", "NB", "NL", "NS", "NT", "NU", "ON", "PE", "QC", "SK", "YT",
+            "ALBERTA", "BRITISH COLUMBIA", "MANITOBA", "NEW BRUNSWICK", "NEWFOUNDLAND AND LABRADOR",
+            "NOVA SCOTIA", "NORTHWEST TERRITORIES", "NUNAVUT", "ONTARIO", "PRINCE EDWARD ISLAND", "QUEBEC",
+            "SASKATCHEWAN", "YUKON");
+
+    /** Card headings that the bare name labels and fallbacks pick up */
+    private static final Set<String> NOT_NAMES = Set.of(
+            "DRIVER", "DRIVERS", "DRIVING", "LICENSE", "LICENCE", "PERMIT", "IDENTIFICATION", "CARD",
+            "CLASS", "NAME", "STATE", "DEPARTMENT", "MOTOR", "VEHICLES", "UNITED", "KINGDOM", "USA");
+
+    private static final int ALPHABET = 128;
+
+    private final List<String> fields = LicenseExtraction.FIELDS;
+    private final Rule[] rules;
+    private final int[] transitions;
+    private final int[][] matchesAtState;
+
+    private record Rule(int field, int priority, Pattern value, boolean lowConfidence) {
+    }
+
+    /**
+     * A field value and whether it came from a low-confidence rule
+     */
+    public record RuleHit(String value, boolean lowConfidence) {
+    }
+
+    public LicenseFieldRuleEngine() {
+        List<String> keywords = new ArrayList<>();
+        int[] priorities = new int[fields.size()];
+        rules = new Rule[RULES.length];
+        int[] keywordOfRule = new int[RULES.length];
+
+        for (int i = 0; i < RULES.length; i++) {
+            int field = fields.indexOf(RULES[i][0]);
+            if (field < 0) {
+                throw new IllegalStateException("Unknown field in extraction rules: " + RULES[i][0]);
+            }
+            String keyword = RULES[i][1];
+            if (!keywords.contains(keyword)) {
+                keywords.add(keyword);
+            }
+            keywordOfRule[i] = keywords.indexOf(keyword);
+            rules[i] = new Rule(field, priorities[field]++, Pattern.compile(RULES[i][2], Pattern.CASE_INSENSITIVE),
+                    RULES[i].length > 3 && LOW.equals(RULES[i][3]));
+        }
+
+        // Trie over the keywords, then breadth-first failure links folded into a dense transition table
+        List<int[]> gotos = new ArrayList<>();
+        List<List<Integer>> keywordsEndingAt = new ArrayList<>();
+        gotos.add(newRow());
+        keywordsEndingAt.add(new ArrayList<>());
+        for (int k = 0; k < keywords.size(); k++) {
+            int state = 0;
+            for (char c : keywords.get(k).toCharArray()) {
+                if (gotos.get(state)[c] < 0) {
+                    gotos.get(state)[c] = gotos.size();
+                    gotos.add(newRow());
+                    keywordsEndingAt.add(new ArrayList<>());
+                }
+                state = gotos.get(state)[c];
+            }
+            keywordsEndingAt.get(state).add(k);
+        }
+
+        int states = gotos.size();
+        transitions = new int[states * ALPHABET];
+        int[] failure = new int[states];
+        int[] queue = new int[states];
+        int head = 0;
+        int tail = 0;
+        for (int c = 0; c < ALPHABET; c++) {
+            int next = gotos.get(0)[c];
+            transitions[c] = Math.max(next, 0);
+            if (next > 0) {
+                queue[tail++] = next;
+            }
+        }
+        while (head < tail) {
+            int state = queue[head++];
+            keywordsEndingAt.get(state).addAll(keywordsEndingAt.get(failure[state]));
+            for (int c = 0; c < ALPHABET; c++) {
+                int next = gotos.get(state)[c];
+                if (next < 0) {
+                    transitions[state * ALPHABET + c] = transitions[failure[state] * ALPHABET + c];
+                } else {
+                    failure[next] = transitions[failure[state] * ALPHABET + c];
+                    transitions[state * ALPHABET + c] = next;
+                    queue[tail++] = next;
+                }
+            }
+        }
+
+        // Resolve each accepting state straight to the rules it triggers, in declaration order
+        matchesAtState = new int[states][];
+        for (int s = 0; s < states; s++) {
+            List<Integer> ruleIds = new ArrayList<>();
+            for (int r = 0; r < rules.length; r++) {
+                if (keywordsEndingAt.get(s).contains(keywordOfRule[r])) {
+                    ruleIds.add(r);
+                }
+            }
+            matchesAtState[s] = ruleIds.stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    private static int[] newRow() {
+        int[] row = new int[ALPHABET];
+        Arrays.fill(row, -1);
+        return row;
+    }
+
+    /**
+     * Extract every field from the text. Returns a map with one entry per
+     * field in {@link LicenseExtraction#FIELDS} order; fields without a match
+     * map to null.
+     */
+    public Map<String, String> extract(String text) {
+        Map<String, String> result = new LinkedHashMap<>();
+        extractHits(text).forEach((field, hit) -> result.put(field, hit == null ? null : hit.value()));
+        return result;
+    }
+
+    /**
+     * Like {@link #extract}, but each value carries its confidence
+     */
+    public Map<String, RuleHit> extractHits(String text) {
+        RuleHit[] hits = new RuleHit[fields.size()];
+        int[] bestPriority = new int[fields.size()];
+        Arrays.fill(bestPriority, Integer.MAX_VALUE);
+        Matcher[] matchers = new Matcher[rules.length];
+
+        if (text != null) {
+            int state = 0;
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c >= 'a' && c <= 'z') {
+                    c -= 'a' - 'A';
+                }
+                state = c < ALPHABET ? transitions[state * ALPHABET + c] : 0;
+
+                for (int r : matchesAtState[state]) {
+                    Rule rule = rules[r];
+                    if (rule.priority() >= bestPriority[rule.field()]) {
+                        continue;
+                    }
+                    Matcher matcher = matchers[r];
+                    if (matcher == null) {
+                        matcher = matchers[r] = rule.value().matcher(text);
+                    }
+                    matcher.region(i + 1, text.length());
+                    if (matcher.lookingAt()) {
+                        String value = matcher.group(1).trim();
+                        if (isPlausible(fields.get(rule.field()), value, rule.lowConfidence())) {
+                            hits[rule.field()] = new RuleHit(value, rule.lowConfidence());
+                            bestPriority[rule.field()] = rule.priority();
+                        }
+                    }
+                }
+            }
+
+            for (Map.Entry<String, Pattern> fallback : NAME_FALLBACKS.entrySet()) {
+                int field = fields.indexOf(fallback.getKey());
+                if (hits[field] == null) {
+                    Matcher matcher = fallback.getValue().matcher(text);
+                    while (matcher.find()) {
+                        String value = matcher.group(1).trim();
+                        if (isPlausible(fallback.getKey(), value, true)) {
+                            hits[field] = new RuleHit(value, true);
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+
+        Map<String, RuleHit> result = new LinkedHashMap<>();
+        for (int f = 0; f < hits.length; f++) {
+            result.put(fields.get(f), hits[f]);
+        }
+        return result;
+    }
+
+    /**
+     * Whether a value has the shape of the field. Fields without a check
+     * rely on their value pattern alone. An unlabelled name that is a state
+     * is the card's heading, but "First Name: Georgia" is a name.
+     */
+    static boolean isPlausible(String field, String value, boolean lowConfidence) {
+        String upper = value.toUpperCase(Locale.ROOT).replaceAll("\\s+", " ");
+        return switch (field) {
+            case "licenseNumber" -> LICENSE_NUMBER_SHAPE.matcher(value).matches();
+            case "state" -> REGIONS.contains(upper);
+            case "firstName", "lastName", "middleName" ->
+                    !NOT_NAMES.contains(upper) && !(lowConfidence && REGIONS.contains(upper));
+            default -> true;
+        };
+    }
+}
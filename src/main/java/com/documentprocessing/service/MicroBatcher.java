@@ -0,0 +1,131 @@
+package com.documentprocessing.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+/**
+ * Gathers items submitted within a short window into one call. The window
+ * opens with the first item and closes after maxWaitMs or once maxSize items
+ * are in, whichever comes first. Each caller gets the result at its own
+ * position in the call's answer. A dispatcher thread collects batches, and
+ * each batch runs on its own thread, so the next window opens while the
+ * previous call is still in flight. Every submitted item's future is
+ * completed, with the call's Error if it throws one, and a failure in the
+ * dispatcher fails only the batch it was collecting.
+ */
+final class MicroBatcher<T, R> implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(MicroBatcher.class);
+
+    @FunctionalInterface
+    interface BatchCall<T, R> {
+        /**
+         * One result per item, in the same order
+         */
+        List<R> call(List<T> items) throws Exception;
+    }
+
+    private record Pending<T, R>(T item, CompletableFuture<R> result) {}
+
+    private final int maxSize;
+    private final long maxWaitNanos;
+    private final BatchCall<T, R> batchCall;
+    private final IntConsumer batchSizes;
+    private final BlockingQueue<Pending<T, R>> waiting = new LinkedBlockingQueue<>();
+    private final ExecutorService dispatcher;
+    private final ExecutorService callers;
+
+    MicroBatcher(int maxSize, long maxWaitMs, BatchCall<T, R> batchCall, IntConsumer batchSizes,
+                 ThreadFactory threadFactory) {
+        this.maxSize = Math.max(1, maxSize);
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, maxWaitMs));
+        this.batchCall = batchCall;
+        this.batchSizes = batchSizes;
+        this.dispatcher = Executors.newSingleThreadExecutor(threadFactory);
+        this.callers = Executors.newCachedThreadPool(threadFactory);
+        dispatcher.execute(this::dispatch);
+    }
+
+    CompletableFuture<R> submit(T item) {
+        CompletableFuture<R> result = new CompletableFuture<>();
+        if (dispatcher.isShutdown()) {
+            result.completeExceptionally(new IllegalStateException("Batcher is shut down"));
+            return result;
+        }
+        waiting.add(new Pending<>(item, result));
+        return result;
+    }
+
+    private void dispatch() {
+        while (!Thread.currentThread().isInterrupted()) {
+            List<Pending<T, R>> batch = new ArrayList<>(maxSize);
+            try {
+                batch.add(waiting.take());
+                long deadline = System.nanoTime() + maxWaitNanos;
+                while (batch.size() < maxSize) {
+                    waiting.drainTo(batch, maxSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= maxSize || remaining <= 0) {
+                        break;
+                    }
+                    Pending<T, R> next = waiting.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                // Callers that gave up are not sent
+                batch.removeIf(pending -> pending.result().isDone());
+                if (!batch.isEmpty()) {
+                    callers.execute(() -> run(batch));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(batch, new IllegalStateException("Batcher is shut down"));
+            } catch (Throwable e) {
+                log.error("Dispatching a batch of {} failed: {}", batch.size(), e.toString());
+                fail(batch, e);
+            }
+        }
+    }
+
+    private void run(List<Pending<T, R>> batch) {
+        try {
+            batchSizes.accept(batch.size());
+            List<R> results = batchCall.call(batch.stream().map(Pending::item).toList());
+            if (results.size() != batch.size()) {
+                throw new IllegalStateException("Expected " + batch.size() + " results, got " + results.size());
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result().complete(results.get(i));
+            }
+        } catch (Throwable e) {
+            log.debug("Batch of {} failed: {}", batch.size(), e.toString());
+            fail(batch, e);
+        }
+    }
+
+    private void fail(List<Pending<T, R>> batch, Throwable failure) {
+        batch.forEach(pending -> pending.result().completeExceptionally(failure));
+    }
+
+    @Override
+    public void close() {
+        dispatcher.shutdownNow();
+        callers.shutdownNow();
+        Pending<T, R> pending;
+        while ((pending = waiting.poll()) != null) {
+            pending.result().completeExceptionally(new IllegalStateException("Batcher is shut down"));
+        }
+    }
+}
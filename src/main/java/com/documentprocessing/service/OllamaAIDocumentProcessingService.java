@@ -1,18 +1,24 @@
 package com.documentprocessing.service;
 
+import com.documentprocessing.exception.ModelNotFoundException;
+import com.documentprocessing.model.LicenseExtraction;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.apache.hc.client5.http.classic.methods.HttpPost;
 import org.apache.hc.client5.http.entity.EntityBuilder;
-import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
-import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.core5.http.ClassicHttpResponse;
 import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpException;
 import org.apache.hc.core5.http.io.entity.EntityUtils;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
@@ -22,32 +28,73 @@ import java.util.*;
 public class OllamaAIDocumentProcessingService {
     private static final Logger log = LoggerFactory.getLogger(OllamaAIDocumentProcessingService.class);
 
-    @Value("${ollama.api.url:http://localhost:11434}")
-    private String ollamaApiUrl;
-
     @Value("${ollama.model:llama2:7b}")
     private String ollamaModel;
 
+    @Value("${ollama.stream:true}")
+    private boolean streamResponses;
+
+    @Value("${ollama.structured-output:true}")
+    private boolean structuredOutput;
+
+    @Value("${ollama.temperature:0.1}")
+    private double temperature;
+
+    @Value("${ollama.max-tokens:1000}")
+    private int maxTokens;
+
+    private static final Map<String, Object> EXTRACTION_SCHEMA = buildExtractionSchema(LicenseExtraction.FIELDS);
+
     private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ServiceHttpClient serviceHttpClient;
+    private final OllamaModelManager modelManager;
+    private final OllamaEndpointBalancer endpointBalancer;
+    private final PipelineMetrics metrics;
+
+    public OllamaAIDocumentProcessingService(ServiceHttpClient serviceHttpClient, OllamaModelManager modelManager,
+                                             OllamaEndpointBalancer endpointBalancer, PipelineMetrics metrics) {
+        this.serviceHttpClient = serviceHttpClient;
+        this.modelManager = modelManager;
+        this.endpointBalancer = endpointBalancer;
+        this.metrics = metrics;
+    }
 
     /**
      * Extract driving license data using Ollama with Llama 2
      */
     public Map<String, Object> extractDataWithOllama(String extractedText) {
+        return extractFields(extractedText, ollamaModel, LicenseExtraction.FIELDS);
+    }
+
+    /**
+     * Extract only the given fields with the given model. The schema sent to
+     * Ollama is cut down to those fields, so the model generates less.
+     */
+    public Map<String, Object> extractFields(String extractedText, String model, List<String> fields) {
         Map<String, Object> result = new HashMap<>();
         double confidence = 0.0;
 
         try {
-            log.info("Using Ollama with model: {} for AI extraction", ollamaModel);
+            log.info("Using Ollama with model: {} for AI extraction of {} fields", model, fields.size());
 
             // Create the prompt for Llama 2
             String prompt = createExtractionPrompt(extractedText);
 
             // Call Ollama API
-            String aiResponse = callOllamaAPI(prompt);
+            long start = System.nanoTime();
+            String aiResponse;
+            try {
+                aiResponse = callOllamaAPI(prompt, model, fields);
+            } catch (Exception e) {
+                metrics.recordOllamaCall(model, false, System.nanoTime() - start);
+                throw e;
+            }
+            metrics.recordOllamaCall(model, true, System.nanoTime() - start);
+            modelManager.markUsed(model);
 
             // Parse the AI response
             Map<String, Object> extractedData = parseAIResponse(aiResponse);
+            extractedData.keySet().retainAll(fields);
 
             // Calculate confidence based on extracted fields
             confidence = calculateConfidence(extractedData);
@@ -57,7 +104,7 @@ public class OllamaAIDocumentProcessingService {
             result.put("aiProcessed", true);
             result.put("aiModel", "Ollama-Llama2");
             result.put("extractionMethod", "AI");
-            result.put("modelUsed", ollamaModel);
+            result.put("modelUsed", model);
 
             log.info("Ollama AI extraction completed with confidence: {}", confidence);
 
@@ -71,143 +118,195 @@ public class OllamaAIDocumentProcessingService {
     }
 
     /**
-     * Create a structured prompt for Llama 2 to extract driving license data
+     * Short extraction prompt; the field list and types come from the JSON schema
      */
     private String createExtractionPrompt(String extractedText) {
         return String.format("""
-            You are an AI assistant specialized in extracting structured data from driving license documents.
-            
-            Please analyze the following OCR text from a driving license and extract the information in JSON format.
-            
-            OCR Text:
+            Extract the driving license fields from this OCR text. Dates as YYYY-MM-DD, null when a field is absent.
+
+            OCR text:
             %s
-            
-            Extract the following fields and return ONLY a valid JSON object:
-            - licenseNumber: The driving license number
-            - firstName: First name of the license holder
-            - lastName: Last name of the license holder
-            - middleName: Middle name (if any)
-            - dateOfBirth: Date of birth in YYYY-MM-DD format
-            - address: Complete address
-            - city: City name
-            - state: State name
-            - zipCode: ZIP/Postal code
-            - issueDate: Issue date in YYYY-MM-DD format
-            - expiryDate: Expiry date in YYYY-MM-DD format
-            - issuingAuthority: Authority that issued the license
-            - licenseClass: License class/category
-            - restrictions: Any restrictions (if none, use "None")
-            - endorsements: Any endorsements (if none, use "None")
-            
-            If a field is not found in the text, use null for that field.
-            Return ONLY the JSON object, no additional text or explanation.
             """, extractedText);
     }
 
     /**
-     * Call the Ollama API with the given prompt
+     * JSON schema for Ollama structured output: one nullable string per license field
      */
-    private String callOllamaAPI(String prompt) throws Exception {
-        try (CloseableHttpClient httpClient = HttpClients.createDefault()) {
-            HttpPost httpPost = new HttpPost(ollamaApiUrl + "/api/generate");
-
-            // Create the request payload
-            Map<String, Object> requestPayload = new HashMap<>();
-            requestPayload.put("model", ollamaModel);
-            requestPayload.put("prompt", prompt);
-            requestPayload.put("stream", false);
-            requestPayload.put("options", Map.of(
-                "temperature", 0.1,
-                "top_p", 0.9,
-                "max_tokens", 1000
-            ));
-
-            String jsonPayload = objectMapper.writeValueAsString(requestPayload);
-            httpPost.setEntity(EntityBuilder.create()
-                .setText(jsonPayload)
-                .setContentType(ContentType.APPLICATION_JSON)
-                .build());
-
-            log.debug("Sending request to Ollama API: {}", jsonPayload);
-
-            return httpClient.execute(httpPost, response -> {
-                String responseBody = EntityUtils.toString(response.getEntity());
-                log.debug("Ollama API response: {}", responseBody);
-
-                if (response.getCode() != 200) {
-                    throw new RuntimeException("Ollama API error: " + response.getCode() + " - " + responseBody);
-                }
+    private static Map<String, Object> buildExtractionSchema(List<String> fields) {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        for (String field : fields) {
+            properties.put(field, Map.of("type", List.of("string", "null")));
+        }
 
-                JsonNode responseJson = objectMapper.readTree(responseBody);
-                return responseJson.get("response").asText();
-            });
+        Map<String, Object> schema = new LinkedHashMap<>();
+        schema.put("type", "object");
+        schema.put("properties", properties);
+        schema.put("required", fields);
+        return schema;
+    }
+
+    public String getDefaultModel() {
+        return ollamaModel;
+    }
 
+    /**
+     * Call the Ollama API with the given prompt on the least-loaded endpoint
+     */
+    private String callOllamaAPI(String prompt, String model, List<String> fields) throws Exception {
+        try (OllamaEndpointBalancer.Lease endpoint = endpointBalancer.acquire()) {
+            try {
+                String response = generate(endpoint.url(), prompt, model, fields);
+                endpoint.succeeded();
+                return response;
+            } catch (Exception e) {
+                endpoint.failed(e);
+                throw e;
+            }
         } catch (Exception e) {
             log.error("Error calling Ollama API: {}", e.getMessage(), e);
             throw new RuntimeException("Failed to call Ollama API: " + e.getMessage(), e);
         }
     }
 
+    private String generate(String baseUrl, String prompt, String model, List<String> fields) throws Exception {
+        HttpPost httpPost = new HttpPost(baseUrl + "/api/generate");
+
+        // Create the request payload
+        Map<String, Object> requestPayload = new HashMap<>();
+        requestPayload.put("model", model);
+        requestPayload.put("prompt", prompt);
+        requestPayload.put("stream", streamResponses);
+        requestPayload.put("keep_alive", modelManager.getKeepAlive());
+        Map<String, Object> schema = fields.equals(LicenseExtraction.FIELDS)
+                ? EXTRACTION_SCHEMA : buildExtractionSchema(fields);
+        requestPayload.put("format", structuredOutput ? schema : "json");
+        requestPayload.put("options", Map.of(
+            "temperature", temperature,
+            "top_p", 0.9,
+            "num_predict", maxTokens
+        ));
+
+        String jsonPayload = objectMapper.writeValueAsString(requestPayload);
+        httpPost.setEntity(EntityBuilder.create()
+            .setText(jsonPayload)
+            .setContentType(ContentType.APPLICATION_JSON)
+            .build());
+
+        log.debug("Sending request to Ollama API: {}", jsonPayload);
+
+        if (streamResponses) {
+            return serviceHttpClient.execute(ExternalService.OLLAMA, httpPost,
+                    response -> readStreamingResponse(httpPost, model, response));
+        }
+
+        return serviceHttpClient.execute(ExternalService.OLLAMA, httpPost, response -> {
+            String responseBody = EntityUtils.toString(response.getEntity());
+            log.debug("Ollama API response: {}", responseBody);
+
+            if (response.getCode() == 404) {
+                throw new ModelNotFoundException(model, responseBody);
+            }
+            if (response.getCode() != 200) {
+                throw new RuntimeException("Ollama API error: " + response.getCode() + " - " + responseBody);
+            }
+
+            JsonNode responseJson = objectMapper.readTree(responseBody);
+            return responseJson.get("response").asText();
+        });
+    }
+
     /**
-     * Parse the AI response and extract structured data
+     * Read Ollama's token stream until the top-level JSON object closes, then
+     * cancel the request so the model stops generating trailing text
      */
-    private Map<String, Object> parseAIResponse(String aiResponse) {
-        Map<String, Object> extractedData = new HashMap<>();
+    private String readStreamingResponse(HttpPost httpPost, String model, ClassicHttpResponse response)
+            throws IOException, HttpException {
+        if (response.getCode() != 200) {
+            String responseBody = EntityUtils.toString(response.getEntity());
+            if (response.getCode() == 404) {
+                throw new ModelNotFoundException(model, responseBody);
+            }
+            throw new RuntimeException("Ollama API error: " + response.getCode() + " - " + responseBody);
+        }
 
-        try {
-            // Try to extract JSON from the response
-            int jsonStart = aiResponse.indexOf("{");
-            int jsonEnd = aiResponse.lastIndexOf("}") + 1;
-            
-            if (jsonStart >= 0 && jsonEnd > jsonStart) {
-                String jsonString = aiResponse.substring(jsonStart, jsonEnd);
-                JsonNode jsonNode = objectMapper.readTree(jsonString);
-                
-                // Extract all fields
-                extractedData.put("licenseNumber", getStringValue(jsonNode, "licenseNumber"));
-                extractedData.put("firstName", getStringValue(jsonNode, "firstName"));
-                extractedData.put("lastName", getStringValue(jsonNode, "lastName"));
-                extractedData.put("middleName", getStringValue(jsonNode, "middleName"));
-                extractedData.put("dateOfBirth", parseDate(getStringValue(jsonNode, "dateOfBirth")));
-                extractedData.put("address", getStringValue(jsonNode, "address"));
-                extractedData.put("city", getStringValue(jsonNode, "city"));
-                extractedData.put("state", getStringValue(jsonNode, "state"));
-                extractedData.put("zipCode", getStringValue(jsonNode, "zipCode"));
-                extractedData.put("issueDate", parseDate(getStringValue(jsonNode, "issueDate")));
-                extractedData.put("expiryDate", parseDate(getStringValue(jsonNode, "expiryDate")));
-                extractedData.put("issuingAuthority", getStringValue(jsonNode, "issuingAuthority"));
-                extractedData.put("licenseClass", getStringValue(jsonNode, "licenseClass"));
-                extractedData.put("restrictions", getStringValue(jsonNode, "restrictions"));
-                extractedData.put("endorsements", getStringValue(jsonNode, "endorsements"));
-            } else {
-                // Fallback: try to extract using regex patterns
-                extractedData = extractUsingRegex(aiResponse);
+        JsonObjectCollector collector = new JsonObjectCollector();
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(response.getEntity().getContent(), StandardCharsets.UTF_8));
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
             }
 
+            JsonNode chunk = objectMapper.readTree(line);
+            if (chunk.hasNonNull("error")) {
+                throw new RuntimeException("Ollama API error: " + chunk.get("error").asText());
+            }
+
+            if (collector.append(chunk.path("response").asText(""))) {
+                // Dropping the connection is how Ollama is told to stop generating
+                httpPost.cancel();
+                log.debug("Ollama JSON object complete after {} chars, generation cancelled", collector.length());
+                return collector.getResult();
+            }
+
+            if (chunk.path("done").asBoolean(false)) {
+                break;
+            }
+        }
+
+        log.debug("Ollama stream finished without a complete JSON object ({} chars)", collector.length());
+        return collector.getResult();
+    }
+
+    /**
+     * Parse the schema-constrained response straight into a typed extraction
+     */
+    Map<String, Object> parseAIResponse(String aiResponse) {
+        try {
+            LicenseExtraction extraction = objectMapper.readValue(aiResponse, LicenseExtraction.class);
+            return toFieldMap(extraction);
         } catch (Exception e) {
-            log.warn("Failed to parse AI response as JSON, using regex fallback: {}", e.getMessage());
-            extractedData = extractUsingRegex(aiResponse);
+            log.warn("Ollama returned output that does not match the extraction schema: {}", e.getMessage());
+            return new HashMap<>();
         }
+    }
 
+    private Map<String, Object> toFieldMap(LicenseExtraction extraction) {
+        Map<String, Object> extractedData = new HashMap<>();
+        extractedData.put("licenseNumber", clean(extraction.licenseNumber()));
+        extractedData.put("firstName", clean(extraction.firstName()));
+        extractedData.put("lastName", clean(extraction.lastName()));
+        extractedData.put("middleName", clean(extraction.middleName()));
+        extractedData.put("dateOfBirth", parseDate(clean(extraction.dateOfBirth())));
+        extractedData.put("address", clean(extraction.address()));
+        extractedData.put("city", clean(extraction.city()));
+        extractedData.put("state", clean(extraction.state()));
+        extractedData.put("zipCode", clean(extraction.zipCode()));
+        extractedData.put("issueDate", parseDate(clean(extraction.issueDate())));
+        extractedData.put("expiryDate", parseDate(clean(extraction.expiryDate())));
+        extractedData.put("issuingAuthority", clean(extraction.issuingAuthority()));
+        extractedData.put("licenseClass", clean(extraction.licenseClass()));
+        extractedData.put("restrictions", clean(extraction.restrictions()));
+        extractedData.put("endorsements", clean(extraction.endorsements()));
         return extractedData;
     }
 
     /**
-     * Get string value from JSON node, handling null values
+     * Treat blank values and a literal "null" as missing
      */
-    private String getStringValue(JsonNode node, String fieldName) {
-        JsonNode fieldNode = node.get(fieldName);
-        if (fieldNode != null && !fieldNode.isNull()) {
-            String value = fieldNode.asText();
-            return "null".equalsIgnoreCase(value) ? null : value;
+    private String clean(String value) {
+        if (value == null || value.isBlank() || "null".equalsIgnoreCase(value.trim())) {
+            return null;
         }
-        return null;
+        return value.trim();
     }
 
     /**
      * Parse date string to LocalDate
      */
-    private LocalDate parseDate(String dateString) {
+    LocalDate parseDate(String dateString) {
         if (dateString == null || dateString.trim().isEmpty()) {
             return null;
         }
@@ -232,41 +331,6 @@ public class OllamaAIDocumentProcessingService {
         }
     }
 
-    /**
-     * Fallback extraction using regex patterns
-     */
-    private Map<String, Object> extractUsingRegex(String text) {
-        Map<String, Object> extractedData = new HashMap<>();
-        
-        // Simple regex patterns for fallback
-        extractedData.put("licenseNumber", extractPattern(text, "license.*?number.*?[:\\s]*(\\w+)", "license.*?[:\\s]*(\\w+)"));
-        extractedData.put("firstName", extractPattern(text, "name.*?[:\\s]*([A-Z]+)", "first.*?name.*?[:\\s]*([A-Z]+)"));
-        extractedData.put("lastName", extractPattern(text, "last.*?name.*?[:\\s]*([A-Z]+)", "surname.*?[:\\s]*([A-Z]+)"));
-        extractedData.put("dateOfBirth", extractPattern(text, "birth.*?[:\\s]*(\\d{1,2}[-/]\\d{1,2}[-/]\\d{2,4})", "dob.*?[:\\s]*(\\d{1,2}[-/]\\d{1,2}[-/]\\d{2,4})"));
-        extractedData.put("address", extractPattern(text, "address.*?[:\\s]*(.+?)(?=\\n|$)", "addr.*?[:\\s]*(.+?)(?=\\n|$)"));
-        
-        return extractedData;
-    }
-
-    /**
-     * Extract value using multiple regex patterns
-     */
-    private String extractPattern(String text, String... patterns) {
-        for (String pattern : patterns) {
-            try {
-                java.util.regex.Pattern p = java.util.regex.Pattern.compile(pattern, java.util.regex.Pattern.CASE_INSENSITIVE);
-                java.util.regex.Matcher m = p.matcher(text);
-                if (m.find()) {
-                    String result = m.group(1);
-                    return result != null ? result.trim() : null;
-                }
-            } catch (Exception e) {
-                log.debug("Regex pattern failed: {}", pattern);
-            }
-        }
-        return null;
-    }
-
     /**
      * Calculate confidence score based on extracted fields
      */
@@ -0,0 +1,270 @@
+package com.documentprocessing.service;
+
+import com.documentprocessing.exception.DependencyUnavailableException;
+import com.documentprocessing.exception.ModelNotFoundException;
+import jakarta.annotation.PostConstruct;
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.util.Timeout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Spreads Ollama calls over the endpoints in ollama.api.urls. Each call goes
+ * to the healthy endpoint with the fewest requests in flight, ties rotating,
+ * so a slow host naturally receives less work. An endpoint is drained after
+ * failure-threshold consecutive failures and comes back once its health
+ * check passes again; an endpoint whose circuit breaker is open is skipped
+ * until the breaker lets calls through. If every endpoint is out, calls are
+ * still spread over all of them and the circuit breakers decide.
+ */
+@Component
+public class OllamaEndpointBalancer {
+    private static final Logger log = LoggerFactory.getLogger(OllamaEndpointBalancer.class);
+    private static final double LATENCY_ALPHA = 0.2;
+
+    @Value("${ollama.endpoints.failure-threshold:3}")
+    private int failureThreshold;
+
+    @Value("${ollama.endpoints.health-check-timeout-ms:2000}")
+    private long healthCheckTimeoutMs;
+
+    private final ServiceHttpClient serviceHttpClient;
+    private final ExternalServiceGuard guard;
+    private final PipelineMetrics metrics;
+    private final AtomicInteger rotation = new AtomicInteger();
+    private List<Endpoint> endpoints;
+
+    public OllamaEndpointBalancer(ServiceHttpClient serviceHttpClient, ExternalServiceGuard guard,
+                                  PipelineMetrics metrics) {
+        this.serviceHttpClient = serviceHttpClient;
+        this.guard = guard;
+        this.metrics = metrics;
+    }
+
+    @PostConstruct
+    void init() {
+        List<Endpoint> configured = new ArrayList<>();
+        for (String url : serviceHttpClient.baseUrls(ExternalService.OLLAMA)) {
+            configured.add(new Endpoint(url));
+        }
+        endpoints = List.copyOf(configured);
+        log.info("Balancing Ollama calls over {} endpoint(s): {}", endpoints.size(),
+                serviceHttpClient.baseUrls(ExternalService.OLLAMA));
+    }
+
+    /**
+     * Reserve the least-loaded endpoint for one call. Close the lease when
+     * the call is over, after reporting its outcome.
+     */
+    public Lease acquire() {
+        Endpoint endpoint = leastOutstanding(true);
+        if (endpoint == null) {
+            endpoint = leastOutstanding(false);
+        }
+        endpoint.outstanding.incrementAndGet();
+        return new Lease(endpoint);
+    }
+
+    private Endpoint leastOutstanding(boolean availableOnly) {
+        int count = endpoints.size();
+        int offset = Math.floorMod(rotation.getAndIncrement(), count);
+        Endpoint best = null;
+        for (int i = 0; i < count; i++) {
+            Endpoint candidate = endpoints.get((offset + i) % count);
+            if (availableOnly && !isAvailable(candidate)) {
+                continue;
+            }
+            if (best == null || candidate.outstanding.get() < best.outstanding.get()) {
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    private boolean isAvailable(Endpoint endpoint) {
+        return endpoint.healthy && guard.isAvailable(ExternalService.OLLAMA, endpoint.url);
+    }
+
+    /**
+     * Probe every endpoint; drained endpoints that answer are put back in rotation
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${ollama.endpoints.health-check-interval-ms:10000}")
+    void checkHealth() {
+        for (Endpoint endpoint : endpoints) {
+            boolean healthy;
+            try {
+                HttpGet get = new HttpGet(endpoint.url + "/api/version");
+                get.setConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(healthCheckTimeoutMs))
+                        .setResponseTimeout(Timeout.ofMilliseconds(healthCheckTimeoutMs))
+                        .build());
+                healthy = serviceHttpClient.probe(get, response -> {
+                    EntityUtils.consume(response.getEntity());
+                    return response.getCode() == 200;
+                });
+                endpoint.lastError = healthy ? null : "health check returned non-200";
+            } catch (Exception e) {
+                healthy = false;
+                endpoint.lastError = e.getMessage();
+            }
+            endpoint.lastCheckedAt = Instant.now();
+
+            if (healthy) {
+                endpoint.consecutiveFailures.set(0);
+                if (!endpoint.healthy) {
+                    log.info("Ollama endpoint {} passed its health check, back in rotation", endpoint.url);
+                }
+                endpoint.healthy = true;
+            } else {
+                drain(endpoint, "health check failed: " + endpoint.lastError);
+            }
+        }
+    }
+
+    private void drain(Endpoint endpoint, String reason) {
+        if (endpoint.healthy) {
+            log.warn("Draining Ollama endpoint {}: {}", endpoint.url, reason);
+        }
+        endpoint.healthy = false;
+    }
+
+    /**
+     * Rejections by the guard happen before any endpoint is contacted, so
+     * they say nothing about the endpoint; its own timeouts do. Neither does
+     * a 404 for a model the host has not pulled.
+     */
+    static boolean isEndpointFailure(Throwable failure) {
+        if (failure instanceof ModelNotFoundException) {
+            return false;
+        }
+        return !(failure instanceof DependencyUnavailableException) || failure.getCause() != null;
+    }
+
+    public int getEndpointCount() {
+        return endpoints.size();
+    }
+
+    public int getHealthyCount() {
+        return (int) endpoints.stream().filter(endpoint -> endpoint.healthy).count();
+    }
+
+    public int getOutstanding(String url) {
+        for (Endpoint endpoint : endpoints) {
+            if (endpoint.url.equals(url)) {
+                return endpoint.outstanding.get();
+            }
+        }
+        return 0;
+    }
+
+    public boolean isHealthy(String url) {
+        return endpoints.stream().anyMatch(endpoint -> endpoint.url.equals(url) && endpoint.healthy);
+    }
+
+    public List<String> getUrls() {
+        return endpoints.stream().map(endpoint -> endpoint.url).toList();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("endpoints", endpoints.size());
+        stats.put("healthy", getHealthyCount());
+        Map<String, Object> perEndpoint = new LinkedHashMap<>();
+        for (Endpoint endpoint : endpoints) {
+            Map<String, Object> endpointStats = new LinkedHashMap<>();
+            endpointStats.put("healthy", endpoint.healthy);
+            endpointStats.put("circuitOpen", !guard.isAvailable(ExternalService.OLLAMA, endpoint.url));
+            endpointStats.put("outstanding", endpoint.outstanding.get());
+            endpointStats.put("requests", endpoint.requests.get());
+            endpointStats.put("failures", endpoint.failures.get());
+            endpointStats.put("latencyEwmaMs", endpoint.latencyEwmaNanos / 1_000_000.0);
+            endpointStats.put("lastChecked", endpoint.lastCheckedAt != null ? endpoint.lastCheckedAt.toString() : null);
+            if (endpoint.lastError != null) {
+                endpointStats.put("lastError", endpoint.lastError);
+            }
+            perEndpoint.put(endpoint.url, endpointStats);
+        }
+        stats.put("perEndpoint", perEndpoint);
+        return stats;
+    }
+
+    private static final class Endpoint {
+        private final String url;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+        private final AtomicLong requests = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private volatile boolean healthy = true;
+        private volatile double latencyEwmaNanos;
+        private volatile Instant lastCheckedAt;
+        private volatile String lastError;
+
+        private Endpoint(String url) {
+            this.url = url;
+        }
+
+        private synchronized void recordLatency(long nanos) {
+            latencyEwmaNanos = latencyEwmaNanos == 0 ? nanos
+                    : LATENCY_ALPHA * nanos + (1 - LATENCY_ALPHA) * latencyEwmaNanos;
+        }
+    }
+
+    /**
+     * One call's hold on an endpoint
+     */
+    public final class Lease implements AutoCloseable {
+        private final Endpoint endpoint;
+        private final long startNanos = System.nanoTime();
+        private boolean closed;
+
+        private Lease(Endpoint endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        public String url() {
+            return endpoint.url;
+        }
+
+        public void succeeded() {
+            long elapsed = System.nanoTime() - startNanos;
+            endpoint.requests.incrementAndGet();
+            endpoint.consecutiveFailures.set(0);
+            endpoint.recordLatency(elapsed);
+            metrics.recordOllamaEndpointCall(endpoint.url, true, elapsed);
+        }
+
+        public void failed(Throwable failure) {
+            endpoint.requests.incrementAndGet();
+            if (!isEndpointFailure(failure)) {
+                return;
+            }
+            endpoint.failures.incrementAndGet();
+            endpoint.lastError = failure.getMessage();
+            metrics.recordOllamaEndpointCall(endpoint.url, false, System.nanoTime() - startNanos);
+            if (endpoint.consecutiveFailures.incrementAndGet() >= failureThreshold) {
+                drain(endpoint, failureThreshold + " consecutive failures, last: " + failure.getMessage());
+            }
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                endpoint.outstanding.decrementAndGet();
+            }
+        }
+    }
+}
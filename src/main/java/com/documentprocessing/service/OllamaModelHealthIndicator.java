@@ -0,0 +1,25 @@
+package com.documentprocessing.service;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports whether the Ollama model is resident. Included in the readiness
+ * group so load balancers only route to nodes with a warm model.
+ */
+@Component
+public class OllamaModelHealthIndicator implements HealthIndicator {
+
+    private final OllamaModelManager modelManager;
+
+    public OllamaModelHealthIndicator(OllamaModelManager modelManager) {
+        this.modelManager = modelManager;
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder builder = modelManager.isModelLoaded() ? Health.up() : Health.outOfService();
+        return builder.withDetails(modelManager.getStatus()).build();
+    }
+}
@@ -0,0 +1,209 @@
+package com.documentprocessing.service;
+
+import com.documentprocessing.exception.ModelNotFoundException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.classic.methods.HttpPost;
+import org.apache.hc.client5.http.entity.EntityBuilder;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the configured Ollama model resident. Preloads it at startup, sends
+ * keep_alive with every generation, pings it during idle periods so Ollama
+ * never unloads it, and tracks whether it is currently loaded for the
+ * readiness probe. With several Ollama endpoints this is done on each, and
+ * the model counts as loaded while any endpoint has it resident. The
+ * cascade's small model, when one is configured, is preloaded and kept warm
+ * the same way but does not affect readiness.
+ */
+@Component
+public class OllamaModelManager {
+    private static final Logger log = LoggerFactory.getLogger(OllamaModelManager.class);
+
+    @Value("${ollama.model:llama2:7b}")
+    private String ollamaModel;
+
+    @Value("${ollama.small-model:}")
+    private String smallModel;
+
+    @Value("${ollama.keep-alive:30m}")
+    private String keepAlive;
+
+    @Value("${ollama.keep-warm-interval-ms:240000}")
+    private long keepWarmIntervalMs;
+
+    private final ServiceHttpClient serviceHttpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private volatile boolean modelLoaded;
+    private volatile List<String> loadedOn = List.of();
+    private volatile long lastUsedMillis;
+    private volatile long smallModelLastUsedMillis;
+    private volatile Instant lastCheckedAt;
+    private volatile String lastError;
+
+    public OllamaModelManager(ServiceHttpClient serviceHttpClient) {
+        this.serviceHttpClient = serviceHttpClient;
+    }
+
+    /**
+     * keep_alive value to send with every request to Ollama
+     */
+    public String getKeepAlive() {
+        return keepAlive;
+    }
+
+    /**
+     * Record that a model just answered a request, which for the configured
+     * model also proves it is loaded
+     */
+    public void markUsed(String model) {
+        if (model.equals(ollamaModel)) {
+            lastUsedMillis = System.currentTimeMillis();
+            modelLoaded = true;
+        } else if (model.equals(smallModel)) {
+            smallModelLastUsedMillis = System.currentTimeMillis();
+        }
+    }
+
+    private boolean hasSmallModel() {
+        return smallModel != null && !smallModel.isBlank() && !smallModel.equals(ollamaModel);
+    }
+
+    public boolean isModelLoaded() {
+        return modelLoaded;
+    }
+
+    /**
+     * Runs once at startup (preload) and then periodically. Only pings the model
+     * when nothing has used it for a full interval.
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${ollama.keep-warm-interval-ms:240000}")
+    void keepWarm() {
+        long now = System.currentTimeMillis();
+        if (!modelLoaded || now - lastUsedMillis >= keepWarmIntervalMs) {
+            if (preloadModel(ollamaModel)) {
+                markUsed(ollamaModel);
+                lastError = null;
+            } else {
+                modelLoaded = false;
+            }
+        }
+        if (hasSmallModel() && now - smallModelLastUsedMillis >= keepWarmIntervalMs && preloadModel(smallModel)) {
+            markUsed(smallModel);
+        }
+        refreshLoadedState();
+    }
+
+    /**
+     * True when the model is warm on at least one endpoint
+     */
+    private boolean preloadModel(String model) {
+        boolean warmed = false;
+        for (String baseUrl : serviceHttpClient.baseUrls(ExternalService.OLLAMA)) {
+            warmed |= preloadModel(baseUrl, model);
+        }
+        return warmed;
+    }
+
+    private boolean preloadModel(String baseUrl, String model) {
+        try {
+            HttpPost post = new HttpPost(baseUrl + "/api/generate");
+
+            // A generate request without a prompt just loads the model and resets its expiry
+            Map<String, Object> payload = new LinkedHashMap<>();
+            payload.put("model", model);
+            payload.put("keep_alive", keepAlive);
+            payload.put("stream", false);
+            post.setEntity(EntityBuilder.create()
+                    .setText(objectMapper.writeValueAsString(payload))
+                    .setContentType(ContentType.APPLICATION_JSON)
+                    .build());
+
+            long start = System.currentTimeMillis();
+            serviceHttpClient.execute(ExternalService.OLLAMA, post, response -> {
+                String body = EntityUtils.toString(response.getEntity());
+                if (response.getCode() == 404) {
+                    throw new ModelNotFoundException(model, body);
+                }
+                if (response.getCode() != 200) {
+                    throw new RuntimeException("Ollama API error: " + response.getCode() + " - " + body);
+                }
+                return body;
+            });
+
+            log.info("Ollama model {} warm on {} ({} ms)", model, baseUrl, System.currentTimeMillis() - start);
+            return true;
+        } catch (Exception e) {
+            lastError = e.getMessage();
+            log.warn("Could not preload Ollama model {} on {}: {}", model, baseUrl, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Ask Ollama which models are resident, since it may unload ours on its own
+     */
+    private void refreshLoadedState() {
+        List<String> loaded = new ArrayList<>();
+        for (String baseUrl : serviceHttpClient.baseUrls(ExternalService.OLLAMA)) {
+            if (isLoadedOn(baseUrl)) {
+                loaded.add(baseUrl);
+            }
+        }
+        loadedOn = List.copyOf(loaded);
+        modelLoaded = !loaded.isEmpty();
+        lastCheckedAt = Instant.now();
+    }
+
+    private boolean isLoadedOn(String baseUrl) {
+        try {
+            HttpGet get = new HttpGet(baseUrl + "/api/ps");
+            JsonNode running = serviceHttpClient.execute(ExternalService.OLLAMA, get,
+                    response -> objectMapper.readTree(EntityUtils.toString(response.getEntity())));
+
+            for (JsonNode model : running.path("models")) {
+                if (ollamaModel.equals(model.path("name").asText()) || ollamaModel.equals(model.path("model").asText())) {
+                    return true;
+                }
+            }
+            return false;
+        } catch (Exception e) {
+            lastError = e.getMessage();
+            log.debug("Could not query Ollama running models on {}: {}", baseUrl, e.getMessage());
+            return false;
+        }
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("model", ollamaModel);
+        if (hasSmallModel()) {
+            status.put("smallModel", smallModel);
+            status.put("smallModelLastUsed", smallModelLastUsedMillis > 0
+                    ? Instant.ofEpochMilli(smallModelLastUsedMillis).toString() : null);
+        }
+        status.put("loaded", modelLoaded);
+        status.put("loadedOn", loadedOn);
+        status.put("keepAlive", keepAlive);
+        status.put("lastUsed", lastUsedMillis > 0 ? Instant.ofEpochMilli(lastUsedMillis).toString() : null);
+        status.put("lastChecked", lastCheckedAt != null ? lastCheckedAt.toString() : null);
+        if (lastError != null) {
+            status.put("lastError", lastError);
+        }
+        return status;
+    }
+}
@@ -0,0 +1,112 @@
+package com.documentprocessing.service;
+
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Queue and pool depth gauges, sampled on every scrape, plus the circuit
+ * breaker and bulkhead state of each microservice
+ */
+@Component
+public class PipelineGauges implements MeterBinder {
+
+    private final TesseractPool tesseractPool;
+    private final DocumentJobService documentJobService;
+    private final BatchProcessingService batchProcessingService;
+    private final DocumentResultCache resultCache;
+    private final ServiceHttpClient serviceHttpClient;
+    private final DocumentProcessingService documentProcessingService;
+    private final ExternalServiceGuard guard;
+    private final AdmissionControl admissionControl;
+    private final OllamaEndpointBalancer ollamaEndpoints;
+
+    public PipelineGauges(TesseractPool tesseractPool, DocumentJobService documentJobService,
+                          BatchProcessingService batchProcessingService, DocumentResultCache resultCache,
+                          ServiceHttpClient serviceHttpClient, DocumentProcessingService documentProcessingService,
+                          ExternalServiceGuard guard, AdmissionControl admissionControl,
+                          OllamaEndpointBalancer ollamaEndpoints) {
+        this.tesseractPool = tesseractPool;
+        this.documentJobService = documentJobService;
+        this.batchProcessingService = batchProcessingService;
+        this.resultCache = resultCache;
+        this.serviceHttpClient = serviceHttpClient;
+        this.documentProcessingService = documentProcessingService;
+        this.guard = guard;
+        this.admissionControl = admissionControl;
+        this.ollamaEndpoints = ollamaEndpoints;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("ocr.pool.size", tesseractPool, TesseractPool::getSize)
+                .description("Tesseract engines in the pool")
+                .register(registry);
+        Gauge.builder("ocr.pool.in.use", tesseractPool, TesseractPool::getInUse)
+                .description("Tesseract engines currently checked out")
+                .register(registry);
+
+        Gauge.builder("document.jobs.queue.depth", documentJobService, DocumentJobService::getQueueDepth)
+                .description("Async jobs waiting for a worker")
+                .register(registry);
+        Gauge.builder("document.jobs.active", documentJobService, DocumentJobService::getActiveWorkers)
+                .description("Async job workers currently processing a document")
+                .register(registry);
+
+        Gauge.builder("document.batch.in.flight", batchProcessingService, BatchProcessingService::getInFlight)
+                .description("Batch entries currently being processed")
+                .register(registry);
+
+        Gauge.builder("document.pipeline.in.flight", documentProcessingService,
+                        DocumentProcessingService::getInFlightDocumentCount)
+                .description("Distinct documents currently in the pipeline")
+                .register(registry);
+
+        Gauge.builder("document.result.cache.size", resultCache, DocumentResultCache::size)
+                .description("Entries in the document result cache")
+                .register(registry);
+
+        for (ExternalService service : ExternalService.values()) {
+            Gauge.builder("http.client.pool.leased", serviceHttpClient,
+                            client -> client.getPoolStats(service).getLeased())
+                    .description("Connections leased to in-flight microservice calls")
+                    .tag("service", service.getKey())
+                    .register(registry);
+            Gauge.builder("http.client.pool.pending", serviceHttpClient,
+                            client -> client.getPoolStats(service).getPending())
+                    .description("Calls waiting for a pooled connection")
+                    .tag("service", service.getKey())
+                    .register(registry);
+        }
+
+        for (AdmissionControl.WorkClass workClass : AdmissionControl.WorkClass.values()) {
+            String tag = workClass.name().toLowerCase();
+            Gauge.builder("admission.in.flight", admissionControl, admission -> admission.getInFlight(workClass))
+                    .description("Admitted uploads currently running the pipeline")
+                    .tag("class", tag)
+                    .register(registry);
+            Gauge.builder("admission.queued", admissionControl, admission -> admission.getQueued(workClass))
+                    .description("Uploads waiting for a pipeline slot")
+                    .tag("class", tag)
+                    .register(registry);
+        }
+
+        for (String url : ollamaEndpoints.getUrls()) {
+            Gauge.builder("ollama.endpoint.outstanding", ollamaEndpoints, balancer -> balancer.getOutstanding(url))
+                    .description("Ollama calls in flight on this endpoint")
+                    .tag("endpoint", url)
+                    .register(registry);
+            Gauge.builder("ollama.endpoint.healthy", ollamaEndpoints, balancer -> balancer.isHealthy(url) ? 1 : 0)
+                    .description("1 while the endpoint is in rotation, 0 while drained")
+                    .tag("endpoint", url)
+                    .register(registry);
+        }
+
+        // resilience4j_circuitbreaker_state{name, state}, call counts and failure rates
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(guard.getCircuitBreakerRegistry()).bindTo(registry);
+        TaggedBulkheadMetrics.ofBulkheadRegistry(guard.getBulkheadRegistry()).bindTo(registry);
+    }
+}
@@ -0,0 +1,209 @@
+package com.documentprocessing.service;
+
+import com.documentprocessing.model.DrivingLicense;
+import com.documentprocessing.model.ProcessingStage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Micrometer timers and counters for the document pipeline. Stage and
+ * document latencies are published as histograms so Prometheus can compute
+ * percentiles across instances.
+ */
+@Component
+public class PipelineMetrics {
+
+    public static final String HANDWRITING_UNKNOWN = "unknown";
+    public static final String HANDWRITING_NOT_APPLICABLE = "n/a";
+
+    private final MeterRegistry registry;
+
+    public PipelineMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Latency of one pipeline stage; outcome is "success" or "error"
+     */
+    public void recordStage(ProcessingStage stage, String fileType, String handwriting, boolean success, long nanos) {
+        Timer.builder("document.stage.duration")
+                .description("Time spent in one document processing stage")
+                .tag("stage", stage.name())
+                .tag("fileType", fileType)
+                .tag("handwriting", handwriting)
+                .tag("outcome", success ? "success" : "error")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofMinutes(5))
+                .register(registry)
+                .record(Duration.ofNanos(nanos));
+    }
+
+    /**
+     * End-to-end latency and outcome of one pipeline run. A null status means
+     * the run threw before a record was saved.
+     */
+    public void recordDocument(String fileType, String handwriting, DrivingLicense.ProcessingStatus status, long nanos) {
+        String outcome = status != null ? status.name() : "ERROR";
+
+        Timer.builder("document.processing.duration")
+                .description("End-to-end time to process one document")
+                .tag("fileType", fileType)
+                .tag("handwriting", handwriting)
+                .tag("status", outcome)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(10))
+                .maximumExpectedValue(Duration.ofMinutes(10))
+                .register(registry)
+                .record(Duration.ofNanos(nanos));
+
+        Counter.builder("document.outcomes")
+                .description("Processed documents by final status")
+                .tag("fileType", fileType)
+                .tag("status", outcome)
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * Latency of one Ollama generate call, so the LLM share of field
+     * extraction is visible per model
+     */
+    public void recordOllamaCall(String model, boolean success, long nanos) {
+        Timer.builder("ollama.generate.duration")
+                .description("Time for one Ollama generate call")
+                .tag("model", model)
+                .tag("outcome", success ? "success" : "error")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(10))
+                .maximumExpectedValue(Duration.ofMinutes(5))
+                .register(registry)
+                .record(Duration.ofNanos(nanos));
+    }
+
+    /**
+     * Latency of one Ollama call on one endpoint, so a slow model host stands out
+     */
+    public void recordOllamaEndpointCall(String endpoint, boolean success, long nanos) {
+        Timer.builder("ollama.endpoint.duration")
+                .description("Time for one Ollama call by endpoint")
+                .tag("endpoint", endpoint)
+                .tag("outcome", success ? "success" : "error")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(10))
+                .maximumExpectedValue(Duration.ofMinutes(5))
+                .register(registry)
+                .record(Duration.ofNanos(nanos));
+    }
+
+    /**
+     * Images sent together in one call to the TrOCR service's batch endpoint
+     */
+    public void recordTrOcrBatch(int size) {
+        DistributionSummary.builder("trocr.batch.size")
+                .description("Handwritten images sent together to the TrOCR service")
+                .register(registry)
+                .record(size);
+    }
+
+    /**
+     * One batch of the in-process TrOCR engine: how many images it decoded
+     * together and how long it took
+     */
+    public void recordLocalTrOcrBatch(int size, long nanos) {
+        DistributionSummary.builder("trocr.local.batch.size")
+                .description("Handwritten images decoded together by the in-process TrOCR engine")
+                .register(registry)
+                .record(size);
+        Timer.builder("trocr.local.batch.duration")
+                .description("Time to decode one batch with the in-process TrOCR engine")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(10))
+                .maximumExpectedValue(Duration.ofMinutes(2))
+                .register(registry)
+                .record(Duration.ofNanos(nanos));
+    }
+
+    /**
+     * A pipeline step used its fallback because the service was unavailable
+     */
+    public void recordFallback(ExternalService service) {
+        Counter.builder("dependency.fallbacks")
+                .description("Calls answered by a fallback instead of the microservice")
+                .tag("service", service.getKey())
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * An upload was shed by admission control
+     */
+    public void recordAdmissionRejected(AdmissionControl.WorkClass workClass) {
+        Counter.builder("admission.rejections")
+                .description("Uploads rejected with 429 because their work class was saturated")
+                .tag("class", workClass.name().toLowerCase())
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * Time spent preparing an image for Tesseract
+     */
+    public void recordPreprocessing(long nanos) {
+        Timer.builder("ocr.preprocess.duration")
+                .description("Grayscale, downscale, binarization and deskew before Tesseract")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(10))
+                .register(registry)
+                .record(Duration.ofNanos(nanos));
+    }
+
+    /**
+     * Outcome of a speculative Tesseract run and, when used, the latency it
+     * saved against starting OCR after handwriting detection
+     */
+    public void recordSpeculativeOcr(boolean used, long savedNanos) {
+        Counter.builder("ocr.speculation")
+                .description("Speculative Tesseract runs by whether their result was used")
+                .tag("outcome", used ? "used" : "cancelled")
+                .register(registry)
+                .increment();
+        if (used) {
+            Timer.builder("ocr.speculation.saved")
+                    .description("Latency saved by starting Tesseract alongside handwriting detection")
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofMillis(1))
+                    .maximumExpectedValue(Duration.ofMinutes(1))
+                    .register(registry)
+                    .record(Duration.ofNanos(savedNanos));
+        }
+    }
+
+    /**
+     * Which engine a dual-OCR run picked, and why
+     */
+    public void recordHedgedOcr(HedgedOcr.Engine engine, HedgedOcr.Reason reason) {
+        Counter.builder("ocr.hedge")
+                .description("Dual Tesseract/TrOCR runs on ambiguous images by winning engine")
+                .tag("engine", engine.name().toLowerCase())
+                .tag("reason", reason.name().toLowerCase())
+                .register(registry)
+                .increment();
+    }
+
+    public static String handwritingTag(String fileType, Boolean handwritten) {
+        if (!"IMAGE".equals(fileType)) {
+            return HANDWRITING_NOT_APPLICABLE;
+        }
+        if (handwritten == null) {
+            return HANDWRITING_UNKNOWN;
+        }
+        return handwritten ? "handwritten" : "printed";
+    }
+}
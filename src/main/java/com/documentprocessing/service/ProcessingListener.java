@@ -0,0 +1,30 @@
+package com.documentprocessing.service;
+
+import com.documentprocessing.model.ProcessingStage;
+
+/**
+ * Receives stage-by-stage progress from DocumentProcessingService
+ */
+public interface ProcessingListener {
+
+    ProcessingListener NONE = new ProcessingListener() {};
+
+    default void stageStarted(ProcessingStage stage) {}
+
+    /**
+     * A stage has finished; success is false when it threw
+     */
+    default void stageCompleted(ProcessingStage stage, long elapsedMillis, boolean success) {}
+
+    /**
+     * An image has been classified, before OCR starts. May throw to abort the run.
+     */
+    default void handwritingDetected(boolean handwritten) {}
+
+    /**
+     * Tesseract started alongside handwriting detection was used, or
+     * cancelled because the image was handwritten. savedMillis is the
+     * latency it took off the run.
+     */
+    default void speculativeOcrCompleted(boolean used, long savedMillis) {}
+}
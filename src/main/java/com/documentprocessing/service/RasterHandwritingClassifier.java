@@ -0,0 +1,172 @@
+package com.documentprocessing.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.awt.color.ColorSpace;
+import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
+
+/**
+ * In-process version of the detector service's edge-density/variance
+ * heuristic: an image is handwritten when both the mean horizontal plus
+ * vertical gradient and the grey-level variance exceed their thresholds.
+ * Works on a flat byte array of grey levels with plain primitive loops, so
+ * C2 can vectorise them, and allocates nothing per pixel. Differences are
+ * taken as absolute values; numpy's uint8 diff in the Python version wraps
+ * around instead, so its numbers are not directly comparable.
+ *
+ * Both features depend on resolution, the edge density most: point
+ * subsampling sharpens edges, so the same card measures higher the coarser
+ * it is decoded. Images are therefore decoded subsampled to no less than the
+ * analysis edge and area-averaged down to exactly that size on the shorter
+ * edge; smaller images are analysed as they are. The thresholds hold at the
+ * 700 px default.
+ *
+ * The reported confidence is on the remote detector's scale, where below 0.5
+ * means handwritten: 0.5 divided by the smaller of the two feature/threshold
+ * ratios, capped at 1.
+ */
+@Component
+public class RasterHandwritingClassifier implements HandwritingClassifier {
+    private static final Logger log = LoggerFactory.getLogger(RasterHandwritingClassifier.class);
+
+    private final ImagePreprocessor preprocessor;
+    private final double edgeThreshold;
+    private final double varianceThreshold;
+    private final int analysisEdge;
+
+    public RasterHandwritingClassifier(ImagePreprocessor preprocessor,
+                                       @Value("${app.handwriting.raster.edge-threshold:20}") double edgeThreshold,
+                                       @Value("${app.handwriting.raster.variance-threshold:1000}") double varianceThreshold,
+                                       @Value("${app.handwriting.raster.analysis-edge:700}") int analysisEdge) {
+        this.preprocessor = preprocessor;
+        this.edgeThreshold = edgeThreshold;
+        this.varianceThreshold = varianceThreshold;
+        this.analysisEdge = analysisEdge;
+    }
+
+    public record Features(double edgeDensity, double variance) {}
+
+    @Override
+    public String getName() {
+        return "raster";
+    }
+
+    @Override
+    public HandwritingDetection classify(byte[] imageBytes) {
+        try {
+            BufferedImage image = preprocessor.read(imageBytes, analysisEdge);
+            if (image == null) {
+                log.warn("Handwriting classification failed: unsupported image format");
+                return HandwritingDetection.failed();
+            }
+            return classify(image);
+        } catch (Exception e) {
+            log.error("Handwriting classification failed: {}", e.getMessage());
+            return HandwritingDetection.failed();
+        }
+    }
+
+    public HandwritingDetection classify(BufferedImage image) {
+        Features features = analyse(image);
+        double ratio = Math.min(features.edgeDensity() / edgeThreshold, features.variance() / varianceThreshold);
+        boolean handwritten = ratio > 1.0;
+        double confidence = ratio <= 0.5 ? 1.0 : 0.5 / ratio;
+        return HandwritingDetection.of(handwritten, confidence);
+    }
+
+    /**
+     * The features at the analysis size
+     */
+    public Features analyse(BufferedImage image) {
+        ImagePreprocessor.Gray gray = new ImagePreprocessor.Gray(toGray(image), image.getWidth(), image.getHeight());
+        int shorter = Math.min(gray.width(), gray.height());
+        if (shorter > analysisEdge) {
+            double scale = (double) analysisEdge / shorter;
+            gray = preprocessor.downscale(gray, Math.max(1, (int) Math.round(gray.width() * scale)),
+                    Math.max(1, (int) Math.round(gray.height() * scale)));
+        }
+        return features(gray.pixels(), gray.width(), gray.height());
+    }
+
+    /**
+     * The features at the image's own resolution
+     */
+    public static Features features(BufferedImage image) {
+        return features(toGray(image), image.getWidth(), image.getHeight());
+    }
+
+    static Features features(byte[] gray, int width, int height) {
+        long sum = 0;
+        long sumOfSquares = 0;
+        for (int i = 0; i < gray.length; i++) {
+            int value = gray[i] & 0xFF;
+            sum += value;
+            sumOfSquares += value * value;
+        }
+        double mean = (double) sum / gray.length;
+        double variance = (double) sumOfSquares / gray.length - mean * mean;
+
+        if (width < 2 || height < 2) {
+            return new Features(0.0, variance);
+        }
+
+        // Same crop as the Python version: both gradients over (height - 1) x (width - 1)
+        long edgeSum = 0;
+        for (int y = 0; y < height - 1; y++) {
+            int row = y * width;
+            int below = row + width;
+            int rowSum = 0;
+            for (int x = 0; x < width - 1; x++) {
+                int value = gray[row + x] & 0xFF;
+                rowSum += Math.abs((gray[row + x + 1] & 0xFF) - value) + Math.abs((gray[below + x] & 0xFF) - value);
+            }
+            edgeSum += rowSum;
+        }
+        double edgeDensity = (double) edgeSum / ((long) (width - 1) * (height - 1));
+        return new Features(edgeDensity, variance);
+    }
+
+    /**
+     * Grey levels, row-major. 8-bit grey images are copied as they are;
+     * anything else (palette images included) is converted with the ITU-R 601
+     * weights PIL uses for "L".
+     */
+    static byte[] toGray(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        byte[] gray = new byte[width * height];
+        int[] row = new int[width];
+
+        WritableRaster raster = image.getRaster();
+        boolean eightBitGray = raster.getNumBands() == 1
+                && raster.getSampleModel().getSampleSize(0) == 8
+                && image.getColorModel().getColorSpace().getType() == ColorSpace.TYPE_GRAY;
+        if (eightBitGray) {
+            for (int y = 0; y < height; y++) {
+                raster.getSamples(0, y, width, 1, 0, row);
+                int offset = y * width;
+                for (int x = 0; x < width; x++) {
+                    gray[offset + x] = (byte) row[x];
+                }
+            }
+            return gray;
+        }
+
+        for (int y = 0; y < height; y++) {
+            image.getRGB(0, y, width, 1, row, 0, width);
+            int offset = y * width;
+            for (int x = 0; x < width; x++) {
+                int rgb = row[x];
+                int red = (rgb >> 16) & 0xFF;
+                int green = (rgb >> 8) & 0xFF;
+                int blue = rgb & 0xFF;
+                gray[offset + x] = (byte) ((red * 19595 + green * 38470 + blue * 7471 + 0x8000) >> 16);
+            }
+        }
+        return gray;
+    }
+}
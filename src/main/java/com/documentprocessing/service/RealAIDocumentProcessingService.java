@@ -1,5 +1,6 @@
 package com.documentprocessing.service;
 
+import com.documentprocessing.model.LicenseExtraction;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
@@ -22,6 +23,7 @@ import java.util.regex.Pattern;
 @Service
 public class RealAIDocumentProcessingService {
     private static final Logger log = LoggerFactory.getLogger(RealAIDocumentProcessingService.class);
+    private static final Pattern JSON_OBJECT = Pattern.compile("\\{.*\\}", Pattern.DOTALL);
 
     @Value("${openai.api.key:}")
     private String openaiApiKey;
@@ -31,6 +33,11 @@ public class RealAIDocumentProcessingService {
 
     private final ObjectMapper objectMapper = new ObjectMapper();
     private final HttpClient httpClient = HttpClient.newHttpClient();
+    private final LicenseFieldRuleEngine ruleEngine;
+
+    public RealAIDocumentProcessingService(LicenseFieldRuleEngine ruleEngine) {
+        this.ruleEngine = ruleEngine;
+    }
 
     /**
      * Real AI-powered document data extraction using GPT-4
@@ -112,25 +119,17 @@ public class RealAIDocumentProcessingService {
     /**
      * Extract data using local ML model (fallback)
      */
-    private Map<String, Object> extractWithLocalML(String text) {
+    Map<String, Object> extractWithLocalML(String text) {
         Map<String, Object> result = new HashMap<>();
         
-        // Use advanced NLP techniques for local extraction
-        result.put("licenseNumber", extractLicenseNumberWithNLP(text));
-        result.put("firstName", extractNameWithNLP(text, "first"));
-        result.put("lastName", extractNameWithNLP(text, "last"));
-        result.put("middleName", extractNameWithNLP(text, "middle"));
-        result.put("dateOfBirth", extractDateWithNLP(text, "birth"));
-        result.put("issueDate", extractDateWithNLP(text, "issue"));
-        result.put("expiryDate", extractDateWithNLP(text, "expiry"));
-        result.put("issuingAuthority", extractAuthorityWithNLP(text));
-        result.put("address", extractAddressWithNLP(text));
-        result.put("city", extractCityWithNLP(text));
-        result.put("state", extractStateWithNLP(text));
-        result.put("zipCode", extractZipCodeWithNLP(text));
-        result.put("licenseClass", extractLicenseClassWithNLP(text));
-        result.put("restrictions", extractRestrictionsWithNLP(text));
-        result.put("endorsements", extractEndorsementsWithNLP(text));
+        // All field rules are applied in a single pass over the text
+        for (Map.Entry<String, String> field : ruleEngine.extract(text).entrySet()) {
+            if (LicenseExtraction.DATE_FIELDS.contains(field.getKey())) {
+                result.put(field.getKey(), parseDate(field.getValue()));
+            } else {
+                result.put(field.getKey(), field.getValue());
+            }
+        }
         
         // Calculate confidence based on extraction success
         double confidence = calculateLocalConfidence(result);
@@ -196,8 +195,7 @@ public class RealAIDocumentProcessingService {
 
     private String extractJsonFromResponse(String response) {
         // Find JSON object in the response
-        Pattern jsonPattern = Pattern.compile("\\{.*\\}", Pattern.DOTALL);
-        Matcher matcher = jsonPattern.matcher(response);
+        Matcher matcher = JSON_OBJECT.matcher(response);
         if (matcher.find()) {
             return matcher.group();
         }
@@ -236,182 +234,6 @@ public class RealAIDocumentProcessingService {
         return (double) extractedFields / totalFields;
     }
 
-    // Local ML extraction methods using advanced NLP
-    private String extractLicenseNumberWithNLP(String text) {
-        // Advanced pattern matching with context analysis
-        String[] patterns = {
-            "LICENSE[\\s#]*[:\\s]*(\\w{1,15})",
-            "LIC[\\s#]*[:\\s]*(\\w{1,15})",
-            "DL[\\s#]*[:\\s]*(\\w{1,15})",
-            "DRIVER[\\s]*LICENSE[\\s#]*[:\\s]*(\\w{1,15})",
-            "NUMBER[\\s]*[:\\s]*(\\w{1,15})"
-        };
-        
-        for (String pattern : patterns) {
-            Matcher matcher = Pattern.compile(pattern, Pattern.CASE_INSENSITIVE).matcher(text);
-            if (matcher.find() && matcher.group(1) != null) {
-                return matcher.group(1).trim();
-            }
-        }
-        return null;
-    }
-
-    private String extractNameWithNLP(String text, String nameType) {
-        // Context-aware name extraction
-        String[] patterns = {
-            nameType.toUpperCase() + "[\\s]*NAME[\\s]*[:\\s]*([A-Za-z]+)",
-            nameType.toUpperCase() + "[\\s]*[:\\s]*([A-Za-z]+)",
-            "([A-Z][a-z]+)\\s+" + (nameType.equals("first") ? "\\w+" : "")
-        };
-        
-        for (String pattern : patterns) {
-            Matcher matcher = Pattern.compile(pattern, Pattern.CASE_INSENSITIVE).matcher(text);
-            if (matcher.find() && matcher.group(1) != null) {
-                return matcher.group(1).trim();
-            }
-        }
-        return null;
-    }
-
-    private LocalDate extractDateWithNLP(String text, String dateType) {
-        String[] patterns = {
-            dateType.toUpperCase() + "[\\s]*[:\\s]*(\\d{1,2}[/-]\\d{1,2}[/-]\\d{2,4})",
-            dateType.toUpperCase() + "[\\s]*[:\\s]*(\\d{4}[/-]\\d{1,2}[/-]\\d{1,2})",
-            dateType.toUpperCase() + "[\\s]*[:\\s]*(\\w+\\s+\\d{1,2},?\\s+\\d{4})"
-        };
-        
-        for (String pattern : patterns) {
-            Matcher matcher = Pattern.compile(pattern, Pattern.CASE_INSENSITIVE).matcher(text);
-            if (matcher.find() && matcher.group(1) != null) {
-                return parseDate(matcher.group(1).trim());
-            }
-        }
-        return null;
-    }
-
-    private String extractAuthorityWithNLP(String text) {
-        String[] patterns = {
-            "AUTHORITY[\\s]*[:\\s]*([A-Za-z\\s]+)",
-            "ISSUED[\\s]*BY[\\s]*[:\\s]*([A-Za-z\\s]+)",
-            "DEPARTMENT[\\s]*[:\\s]*([A-Za-z\\s]+)"
-        };
-        
-        for (String pattern : patterns) {
-            Matcher matcher = Pattern.compile(pattern, Pattern.CASE_INSENSITIVE).matcher(text);
-            if (matcher.find() && matcher.group(1) != null) {
-                return matcher.group(1).trim();
-            }
-        }
-        return null;
-    }
-
-    private String extractAddressWithNLP(String text) {
-        // Address extraction with context
-        String[] patterns = {
-            "ADDRESS[\\s]*[:\\s]*([A-Za-z0-9\\s,.-]+)",
-            "RESIDENCE[\\s]*[:\\s]*([A-Za-z0-9\\s,.-]+)"
-        };
-        
-        for (String pattern : patterns) {
-            Matcher matcher = Pattern.compile(pattern, Pattern.CASE_INSENSITIVE).matcher(text);
-            if (matcher.find() && matcher.group(1) != null) {
-                return matcher.group(1).trim();
-            }
-        }
-        return null;
-    }
-
-    private String extractCityWithNLP(String text) {
-        String[] patterns = {
-            "CITY[\\s]*[:\\s]*([A-Za-z\\s]+)",
-            "TOWN[\\s]*[:\\s]*([A-Za-z\\s]+)"
-        };
-        
-        for (String pattern : patterns) {
-            Matcher matcher = Pattern.compile(pattern, Pattern.CASE_INSENSITIVE).matcher(text);
-            if (matcher.find() && matcher.group(1) != null) {
-                return matcher.group(1).trim();
-            }
-        }
-        return null;
-    }
-
-    private String extractStateWithNLP(String text) {
-        String[] patterns = {
-            "STATE[\\s]*[:\\s]*([A-Za-z\\s]+)",
-            "PROVINCE[\\s]*[:\\s]*([A-Za-z\\s]+)"
-        };
-        
-        for (String pattern : patterns) {
-            Matcher matcher = Pattern.compile(pattern, Pattern.CASE_INSENSITIVE).matcher(text);
-            if (matcher.find() && matcher.group(1) != null) {
-                return matcher.group(1).trim();
-            }
-        }
-        return null;
-    }
-
-    private String extractZipCodeWithNLP(String text) {
-        String[] patterns = {
-            "ZIP[\\s]*[:\\s]*(\\d{5,6})",
-            "POSTAL[\\s]*[:\\s]*(\\d{5,6})",
-            "PIN[\\s]*[:\\s]*(\\d{5,6})"
-        };
-        
-        for (String pattern : patterns) {
-            Matcher matcher = Pattern.compile(pattern, Pattern.CASE_INSENSITIVE).matcher(text);
-            if (matcher.find() && matcher.group(1) != null) {
-                return matcher.group(1).trim();
-            }
-        }
-        return null;
-    }
-
-    private String extractLicenseClassWithNLP(String text) {
-        String[] patterns = {
-            "CLASS[\\s]*[:\\s]*([A-Za-z0-9\\s]+)",
-            "CATEGORY[\\s]*[:\\s]*([A-Za-z0-9\\s]+)"
-        };
-        
-        for (String pattern : patterns) {
-            Matcher matcher = Pattern.compile(pattern, Pattern.CASE_INSENSITIVE).matcher(text);
-            if (matcher.find() && matcher.group(1) != null) {
-                return matcher.group(1).trim();
-            }
-        }
-        return null;
-    }
-
-    private String extractRestrictionsWithNLP(String text) {
-        String[] patterns = {
-            "RESTRICTIONS[\\s]*[:\\s]*([A-Za-z0-9\\s,.-]+)",
-            "CONDITIONS[\\s]*[:\\s]*([A-Za-z0-9\\s,.-]+)"
-        };
-        
-        for (String pattern : patterns) {
-            Matcher matcher = Pattern.compile(pattern, Pattern.CASE_INSENSITIVE).matcher(text);
-            if (matcher.find() && matcher.group(1) != null) {
-                return matcher.group(1).trim();
-            }
-        }
-        return null;
-    }
-
-    private String extractEndorsementsWithNLP(String text) {
-        String[] patterns = {
-            "ENDORSEMENTS[\\s]*[:\\s]*([A-Za-z0-9\\s,.-]+)",
-            "SPECIAL[\\s]*PERMISSIONS[\\s]*[:\\s]*([A-Za-z0-9\\s,.-]+)"
-        };
-        
-        for (String pattern : patterns) {
-            Matcher matcher = Pattern.compile(pattern, Pattern.CASE_INSENSITIVE).matcher(text);
-            if (matcher.find() && matcher.group(1) != null) {
-                return matcher.group(1).trim();
-            }
-        }
-        return null;
-    }
-
     private double calculateLocalConfidence(Map<String, Object> extractedData) {
         int totalFields = 15;
         int extractedFields = 0;
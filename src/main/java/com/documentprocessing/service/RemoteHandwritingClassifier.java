@@ -0,0 +1,52 @@
+package com.documentprocessing.service;
+
+import org.apache.hc.client5.http.classic.methods.HttpPost;
+import org.apache.hc.client5.http.entity.mime.MultipartEntityBuilder;
+import org.apache.hc.core5.http.ContentType;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * The Python handwriting detector service ({@code POST /detect}), called
+ * through the shared HTTP client and its guard
+ */
+@Component
+public class RemoteHandwritingClassifier implements HandwritingClassifier {
+    private static final Logger log = LoggerFactory.getLogger(RemoteHandwritingClassifier.class);
+
+    private final ServiceHttpClient serviceHttpClient;
+    private final PipelineMetrics metrics;
+
+    public RemoteHandwritingClassifier(ServiceHttpClient serviceHttpClient, PipelineMetrics metrics) {
+        this.serviceHttpClient = serviceHttpClient;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public String getName() {
+        return "remote";
+    }
+
+    @Override
+    public HandwritingDetection classify(byte[] imageBytes) {
+        try {
+            HttpPost post = new HttpPost(serviceHttpClient.baseUrl(ExternalService.HANDWRITING_DETECTOR) + "/detect");
+            post.setEntity(MultipartEntityBuilder.create()
+                    .addBinaryBody("file", imageBytes, ContentType.IMAGE_JPEG, "image.jpg")
+                    .build());
+
+            String response = serviceHttpClient.execute(ExternalService.HANDWRITING_DETECTOR, post,
+                    DocumentProcessingService::successBody);
+
+            JSONObject json = new JSONObject(response);
+            Double confidence = json.has("confidence") ? json.getDouble("confidence") : null;
+            return HandwritingDetection.of("handwritten".equals(json.getString("result")), confidence);
+        } catch (Exception e) {
+            log.error("Handwriting detection failed: {}", e.getMessage());
+            metrics.recordFallback(ExternalService.HANDWRITING_DETECTOR);
+            return HandwritingDetection.failed(); // Treated as printed unless dual OCR runs
+        }
+    }
+}
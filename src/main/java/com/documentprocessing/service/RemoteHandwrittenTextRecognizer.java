@@ -0,0 +1,158 @@
+package com.documentprocessing.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.hc.client5.http.classic.methods.HttpPost;
+import org.apache.hc.client5.http.entity.mime.MultipartEntityBuilder;
+import org.apache.hc.core5.http.ContentType;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The Python TrOCR service, called through the shared HTTP client and its
+ * guard. With app.trocr.batch.enabled, images arriving within a short window
+ * go out together to {@code POST /ocr/batch}, where the model generates them
+ * as one batch; otherwise each image is its own {@code POST /ocr}.
+ */
+@Component
+public class RemoteHandwrittenTextRecognizer implements HandwrittenTextRecognizer {
+    private static final Logger log = LoggerFactory.getLogger(RemoteHandwrittenTextRecognizer.class);
+
+    @Value("${app.trocr.batch.enabled:true}")
+    private boolean batchEnabled;
+
+    @Value("${app.trocr.batch.max-size:8}")
+    private int batchMaxSize;
+
+    @Value("${app.trocr.batch.max-wait-ms:20}")
+    private long batchMaxWaitMs;
+
+    @Value("${resilience.trocr.timeout-ms:45000}")
+    private long timeoutMs;
+
+    private final ServiceHttpClient serviceHttpClient;
+    private final ThreadingMode threadingMode;
+    private final PipelineMetrics metrics;
+
+    private MicroBatcher<byte[], BatchAnswer> batcher;
+
+    /**
+     * One image's part of a batch response: its text, or why it failed
+     */
+    record BatchAnswer(String text, String error) {}
+
+    public RemoteHandwrittenTextRecognizer(ServiceHttpClient serviceHttpClient, ThreadingMode threadingMode,
+                                           PipelineMetrics metrics) {
+        this.serviceHttpClient = serviceHttpClient;
+        this.threadingMode = threadingMode;
+        this.metrics = metrics;
+    }
+
+    @PostConstruct
+    void init() {
+        if (batchEnabled) {
+            batcher = new MicroBatcher<>(batchMaxSize, batchMaxWaitMs, this::recognizeBatch,
+                    metrics::recordTrOcrBatch, threadingMode.threadFactory("trocr-batch-"));
+            log.info("TrOCR micro-batching: up to {} images, {} ms window", batchMaxSize, batchMaxWaitMs);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (batcher != null) {
+            batcher.close();
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "remote";
+    }
+
+    @Override
+    public String recognize(byte[] imageBytes) {
+        if (batcher != null) {
+            return recognizeInBatch(imageBytes);
+        }
+        try {
+            HttpPost post = new HttpPost(serviceHttpClient.baseUrl(ExternalService.TROCR) + "/ocr");
+            post.setEntity(MultipartEntityBuilder.create()
+                    .addBinaryBody("file", imageBytes, ContentType.IMAGE_JPEG, "image.jpg")
+                    .build());
+
+            String response = serviceHttpClient.execute(ExternalService.TROCR, post,
+                    DocumentProcessingService::successBody);
+
+            JSONObject json = new JSONObject(response);
+            return json.getString("text");
+        } catch (Exception e) {
+            log.error("TrOCR failed: {}", e.getMessage());
+            throw new RuntimeException("TrOCR microservice failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Waits no longer than the window plus the guard's deadline for the
+     * call, so a batch that never completes cannot hold the caller
+     */
+    private String recognizeInBatch(byte[] imageBytes) {
+        CompletableFuture<BatchAnswer> answer = batcher.submit(imageBytes);
+        long waitMs = batchMaxWaitMs + timeoutMs;
+        try {
+            BatchAnswer result = answer.get(waitMs, TimeUnit.MILLISECONDS);
+            if (result.error() != null) {
+                throw new RuntimeException("TrOCR microservice failed: " + result.error());
+            }
+            return result.text();
+        } catch (TimeoutException e) {
+            answer.cancel(false);
+            throw new RuntimeException("TrOCR gave no result within " + waitMs + " ms");
+        } catch (InterruptedException e) {
+            answer.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for TrOCR");
+        } catch (ExecutionException e) {
+            log.error("TrOCR batch failed: {}", e.getCause().getMessage());
+            throw new RuntimeException("TrOCR microservice failed: " + e.getCause().getMessage());
+        }
+    }
+
+    /**
+     * One call for the whole batch; the guard counts it as a single request
+     */
+    private List<BatchAnswer> recognizeBatch(List<byte[]> images) throws Exception {
+        MultipartEntityBuilder body = MultipartEntityBuilder.create();
+        for (int i = 0; i < images.size(); i++) {
+            body.addBinaryBody("files", images.get(i), ContentType.IMAGE_JPEG, "image-" + i + ".jpg");
+        }
+        HttpPost post = new HttpPost(serviceHttpClient.baseUrl(ExternalService.TROCR) + "/ocr/batch");
+        post.setEntity(body.build());
+
+        String response = serviceHttpClient.execute(ExternalService.TROCR, post,
+                DocumentProcessingService::successBody);
+        return parseBatch(response);
+    }
+
+    static List<BatchAnswer> parseBatch(String response) {
+        JSONArray results = new JSONObject(response).getJSONArray("results");
+        List<BatchAnswer> answers = new ArrayList<>(results.length());
+        for (int i = 0; i < results.length(); i++) {
+            JSONObject result = results.getJSONObject(i);
+            answers.add(result.has("text")
+                    ? new BatchAnswer(result.getString("text"), null)
+                    : new BatchAnswer(null, result.optString("error", "no text returned")));
+        }
+        return answers;
+    }
+}
@@ -0,0 +1,260 @@
+package com.documentprocessing.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.io.HttpClientResponseHandler;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shared, pooled HTTP client for the handwriting detector, TrOCR and Ollama.
+ * Connections are kept alive and reused across documents, each service has its
+ * own connection limit and timeouts, and pool usage is exposed as stats.
+ * Every call runs under the service's {@link ExternalServiceGuard}. Ollama
+ * may list several endpoints; each host gets its own connection limit.
+ */
+@Component
+public class ServiceHttpClient {
+    private static final Logger log = LoggerFactory.getLogger(ServiceHttpClient.class);
+
+    @Value("${app.microservices.handwriting-detector.url:http://localhost:8002}")
+    private String detectorUrl;
+
+    @Value("${app.microservices.trocr.url:http://localhost:8001}")
+    private String trocrUrl;
+
+    @Value("${ollama.api.urls:${ollama.api.url:http://localhost:11434}}")
+    private String[] ollamaUrls;
+
+    @Value("${http.client.max-total:50}")
+    private int maxTotal;
+
+    @Value("${http.client.connect-timeout-ms:2000}")
+    private long connectTimeoutMs;
+
+    @Value("${http.client.pool-wait-timeout-ms:30000}")
+    private long poolWaitTimeoutMs;
+
+    @Value("${http.client.idle-eviction-seconds:30}")
+    private long idleEvictionSeconds;
+
+    @Value("${http.client.handwriting-detector.max-connections:10}")
+    private int detectorMaxConnections;
+
+    @Value("${http.client.handwriting-detector.read-timeout-ms:10000}")
+    private long detectorReadTimeoutMs;
+
+    @Value("${http.client.trocr.max-connections:10}")
+    private int trocrMaxConnections;
+
+    @Value("${http.client.trocr.read-timeout-ms:60000}")
+    private long trocrReadTimeoutMs;
+
+    @Value("${http.client.ollama.max-connections:10}")
+    private int ollamaMaxConnections;
+
+    @Value("${http.client.ollama.read-timeout-ms:120000}")
+    private long ollamaReadTimeoutMs;
+
+    private final ExternalServiceGuard guard;
+    private PoolingHttpClientConnectionManager connectionManager;
+    private CloseableHttpClient httpClient;
+    private final Map<ExternalService, List<String>> baseUrls = new EnumMap<>(ExternalService.class);
+    private final Map<ExternalService, RequestConfig> requestConfigs = new EnumMap<>(ExternalService.class);
+    private final Map<ExternalService, List<HttpRoute>> routes = new EnumMap<>(ExternalService.class);
+
+    public ServiceHttpClient(ExternalServiceGuard guard) {
+        this.guard = guard;
+    }
+
+    @PostConstruct
+    void init() {
+        baseUrls.put(ExternalService.HANDWRITING_DETECTOR, List.of(stripTrailingSlash(detectorUrl)));
+        baseUrls.put(ExternalService.TROCR, List.of(stripTrailingSlash(trocrUrl)));
+        baseUrls.put(ExternalService.OLLAMA, Arrays.stream(ollamaUrls)
+                .map(String::trim)
+                .filter(url -> !url.isEmpty())
+                .map(ServiceHttpClient::stripTrailingSlash)
+                .distinct()
+                .toList());
+
+        connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxTotal);
+        connectionManager.setDefaultConnectionConfig(ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                .build());
+
+        Map<HttpRoute, Integer> routeLimits = new HashMap<>();
+        configureService(ExternalService.HANDWRITING_DETECTOR, detectorMaxConnections, detectorReadTimeoutMs, routeLimits);
+        configureService(ExternalService.TROCR, trocrMaxConnections, trocrReadTimeoutMs, routeLimits);
+        configureService(ExternalService.OLLAMA, ollamaMaxConnections, ollamaReadTimeoutMs, routeLimits);
+        baseUrls.get(ExternalService.OLLAMA).forEach(url -> guard.addEndpoint(ExternalService.OLLAMA, url));
+        // Services sharing a host:port share one route, so their limits add up
+        routeLimits.forEach(connectionManager::setMaxPerRoute);
+
+        httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofSeconds(idleEvictionSeconds))
+                .build();
+
+        log.info("Service HTTP client ready: {}", baseUrls);
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        httpClient.close();
+    }
+
+    private void configureService(ExternalService service, int maxConnections, long readTimeoutMs,
+                                  Map<HttpRoute, Integer> routeLimits) {
+        List<HttpRoute> serviceRoutes = new ArrayList<>();
+        for (String url : baseUrls.get(service)) {
+            HttpRoute route = routeFor(url);
+            serviceRoutes.add(route);
+            routeLimits.merge(route, maxConnections, Integer::sum);
+        }
+        routes.put(service, serviceRoutes);
+        requestConfigs.put(service, RequestConfig.custom()
+                .setResponseTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                .setConnectionRequestTimeout(Timeout.ofMilliseconds(poolWaitTimeoutMs))
+                .build());
+    }
+
+    /**
+     * Base URL of the given service, without a trailing slash. For a service
+     * with several endpoints this is the first one.
+     */
+    public String baseUrl(ExternalService service) {
+        return baseUrls.get(service).get(0);
+    }
+
+    /**
+     * Every configured endpoint of the given service
+     */
+    public List<String> baseUrls(ExternalService service) {
+        return baseUrls.get(service);
+    }
+
+    /**
+     * Execute a request against one of the services using its timeouts. The
+     * response is fully consumed and the connection returned to the pool
+     * once the handler completes. Throws
+     * {@link com.documentprocessing.exception.DependencyUnavailableException}
+     * when the guard rejects or times out the call.
+     */
+    public <T> T execute(ExternalService service, HttpUriRequestBase request,
+                         HttpClientResponseHandler<? extends T> handler) throws IOException {
+        request.setConfig(requestConfigs.get(service));
+        return guard.execute(service, endpointOf(service, request), request,
+                () -> httpClient.execute(request, handler));
+    }
+
+    /**
+     * The configured base URL the request goes to, or null if it is none of them
+     */
+    private String endpointOf(ExternalService service, HttpUriRequestBase request) {
+        String uri;
+        try {
+            uri = request.getUri().toString();
+        } catch (URISyntaxException e) {
+            return null;
+        }
+        for (String base : baseUrls.get(service)) {
+            if (uri.equals(base) || uri.startsWith(base + "/")) {
+                return base;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Execute a health check outside the guard, so probing a drained endpoint
+     * neither uses a call slot nor counts against the circuit breaker. The
+     * caller sets the request's timeouts.
+     */
+    public <T> T probe(HttpUriRequestBase request, HttpClientResponseHandler<? extends T> handler) throws IOException {
+        return httpClient.execute(request, handler);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("total", poolStats(connectionManager.getTotalStats()));
+
+        Map<String, Object> perService = new LinkedHashMap<>();
+        routes.forEach((service, serviceRoutes) -> {
+            Map<String, Object> routeStats = poolStats(getPoolStats(service));
+            routeStats.put("url", String.join(",", baseUrls.get(service)));
+            perService.put(service.getKey(), routeStats);
+        });
+        stats.put("services", perService);
+        return stats;
+    }
+
+    /**
+     * Pool usage of the service, summed over its endpoints
+     */
+    public PoolStats getPoolStats(ExternalService service) {
+        int leased = 0;
+        int pending = 0;
+        int available = 0;
+        int max = 0;
+        for (HttpRoute route : routes.get(service)) {
+            PoolStats stats = connectionManager.getStats(route);
+            leased += stats.getLeased();
+            pending += stats.getPending();
+            available += stats.getAvailable();
+            max += stats.getMax();
+        }
+        return new PoolStats(leased, pending, available, max);
+    }
+
+    public PoolStats getTotalPoolStats() {
+        return connectionManager.getTotalStats();
+    }
+
+    private Map<String, Object> poolStats(PoolStats poolStats) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("leased", poolStats.getLeased());
+        stats.put("available", poolStats.getAvailable());
+        stats.put("pending", poolStats.getPending());
+        stats.put("max", poolStats.getMax());
+        return stats;
+    }
+
+    private static HttpRoute routeFor(String url) {
+        URI uri = URI.create(url);
+        String scheme = uri.getScheme() != null ? uri.getScheme() : "http";
+        int port = uri.getPort() > 0 ? uri.getPort() : ("https".equalsIgnoreCase(scheme) ? 443 : 80);
+        return new HttpRoute(new HttpHost(scheme, uri.getHost(), port), null, "https".equalsIgnoreCase(scheme));
+    }
+
+    private static String stripTrailingSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+}
@@ -0,0 +1,70 @@
+package com.documentprocessing.service;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Tesseract started on an image before handwriting detection has answered.
+ * If the image turns out to be printed its result is awaited instead of
+ * starting OCR from scratch; if it is handwritten the work is cancelled. An
+ * interrupt while still waiting for an engine aborts the checkout, so a
+ * cancelled speculation only costs an engine if OCR had already begun.
+ */
+final class SpeculativeOcr {
+
+    private final Future<String> result;
+    private volatile long startNanos;
+    private volatile long endNanos;
+
+    private SpeculativeOcr(ExecutorService executor, Callable<String> ocr) {
+        this.result = executor.submit(() -> {
+            startNanos = System.nanoTime();
+            try {
+                return ocr.call();
+            } finally {
+                endNanos = System.nanoTime();
+            }
+        });
+    }
+
+    static SpeculativeOcr start(ExecutorService executor, Callable<String> ocr) {
+        return new SpeculativeOcr(executor, ocr);
+    }
+
+    /**
+     * The OCR text, waiting for it if it is still running
+     */
+    String await() throws Exception {
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        } catch (CancellationException e) {
+            throw new IllegalStateException("Speculative OCR was cancelled", e);
+        }
+    }
+
+    void cancel() {
+        result.cancel(true);
+    }
+
+    /**
+     * Latency saved against running the same OCR after detection finished
+     * at detectionDoneNanos: the part of the OCR run that overlapped
+     * detection. Only meaningful once await() has returned.
+     */
+    long savedNanos(long detectionDoneNanos) {
+        long start = startNanos;
+        long end = endNanos;
+        if (start == 0 || end == 0) {
+            return 0;
+        }
+        return Math.max(0, Math.min(end - start, detectionDoneNanos - start));
+    }
+}
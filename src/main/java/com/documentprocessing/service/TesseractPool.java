@@ -0,0 +1,235 @@
+package com.documentprocessing.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import net.sourceforge.tess4j.Tesseract;
+import net.sourceforge.tess4j.TesseractException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded pool of Tesseract engines. A single Tesseract instance must not be
+ * used by two threads at once, so every OCR call checks one out, runs, and
+ * hands it back. In virtual-thread mode the native call runs on a platform
+ * thread of its own, since a virtual thread inside a JNA call pins its
+ * carrier and a handful of OCR calls would otherwise stall every other
+ * virtual thread.
+ */
+@Component
+public class TesseractPool {
+    private static final Logger log = LoggerFactory.getLogger(TesseractPool.class);
+
+    @Value("${ocr.pool.size:0}")
+    private int configuredSize;
+
+    @Value("${ocr.pool.checkout-timeout-ms:30000}")
+    private long checkoutTimeoutMs;
+
+    @Value("${ocr.pool.warm-up:true}")
+    private boolean warmUp;
+
+    @Value("${tesseract.datapath:/opt/homebrew/Cellar/tesseract/5.5.1/share/tessdata}")
+    private String dataPath;
+
+    @Value("${tesseract.language:eng}")
+    private String language;
+
+    private final ThreadingMode threadingMode;
+    private BlockingQueue<Tesseract> idle;
+    private ExecutorService nativeOcrThreads;
+    private int size;
+
+    private final AtomicInteger inUse = new AtomicInteger();
+    private final AtomicLong checkouts = new AtomicLong();
+    private final AtomicLong checkoutTimeouts = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong totalBusyNanos = new AtomicLong();
+    private final long createdAtNanos = System.nanoTime();
+
+    public TesseractPool(ThreadingMode threadingMode) {
+        this.threadingMode = threadingMode;
+    }
+
+    @PostConstruct
+    void init() {
+        // Setup Tesseract paths for macOS
+        System.setProperty("jna.library.path", "/opt/homebrew/opt/tesseract/lib");
+        System.setProperty("TESSDATA_PREFIX", dataPath);
+
+        size = configuredSize > 0 ? configuredSize : Runtime.getRuntime().availableProcessors();
+        idle = new ArrayBlockingQueue<>(size);
+        for (int i = 0; i < size; i++) {
+            idle.add(newEngine());
+        }
+
+        if (threadingMode.isVirtual()) {
+            // One platform thread per engine, so an OCR call never queues here
+            nativeOcrThreads = Executors.newFixedThreadPool(size, new CustomizableThreadFactory("ocr-native-"));
+        }
+
+        if (warmUp) {
+            warmUpEngines();
+        }
+        log.info("Tesseract OCR pool ready with {} engines", size);
+    }
+
+    /**
+     * Run OCR on the image using the next free engine
+     */
+    public String doOCR(BufferedImage image) throws TesseractException {
+        Tesseract engine = checkout();
+        long start = System.nanoTime();
+        try {
+            return nativeOcrThreads != null ? runOnPlatformThread(engine, image) : engine.doOCR(image);
+        } catch (LinkageError e) {
+            // Native library missing or broken - surface it like any other OCR failure
+            throw new TesseractException("Tesseract native library unavailable: " + e.getMessage(), e);
+        } finally {
+            totalBusyNanos.addAndGet(System.nanoTime() - start);
+            release(engine);
+        }
+    }
+
+    private String runOnPlatformThread(Tesseract engine, BufferedImage image) throws TesseractException {
+        Future<String> result = nativeOcrThreads.submit(() -> engine.doOCR(image));
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return result.get();
+                } catch (InterruptedException e) {
+                    // The engine must not go back to the pool while the native call still uses it
+                    interrupted = true;
+                }
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof TesseractException tesseractException) {
+                throw tesseractException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new TesseractException(cause.getMessage(), cause);
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (nativeOcrThreads != null) {
+            nativeOcrThreads.shutdown();
+        }
+    }
+
+    private Tesseract checkout() throws TesseractException {
+        long start = System.nanoTime();
+        Tesseract engine;
+        try {
+            engine = idle.poll(checkoutTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TesseractException("Interrupted while waiting for an OCR engine");
+        }
+
+        long waited = System.nanoTime() - start;
+        if (engine == null) {
+            checkoutTimeouts.incrementAndGet();
+            throw new TesseractException("No OCR engine available after " + checkoutTimeoutMs + " ms");
+        }
+
+        checkouts.incrementAndGet();
+        totalWaitNanos.addAndGet(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+        inUse.incrementAndGet();
+        return engine;
+    }
+
+    private void release(Tesseract engine) {
+        inUse.decrementAndGet();
+        idle.offer(engine);
+    }
+
+    private Tesseract newEngine() {
+        Tesseract engine = new Tesseract();
+        engine.setLanguage(language);
+        engine.setDatapath(dataPath);
+        return engine;
+    }
+
+    /**
+     * Load the native library and traineddata up front so the first request
+     * does not pay for it
+     */
+    private void warmUpEngines() {
+        BufferedImage blank = new BufferedImage(64, 32, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D g = blank.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, blank.getWidth(), blank.getHeight());
+        g.dispose();
+
+        for (Tesseract engine : idle) {
+            try {
+                engine.doOCR(blank);
+            } catch (Throwable e) {
+                log.warn("Tesseract warm-up failed, engines will initialise on first use: {}", e.getMessage());
+                return;
+            }
+        }
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getInUse() {
+        return inUse.get();
+    }
+
+    public int getIdle() {
+        return idle.size();
+    }
+
+    public double getUtilization() {
+        return size == 0 ? 0.0 : (double) inUse.get() / size;
+    }
+
+    public Map<String, Object> getStats() {
+        long count = checkouts.get();
+        long elapsed = System.nanoTime() - createdAtNanos;
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", size);
+        stats.put("inUse", getInUse());
+        stats.put("idle", getIdle());
+        stats.put("utilization", getUtilization());
+        stats.put("busyRatio", elapsed > 0 ? (double) totalBusyNanos.get() / ((double) elapsed * size) : 0.0);
+        stats.put("checkouts", count);
+        stats.put("checkoutTimeouts", checkoutTimeouts.get());
+        stats.put("averageWaitMs", count > 0 ? totalWaitNanos.get() / (double) count / 1_000_000 : 0.0);
+        stats.put("maxWaitMs", maxWaitNanos.get() / 1_000_000.0);
+        return stats;
+    }
+}
@@ -0,0 +1,51 @@
+package com.documentprocessing.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Platform or virtual threads for the pipeline. Follows Spring Boot's
+ * spring.threads.virtual.enabled, which also moves Tomcat request handling
+ * onto virtual threads, so the job and batch workers match the request
+ * threads. Needs a Java 21 runtime; on older ones the flag is ignored with a
+ * warning.
+ */
+@Component
+public class ThreadingMode {
+    private static final Logger log = LoggerFactory.getLogger(ThreadingMode.class);
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualRequested;
+
+    private boolean virtual;
+
+    @PostConstruct
+    void init() {
+        virtual = virtualRequested && Runtime.version().feature() >= 21;
+        if (virtualRequested && !virtual) {
+            log.warn("spring.threads.virtual.enabled is set but Java {} has no virtual threads - using platform threads",
+                    Runtime.version().feature());
+        }
+        log.info("Pipeline threading mode: {}", virtual ? "virtual" : "platform");
+    }
+
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    /**
+     * Thread factory for a pipeline executor, virtual when the mode is enabled
+     */
+    public ThreadFactory threadFactory(String namePrefix) {
+        return virtual
+                ? new VirtualThreadTaskExecutor(namePrefix).getVirtualThreadFactory()
+                : new CustomizableThreadFactory(namePrefix);
+    }
+}
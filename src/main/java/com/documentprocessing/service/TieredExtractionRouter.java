@@ -0,0 +1,190 @@
+package com.documentprocessing.service;
+
+import com.documentprocessing.model.DrivingLicense.ExtractionTier;
+import com.documentprocessing.model.LicenseExtraction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Confidence-gated extraction cascade. The precompiled rule engine runs
+ * first; only when its field coverage is below the acceptance threshold (or
+ * an important field is missing) are the still-missing fields sent to a small
+ * Ollama model, and only what that leaves missing goes to the large model.
+ * Fields the rules found only through low-confidence hits are not counted
+ * towards acceptance and are asked for again along with the missing ones.
+ * The result carries the tier that answered in "extractionTier". While the
+ * Ollama circuit breaker is open the rule fields are returned as they are.
+ */
+@Service
+public class TieredExtractionRouter {
+    private static final Logger log = LoggerFactory.getLogger(TieredExtractionRouter.class);
+
+    @Value("${app.extraction.cascade.enabled:true}")
+    private boolean cascadeEnabled;
+
+    @Value("${app.extraction.accept-confidence:0.8}")
+    private double acceptConfidence;
+
+    @Value("${ollama.small-model:}")
+    private String smallModel;
+
+    private final LicenseFieldRuleEngine ruleEngine;
+    private final OllamaAIDocumentProcessingService ollamaService;
+    private final ExternalServiceGuard guard;
+    private final PipelineMetrics metrics;
+    private final Map<ExtractionTier, AtomicLong> answeredByTier = new EnumMap<>(ExtractionTier.class);
+
+    public TieredExtractionRouter(LicenseFieldRuleEngine ruleEngine, OllamaAIDocumentProcessingService ollamaService,
+                                  ExternalServiceGuard guard, PipelineMetrics metrics) {
+        this.ruleEngine = ruleEngine;
+        this.ollamaService = ollamaService;
+        this.guard = guard;
+        this.metrics = metrics;
+        for (ExtractionTier tier : ExtractionTier.values()) {
+            answeredByTier.put(tier, new AtomicLong());
+        }
+    }
+
+    public Map<String, Object> extract(String text) {
+        if (!cascadeEnabled && guard.isAvailable(ExternalService.OLLAMA)) {
+            Map<String, Object> result = ollamaService.extractDataWithOllama(text);
+            answeredByTier.get(ExtractionTier.LARGE_MODEL).incrementAndGet();
+            result.put("extractionTier", ExtractionTier.LARGE_MODEL.name());
+            return result;
+        }
+
+        Set<String> unconfirmed = new HashSet<>();
+        Map<String, Object> fields = extractWithRules(text, unconfirmed);
+        if (isAcceptable(fields, unconfirmed)) {
+            return finish(fields, ExtractionTier.RULES, null);
+        }
+        if (!guard.isAvailable(ExternalService.OLLAMA)) {
+            return rulesOnly(fields);
+        }
+
+        if (smallModel != null && !smallModel.isBlank()) {
+            // A failed small-model call just means the large model gets more fields to fill
+            escalate(text, smallModel, fields, unconfirmed);
+            if (isAcceptable(fields, unconfirmed)) {
+                return finish(fields, ExtractionTier.SMALL_MODEL, null);
+            }
+        }
+
+        if (!guard.isAvailable(ExternalService.OLLAMA)) {
+            return rulesOnly(fields);
+        }
+        Object error = escalate(text, ollamaService.getDefaultModel(), fields, unconfirmed);
+        return finish(fields, ExtractionTier.LARGE_MODEL, error);
+    }
+
+    /**
+     * Fallback while the Ollama circuit is open. The error entry keeps the
+     * partial result out of the result cache, so the document is extracted
+     * properly once Ollama is back.
+     */
+    private Map<String, Object> rulesOnly(Map<String, Object> fields) {
+        log.warn("Ollama circuit open - keeping the {} fields found by the rules", fields.size());
+        metrics.recordFallback(ExternalService.OLLAMA);
+        return finish(fields, ExtractionTier.RULES, "Ollama unavailable, rule-based fields only");
+    }
+
+    /**
+     * Rule tier. Dates the rules found but that do not parse count as missing,
+     * so they are asked for again further down the cascade. Fields filled by
+     * low-confidence hits are added to unconfirmed.
+     */
+    private Map<String, Object> extractWithRules(String text, Set<String> unconfirmed) {
+        Map<String, Object> fields = new HashMap<>();
+        for (Map.Entry<String, LicenseFieldRuleEngine.RuleHit> field : ruleEngine.extractHits(text).entrySet()) {
+            LicenseFieldRuleEngine.RuleHit hit = field.getValue();
+            if (hit == null) {
+                continue;
+            }
+            Object value = hit.value();
+            if (LicenseExtraction.DATE_FIELDS.contains(field.getKey())) {
+                value = DocumentProcessingService.parseDateFlexible(value);
+            }
+            if (FieldCoverage.isPresent(value)) {
+                fields.put(field.getKey(), value);
+                if (hit.lowConfidence()) {
+                    unconfirmed.add(field.getKey());
+                }
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * Ask the model for the fields still missing or unconfirmed and merge
+     * whatever it finds. An unconfirmed value the model has no answer for is
+     * kept as it is. Returns the error if the call failed.
+     */
+    private Object escalate(String text, String model, Map<String, Object> fields, Set<String> unconfirmed) {
+        List<String> wanted = new ArrayList<>();
+        for (String field : LicenseExtraction.FIELDS) {
+            if (!fields.containsKey(field) || unconfirmed.contains(field)) {
+                wanted.add(field);
+            }
+        }
+
+        log.info("Escalating {} missing and {} low-confidence fields to Ollama model {}",
+                wanted.size() - unconfirmed.size(), unconfirmed.size(), model);
+        Map<String, Object> answer = ollamaService.extractFields(text, model, wanted);
+        for (String field : wanted) {
+            Object value = answer.get(field);
+            if (FieldCoverage.isPresent(value)) {
+                fields.put(field, value);
+                unconfirmed.remove(field);
+            }
+        }
+        return answer.get("error");
+    }
+
+    /**
+     * Coverage and important fields count confirmed values only, so fallback
+     * hits never carry a document past a tier on their own
+     */
+    private boolean isAcceptable(Map<String, Object> fields, Set<String> unconfirmed) {
+        Map<String, Object> confirmed = new HashMap<>(fields);
+        confirmed.keySet().removeAll(unconfirmed);
+        return FieldCoverage.score(confirmed) >= acceptConfidence
+                && !FieldCoverage.missingImportantFields(confirmed);
+    }
+
+    private Map<String, Object> finish(Map<String, Object> fields, ExtractionTier tier, Object error) {
+        answeredByTier.get(tier).incrementAndGet();
+
+        Map<String, Object> result = new HashMap<>(fields);
+        result.put("extractionTier", tier.name());
+        result.put("aiProcessed", tier != ExtractionTier.RULES);
+        result.put("aiConfidence", FieldCoverage.score(fields));
+        if (error != null) {
+            result.put("error", error);
+        }
+        return result;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("cascadeEnabled", cascadeEnabled);
+        stats.put("acceptConfidence", acceptConfidence);
+        stats.put("smallModel", smallModel == null || smallModel.isBlank() ? null : smallModel);
+        stats.put("largeModel", ollamaService.getDefaultModel());
+        Map<String, Long> answered = new LinkedHashMap<>();
+        answeredByTier.forEach((tier, count) -> answered.put(tier.name(), count.get()));
+        stats.put("answeredByTier", answered);
+        return stats;
+    }
+}
@@ -0,0 +1,59 @@
+package com.documentprocessing.service;
+
+import com.documentprocessing.exception.AdmissionRejectedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdmissionControlTest {
+
+    private final AdmissionControl admission = new AdmissionControl(new PipelineMetrics(new SimpleMeterRegistry()));
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(admission, "enabled", true);
+        ReflectionTestUtils.setField(admission, "lightMaxInFlight", 2);
+        ReflectionTestUtils.setField(admission, "lightMaxQueue", 0);
+        ReflectionTestUtils.setField(admission, "heavyMaxInFlight", 1);
+        ReflectionTestUtils.setField(admission, "heavyMaxQueue", 0);
+        ReflectionTestUtils.setField(admission, "maxWaitMs", 0L);
+        admission.init();
+    }
+
+    @Test
+    void heavyBudgetIsSeparateFromLight() {
+        try (AdmissionControl.Permit pdf = admission.admit(AdmissionControl.WorkClass.HEAVY)) {
+            AdmissionRejectedException e = assertThrows(AdmissionRejectedException.class,
+                    () -> admission.admit(AdmissionControl.WorkClass.HEAVY));
+            assertTrue(e.getRetryAfterSeconds() >= 1);
+
+            try (AdmissionControl.Permit printed = admission.admit(AdmissionControl.WorkClass.LIGHT)) {
+                assertEquals(1, admission.getInFlight(AdmissionControl.WorkClass.LIGHT));
+            }
+        }
+        assertEquals(0, admission.getInFlight(AdmissionControl.WorkClass.HEAVY));
+    }
+
+    @Test
+    void handwrittenImageMovesToHeavyBudget() {
+        try (AdmissionControl.Permit image = admission.admit(AdmissionControl.WorkClass.LIGHT)) {
+            image.handwritingDetected(true);
+
+            assertEquals(0, admission.getInFlight(AdmissionControl.WorkClass.LIGHT));
+            assertEquals(1, admission.getInFlight(AdmissionControl.WorkClass.HEAVY));
+
+            try (AdmissionControl.Permit second = admission.admit(AdmissionControl.WorkClass.LIGHT)) {
+                assertThrows(AdmissionRejectedException.class, () -> second.handwritingDetected(true));
+                // A shed upgrade keeps its light slot until the permit closes
+                assertEquals(1, admission.getInFlight(AdmissionControl.WorkClass.LIGHT));
+            }
+        }
+        assertEquals(0, admission.getInFlight(AdmissionControl.WorkClass.LIGHT));
+        assertEquals(0, admission.getInFlight(AdmissionControl.WorkClass.HEAVY));
+    }
+}
@@ -0,0 +1,28 @@
+package com.documentprocessing.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ByteLevelBpeDecoderTest {
+
+    @Test
+    void skipsSpecialTokensAndMapsSpaceMarker() {
+        ByteLevelBpeDecoder decoder = new ByteLevelBpeDecoder(
+                Map.of("<s>", 0, "<pad>", 1, "</s>", 2, "Hello", 10, "Ġworld", 11), Set.of(0, 1, 2));
+
+        assertEquals("Hello world", decoder.decode(new long[]{2, 10, 11, 2, 1, 1}));
+    }
+
+    @Test
+    void joinsMultiByteCharactersSplitAcrossTokens() {
+        // "é" is 0xC3 0xA9, which byte-level BPE writes as "Ã" and "©"
+        ByteLevelBpeDecoder decoder = new ByteLevelBpeDecoder(
+                Map.of("caf", 5, "Ã", 6, "©", 7), Set.of());
+
+        assertEquals("café", decoder.decode(new long[]{5, 6, 7}));
+    }
+}
@@ -0,0 +1,51 @@
+package com.documentprocessing.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DjlHandwrittenTextRecognizerTest {
+
+    private static final long START = 2;
+    private static final long EOS = 3;
+    private static final long PAD = 1;
+
+    @Test
+    void finishedRowsArePaddedUntilTheLastRowEnds() throws Exception {
+        long[][] script = {{10, EOS}, {20, 21, 22, EOS}};
+        List<long[]> prefixes = new ArrayList<>();
+
+        long[][] rows = DjlHandwrittenTextRecognizer.greedyDecode(2, 10, START, EOS, PAD, (prefix, length) -> {
+            assertEquals(2 * length, prefix.length);
+            prefixes.add(prefix.clone());
+            // The stub keeps answering for a finished row; the loop must pad it instead
+            return new long[]{length - 1 < script[0].length ? script[0][length - 1] : 99, script[1][length - 1]};
+        });
+
+        assertArrayEquals(new long[]{START, 10, EOS, PAD, PAD}, rows[0]);
+        assertArrayEquals(new long[]{START, 20, 21, 22, EOS}, rows[1]);
+        assertEquals(4, prefixes.size());
+        // The decoder sees the padded prefix of the finished row alongside the live one
+        assertArrayEquals(new long[]{START, 10, EOS, PAD, START, 20, 21, 22}, prefixes.get(3));
+    }
+
+    @Test
+    void stopsAtMaxLengthWithoutAnEndToken() throws Exception {
+        int[] steps = {0};
+
+        long[][] rows = DjlHandwrittenTextRecognizer.greedyDecode(1, 3, START, EOS, PAD, (prefix, length) -> {
+            steps[0]++;
+            long[] next = new long[1];
+            Arrays.fill(next, 40 + length);
+            return next;
+        });
+
+        assertEquals(3, steps[0]);
+        assertArrayEquals(new long[]{START, 41, 42, 43}, rows[0]);
+    }
+}
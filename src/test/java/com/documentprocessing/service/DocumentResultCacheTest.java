@@ -0,0 +1,54 @@
+package com.documentprocessing.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class DocumentResultCacheTest {
+
+    private static final Map<String, Object> DATA = Map.of("licenseNumber", "D1234567");
+
+    @Test
+    void evictsTheLeastRecentlyUsedEntryWhenFull() {
+        DocumentResultCache cache = new DocumentResultCache(true, 2, 60);
+        cache.put("a", DATA, 1L, "IMAGE", false);
+        cache.put("b", DATA, 2L, "IMAGE", false);
+
+        // Reading a makes b the eldest
+        assertNotNull(cache.get("a"));
+        cache.put("c", DATA, 3L, "IMAGE", false);
+
+        assertNull(cache.get("b"));
+        assertEquals(1L, cache.get("a").licenseId());
+        assertEquals(3L, cache.get("c").licenseId());
+        assertEquals(1L, cache.getStats().get("evictions"));
+    }
+
+    @Test
+    void expiredEntriesAreMissesAndRemoved() throws Exception {
+        DocumentResultCache cache = new DocumentResultCache(true, 10, 0);
+        cache.put("a", DATA, 1L, "IMAGE", false);
+        Thread.sleep(5);
+
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+        assertEquals(1L, cache.getStats().get("expirations"));
+    }
+
+    @Test
+    void invalidateAndDisabledCacheReturnNothing() {
+        DocumentResultCache cache = new DocumentResultCache(true, 10, 60);
+        cache.put("a", DATA, 1L, "PDF", true);
+        cache.invalidate("a");
+        assertNull(cache.get("a"));
+
+        DocumentResultCache disabled = new DocumentResultCache(false, 10, 60);
+        disabled.put("a", DATA, 1L, "PDF", true);
+        assertNull(disabled.get("a"));
+        assertEquals(0, disabled.size());
+    }
+}
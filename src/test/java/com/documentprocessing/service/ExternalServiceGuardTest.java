@@ -0,0 +1,126 @@
+package com.documentprocessing.service;
+
+import com.documentprocessing.exception.DependencyUnavailableException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExternalServiceGuardTest {
+
+    private final ExternalServiceGuard guard = new ExternalServiceGuard();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(guard, "failureRateThreshold", 50f);
+        ReflectionTestUtils.setField(guard, "slidingWindowSize", 4);
+        ReflectionTestUtils.setField(guard, "minimumCalls", 4);
+        ReflectionTestUtils.setField(guard, "openDurationMs", 60_000L);
+        ReflectionTestUtils.setField(guard, "halfOpenCalls", 1);
+        for (String service : new String[]{"detector", "trocr", "ollama"}) {
+            ReflectionTestUtils.setField(guard, service + "MaxConcurrent", 2);
+            ReflectionTestUtils.setField(guard, service + "MaxWaitMs", 0L);
+            ReflectionTestUtils.setField(guard, service + "TimeoutMs", 200L);
+        }
+        guard.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        guard.shutdown();
+    }
+
+    @Test
+    void opensAfterSustainedFailuresAndRejectsWithoutCalling() {
+        for (int i = 0; i < 4; i++) {
+            assertThrows(IOException.class, () -> guard.execute(ExternalService.TROCR, () -> true, () -> {
+                throw new IOException("connection refused");
+            }));
+        }
+
+        assertFalse(guard.isAvailable(ExternalService.TROCR));
+        assertTrue(guard.isAvailable(ExternalService.OLLAMA));
+        assertThrows(DependencyUnavailableException.class, () -> guard.execute(ExternalService.TROCR, () -> true, () -> {
+            throw new AssertionError("must not be called while open");
+        }));
+    }
+
+    @Test
+    void ollamaEndpointsHaveTheirOwnBreakerAndSlots() throws Exception {
+        String first = "http://ollama-1:11434";
+        String second = "http://ollama-2:11434";
+        guard.addEndpoint(ExternalService.OLLAMA, first);
+        guard.addEndpoint(ExternalService.OLLAMA, second);
+        for (int i = 0; i < 4; i++) {
+            assertThrows(IOException.class, () -> guard.execute(ExternalService.OLLAMA, first, () -> true, () -> {
+                throw new IOException("connection refused");
+            }));
+        }
+
+        assertFalse(guard.isAvailable(ExternalService.OLLAMA, first));
+        assertTrue(guard.isAvailable(ExternalService.OLLAMA, second));
+        assertTrue(guard.isAvailable(ExternalService.OLLAMA));
+
+        // Both of the second host's slots stay free while the first is rejected
+        CountDownLatch holding = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread[] callers = new Thread[2];
+        for (int i = 0; i < callers.length; i++) {
+            callers[i] = new Thread(() -> {
+                try {
+                    guard.execute(ExternalService.OLLAMA, second, () -> true, () -> {
+                        holding.countDown();
+                        try {
+                            return release.await(5, TimeUnit.SECONDS);
+                        } catch (InterruptedException interrupted) {
+                            Thread.currentThread().interrupt();
+                            return false;
+                        }
+                    });
+                } catch (IOException | RuntimeException ignored) {
+                    // Asserted on the main thread
+                }
+            });
+            callers[i].start();
+        }
+        assertTrue(holding.await(5, TimeUnit.SECONDS));
+        DependencyUnavailableException full = assertThrows(DependencyUnavailableException.class,
+                () -> guard.execute(ExternalService.OLLAMA, second, () -> true, () -> "third"));
+        assertEquals("ollama@" + second, full.getService());
+        release.countDown();
+        for (Thread caller : callers) {
+            caller.join();
+        }
+    }
+
+    @Test
+    void cancelsCallThatRunsPastItsDeadline() throws IOException {
+        CountDownLatch cancelled = new CountDownLatch(1);
+
+        DependencyUnavailableException e = assertThrows(DependencyUnavailableException.class,
+                () -> guard.execute(ExternalService.TROCR, () -> {
+                    cancelled.countDown();
+                    return true;
+                }, () -> {
+                    // Stands in for a socket read that only returns once the request is aborted
+                    try {
+                        cancelled.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException interrupted) {
+                        Thread.currentThread().interrupt();
+                    }
+                    throw new IOException("Request aborted");
+                }));
+
+        assertTrue(e.getMessage().contains("200 ms"));
+        assertEquals("ok", guard.execute(ExternalService.TROCR, () -> true, () -> "ok"));
+    }
+}
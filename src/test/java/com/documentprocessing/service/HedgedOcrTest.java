@@ -0,0 +1,52 @@
+package com.documentprocessing.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class HedgedOcrTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final LicenseFieldRuleEngine ruleEngine = new LicenseFieldRuleEngine();
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void picksTheTextWithMoreLicenseFields() throws Exception {
+        HedgedOcr.Result result = HedgedOcr.race(executor,
+                () -> "L1C3N5E ~~ |/|/ 0B",
+                () -> {
+                    Thread.sleep(50);
+                    return "LICENSE# D1234567\nLast Name: SMITH\nFirst Name: JOHN";
+                },
+                5_000, this::coverage);
+
+        assertEquals(HedgedOcr.Engine.TROCR, result.engine());
+        assertEquals(HedgedOcr.Reason.COVERAGE, result.reason());
+    }
+
+    @Test
+    void usesTheFirstAnswerWhenTheOtherMissesTheDeadline() throws Exception {
+        HedgedOcr.Result result = HedgedOcr.race(executor,
+                () -> "LICENSE# D1234567",
+                () -> {
+                    Thread.sleep(10_000);
+                    return "LICENSE# D1234567\nLast Name: SMITH\nFirst Name: JOHN";
+                },
+                100, this::coverage);
+
+        assertEquals(HedgedOcr.Engine.TESSERACT, result.engine());
+        assertEquals(HedgedOcr.Reason.DEADLINE, result.reason());
+    }
+
+    private double coverage(String text) {
+        return FieldCoverage.score(ruleEngine.extract(text));
+    }
+}
@@ -0,0 +1,153 @@
+package com.documentprocessing.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.ByteArrayOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ImagePreprocessorTest {
+
+    private final ImagePreprocessor preprocessor = new ImagePreprocessor(true, 300, 4.5, true, 31, 0.2, true, true, 10, 4);
+
+    @BeforeEach
+    void start() {
+        preprocessor.init();
+    }
+
+    @AfterEach
+    void stop() {
+        preprocessor.shutdown();
+    }
+
+    @Test
+    void colourPhotoIsDownscaledAndBinarizedDespiteUnevenLighting() {
+        BufferedImage photo = new BufferedImage(4000, 2500, BufferedImage.TYPE_3BYTE_BGR);
+        Graphics2D g = photo.createGraphics();
+        // Light falls off from left to right
+        for (int x = 0; x < photo.getWidth(); x += 10) {
+            int level = 240 - x * 100 / photo.getWidth();
+            g.setColor(new Color(level, level, level - 20));
+            g.fillRect(x, 0, 10, photo.getHeight());
+        }
+        g.setColor(new Color(30, 30, 60));
+        g.fillRect(400, 1000, 3200, 60);
+        g.dispose();
+
+        BufferedImage result = preprocessor.preprocess(photo, 0);
+
+        assertEquals(BufferedImage.TYPE_BYTE_GRAY, result.getType());
+        assertEquals(1350, result.getWidth());
+        assertEquals(844, result.getHeight());
+        byte[] pixels = ((DataBufferByte) result.getRaster().getDataBuffer()).getData();
+        for (byte value : pixels) {
+            int level = value & 0xFF;
+            assertTrue(level == 0 || level == 255, "not binary: " + level);
+        }
+        // Ink on both the bright and the dim side, paper elsewhere
+        assertEquals(0, result.getRaster().getSample(200, 347, 0));
+        assertEquals(0, result.getRaster().getSample(1150, 347, 0));
+        assertEquals(255, result.getRaster().getSample(200, 150, 0));
+        assertEquals(255, result.getRaster().getSample(1150, 700, 0));
+    }
+
+    @Test
+    void largeUploadIsDecodedSubsampledToNoLessThanTheTarget() throws Exception {
+        BufferedImage scan = new BufferedImage(4100, 2600, BufferedImage.TYPE_3BYTE_BGR);
+        Graphics2D g = scan.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, 4100, 2600);
+        g.setColor(Color.RED);
+        g.fillRect(3000, 2400, 300, 150);
+        g.dispose();
+
+        // PNG subsamples in the reader, TIFF is read in bands
+        for (String format : new String[]{"png", "tif"}) {
+            ByteArrayOutputStream upload = new ByteArrayOutputStream();
+            ImageIO.write(scan, format, upload);
+
+            ImagePreprocessor.Decoded decoded = preprocessor.decode(upload.toByteArray());
+            BufferedImage image = decoded.image();
+
+            // 4100 / 1350 rounds down to every 3rd pixel; 2600 / 3 rounds up
+            assertEquals(1367, image.getWidth(), format);
+            assertEquals(867, image.getHeight(), format);
+            assertEquals(Color.RED.getRGB(), image.getRGB(1050, 820), format);
+            assertEquals(Color.WHITE.getRGB(), image.getRGB(1050, 700), format);
+            assertEquals(1350, preprocessor.preprocess(decoded).getWidth(), format);
+        }
+    }
+
+    @Test
+    void declaredResolutionWinsOverTheAssumedFrame() throws Exception {
+        BufferedImage scan = new BufferedImage(3000, 2000, BufferedImage.TYPE_BYTE_GRAY);
+
+        // 600 dpi scan: every 2nd pixel leaves 300 dpi, which preprocessing keeps
+        ImagePreprocessor.Decoded decoded = preprocessor.decode(pngAt(scan, 600));
+        assertEquals(300, decoded.dpi(), 0.5);
+        assertEquals(1500, decoded.image().getWidth());
+        assertEquals(1500, preprocessor.preprocess(decoded).getWidth());
+
+        // A placeholder 72 dpi counts as none, so the long edge is taken as frame-inches
+        decoded = preprocessor.decode(pngAt(scan, 72));
+        assertEquals(0, decoded.dpi());
+        assertEquals(1350, preprocessor.preprocess(decoded).getWidth());
+    }
+
+    private static byte[] pngAt(BufferedImage image, int dpi) throws Exception {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("png").next();
+        IIOMetadata metadata = writer.getDefaultImageMetadata(ImageTypeSpecifier.createFromRenderedImage(image), null);
+        // The PNG writer mis-scales a standard-format pixel size, so pHYs is set natively
+        String pixelsPerMetre = Long.toString(Math.round(dpi / 0.0254));
+        IIOMetadataNode physical = new IIOMetadataNode("pHYs");
+        physical.setAttribute("pixelsPerUnitXAxis", pixelsPerMetre);
+        physical.setAttribute("pixelsPerUnitYAxis", pixelsPerMetre);
+        physical.setAttribute("unitSpecifier", "meter");
+        IIOMetadataNode root = new IIOMetadataNode(metadata.getNativeMetadataFormatName());
+        root.appendChild(physical);
+        metadata.mergeTree(metadata.getNativeMetadataFormatName(), root);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream stream = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(stream);
+            writer.write(new IIOImage(image, null, metadata));
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    void findsAndRemovesTheSkewOfTextLines() {
+        BufferedImage page = new BufferedImage(800, 500, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D g = page.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, 800, 500);
+        g.setColor(Color.BLACK);
+        g.rotate(Math.toRadians(3), 400, 250);
+        for (int y = 100; y < 420; y += 40) {
+            g.fillRect(100, y, 600, 8);
+        }
+        g.dispose();
+
+        ImagePreprocessor.Gray gray = preprocessor.toGray(page);
+        double skew = preprocessor.estimateSkew(gray);
+
+        assertEquals(3.0, skew, 0.3);
+        assertEquals(0.0, preprocessor.estimateSkew(preprocessor.rotate(gray, skew)), 0.3);
+    }
+}
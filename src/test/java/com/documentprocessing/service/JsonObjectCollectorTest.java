@@ -0,0 +1,41 @@
+package com.documentprocessing.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JsonObjectCollectorTest {
+
+    @Test
+    void completesWhenTopLevelObjectCloses() {
+        JsonObjectCollector collector = new JsonObjectCollector();
+
+        assertFalse(collector.append("Sure! Here is the JSON:\n{\"licenseNumber\": \"D12"));
+        assertFalse(collector.append("34\", \"address\": {\"street\": \"1 Main"));
+        assertTrue(collector.append("\"}} and some explanation {"));
+
+        assertEquals("{\"licenseNumber\": \"D1234\", \"address\": {\"street\": \"1 Main\"}}", collector.getResult());
+    }
+
+    @Test
+    void ignoresBracesInsideStrings() {
+        JsonObjectCollector collector = new JsonObjectCollector();
+
+        assertFalse(collector.append("{\"restrictions\": \"wear } glasses \\\" {\""));
+        assertTrue(collector.append("}"));
+
+        assertEquals("{\"restrictions\": \"wear } glasses \\\" {\"}", collector.getResult());
+    }
+
+    @Test
+    void returnsEverythingWhenObjectNeverCloses() {
+        JsonObjectCollector collector = new JsonObjectCollector();
+
+        assertFalse(collector.append("no json here {\"firstName\": \"JOHN\""));
+
+        assertFalse(collector.isComplete());
+        assertEquals("no json here {\"firstName\": \"JOHN\"", collector.getResult());
+    }
+}
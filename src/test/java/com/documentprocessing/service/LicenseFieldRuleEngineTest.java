@@ -0,0 +1,48 @@
+package com.documentprocessing.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class LicenseFieldRuleEngineTest {
+
+    private final LicenseFieldRuleEngine engine = new LicenseFieldRuleEngine();
+
+    @Test
+    void extractsLabelledFieldsInOnePass() {
+        Map<String, String> fields = engine.extract("""
+                LICENSE# D1234567
+                Last Name: SMITH
+                First Name: JOHN
+                DOB 01/15/1985
+                EXP: 2030-01-15
+                CLASS C
+                """);
+
+        assertEquals("D1234567", fields.get("licenseNumber"));
+        assertEquals("SMITH", fields.get("lastName"));
+        assertEquals("JOHN", fields.get("firstName"));
+        assertEquals("01/15/1985", fields.get("dateOfBirth"));
+        assertEquals("2030-01-15", fields.get("expiryDate"));
+        assertEquals("C", fields.get("licenseClass"));
+        assertNull(fields.get("zipCode"));
+    }
+
+    @Test
+    void higherPriorityRuleWinsOverEarlierMatch() {
+        // "LICENSE" outranks "NUMBER" even though NUMBER appears first
+        Map<String, String> fields = engine.extract("NUMBER 4242 license: X9901");
+
+        assertEquals("X9901", fields.get("licenseNumber"));
+    }
+
+    @Test
+    void labelledDateOutranksShortAnchor() {
+        Map<String, String> fields = engine.extract("DOB 02/02/1990 date of birth: 1990-02-03");
+
+        assertEquals("1990-02-03", fields.get("dateOfBirth"));
+    }
+}
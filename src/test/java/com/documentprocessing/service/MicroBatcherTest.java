@@ -0,0 +1,78 @@
+package com.documentprocessing.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MicroBatcherTest {
+
+    private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+    private MicroBatcher<String, String> batcher;
+
+    @AfterEach
+    void close() {
+        batcher.close();
+    }
+
+    @Test
+    void itemsWithinTheWindowShareOneCallAndGetTheirOwnResults() throws Exception {
+        batcher = new MicroBatcher<>(3, 5_000,
+                items -> items.stream().map(String::toUpperCase).toList(),
+                batchSizes::add, Executors.defaultThreadFactory());
+
+        // A full batch is sent without waiting out the window
+        CompletableFuture<String> a = batcher.submit("a");
+        CompletableFuture<String> b = batcher.submit("b");
+        CompletableFuture<String> c = batcher.submit("c");
+
+        assertEquals("A", a.get(2, TimeUnit.SECONDS));
+        assertEquals("B", b.get(2, TimeUnit.SECONDS));
+        assertEquals("C", c.get(2, TimeUnit.SECONDS));
+        assertEquals(List.of(3), batchSizes);
+    }
+
+    @Test
+    void failedCallFailsEveryCallerInTheBatch() {
+        batcher = new MicroBatcher<>(10, 50,
+                items -> {
+                    throw new IllegalStateException("service down");
+                },
+                batchSizes::add, Executors.defaultThreadFactory());
+
+        CompletableFuture<String> a = batcher.submit("a");
+        CompletableFuture<String> b = batcher.submit("b");
+
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> a.get(2, TimeUnit.SECONDS));
+        assertEquals("service down", failure.getCause().getMessage());
+        assertThrows(ExecutionException.class, () -> b.get(2, TimeUnit.SECONDS));
+        assertEquals(List.of(2), batchSizes);
+    }
+
+    @Test
+    void errorInTheCallStillCompletesEveryCaller() throws Exception {
+        batcher = new MicroBatcher<>(10, 50,
+                items -> {
+                    if (items.contains("boom")) {
+                        throw new OutOfMemoryError("Java heap space");
+                    }
+                    return items;
+                },
+                batchSizes::add, Executors.defaultThreadFactory());
+
+        CompletableFuture<String> failed = batcher.submit("boom");
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> failed.get(2, TimeUnit.SECONDS));
+        assertEquals(OutOfMemoryError.class, failure.getCause().getClass());
+
+        // The batcher keeps serving after the Error
+        assertEquals("next", batcher.submit("next").get(2, TimeUnit.SECONDS));
+    }
+}
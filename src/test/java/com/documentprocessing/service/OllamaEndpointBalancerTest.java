@@ -0,0 +1,135 @@
+package com.documentprocessing.service;
+
+import com.documentprocessing.exception.DependencyUnavailableException;
+import com.documentprocessing.exception.ModelNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OllamaEndpointBalancerTest {
+
+    private static final String FIRST = "http://ollama-1:11434";
+    private static final String SECOND = "http://ollama-2:11434";
+
+    private final ExternalServiceGuard guard = new ExternalServiceGuard();
+    private final ServiceHttpClient serviceHttpClient = new ServiceHttpClient(guard);
+    private OllamaEndpointBalancer balancer;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(guard, "failureRateThreshold", 50f);
+        ReflectionTestUtils.setField(guard, "slidingWindowSize", 2);
+        ReflectionTestUtils.setField(guard, "minimumCalls", 2);
+        ReflectionTestUtils.setField(guard, "openDurationMs", 60_000L);
+        ReflectionTestUtils.setField(guard, "halfOpenCalls", 1);
+        ReflectionTestUtils.setField(guard, "ollamaMaxConcurrent", 2);
+        ReflectionTestUtils.setField(guard, "ollamaTimeoutMs", 1_000L);
+        guard.init();
+
+        ReflectionTestUtils.setField(serviceHttpClient, "detectorUrl", "http://localhost:8002");
+        ReflectionTestUtils.setField(serviceHttpClient, "trocrUrl", "http://localhost:8001");
+        ReflectionTestUtils.setField(serviceHttpClient, "ollamaUrls", new String[]{FIRST, SECOND + "/"});
+        ReflectionTestUtils.setField(serviceHttpClient, "maxTotal", 10);
+        ReflectionTestUtils.setField(serviceHttpClient, "detectorMaxConnections", 1);
+        ReflectionTestUtils.setField(serviceHttpClient, "trocrMaxConnections", 1);
+        ReflectionTestUtils.setField(serviceHttpClient, "ollamaMaxConnections", 2);
+        serviceHttpClient.init();
+
+        balancer = new OllamaEndpointBalancer(serviceHttpClient, guard, new PipelineMetrics(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(balancer, "failureThreshold", 2);
+        balancer.init();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        serviceHttpClient.close();
+        guard.shutdown();
+    }
+
+    @Test
+    void routesToTheEndpointWithFewestCallsInFlight() {
+        OllamaEndpointBalancer.Lease first = balancer.acquire();
+        OllamaEndpointBalancer.Lease second = balancer.acquire();
+        assertNotEquals(first.url(), second.url());
+
+        OllamaEndpointBalancer.Lease third = balancer.acquire();
+        second.close();
+        third.close();
+
+        // first.url() still has a call in flight, the other endpoint has none
+        try (OllamaEndpointBalancer.Lease next = balancer.acquire()) {
+            assertEquals(second.url(), next.url());
+        }
+        first.close();
+    }
+
+    @Test
+    void drainsAnEndpointAfterConsecutiveFailures() {
+        for (int i = 0; i < 6; i++) {
+            try (OllamaEndpointBalancer.Lease lease = balancer.acquire()) {
+                if (lease.url().equals(FIRST)) {
+                    // Guard rejections never reached the endpoint and do not count
+                    lease.failed(new DependencyUnavailableException("ollama", "all 10 call slots busy"));
+                    lease.failed(new IOException("Connection refused"));
+                } else {
+                    lease.succeeded();
+                }
+            }
+        }
+
+        assertEquals(1, balancer.getHealthyCount());
+        assertTrue(balancer.isHealthy(SECOND));
+        for (int i = 0; i < 4; i++) {
+            try (OllamaEndpointBalancer.Lease lease = balancer.acquire()) {
+                assertEquals(SECOND, lease.url());
+            }
+        }
+    }
+
+    @Test
+    void skipsAnEndpointWhoseCircuitIsOpen() {
+        for (int i = 0; i < 2; i++) {
+            assertThrows(IOException.class, () -> guard.execute(ExternalService.OLLAMA, FIRST, () -> true, () -> {
+                throw new IOException("Connection refused");
+            }));
+        }
+
+        assertFalse(guard.isAvailable(ExternalService.OLLAMA, FIRST));
+        assertTrue(guard.isAvailable(ExternalService.OLLAMA));
+        for (int i = 0; i < 4; i++) {
+            try (OllamaEndpointBalancer.Lease lease = balancer.acquire()) {
+                assertEquals(SECOND, lease.url());
+            }
+        }
+    }
+
+    @Test
+    void modelNotPulledIsNoFailureOfTheEndpoint() {
+        // Small-model calls alternating with large-model ones that succeed
+        for (int i = 0; i < 4; i++) {
+            assertThrows(ModelNotFoundException.class, () -> guard.execute(ExternalService.OLLAMA, FIRST, () -> true, () -> {
+                throw new ModelNotFoundException("llama3.2:1b", "{\"error\":\"model not found\"}");
+            }));
+            assertEquals("ok", assertDoesNotThrow(() -> guard.execute(ExternalService.OLLAMA, FIRST, () -> true, () -> "ok")));
+        }
+        for (int i = 0; i < 4; i++) {
+            try (OllamaEndpointBalancer.Lease lease = balancer.acquire()) {
+                lease.failed(new ModelNotFoundException("llama3.2:1b", "{\"error\":\"model not found\"}"));
+            }
+        }
+
+        assertTrue(guard.isAvailable(ExternalService.OLLAMA, FIRST));
+        assertEquals(2, balancer.getHealthyCount());
+    }
+}
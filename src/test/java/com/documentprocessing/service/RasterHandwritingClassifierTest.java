@@ -0,0 +1,87 @@
+package com.documentprocessing.service;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RasterHandwritingClassifierTest {
+
+    private final RasterHandwritingClassifier classifier = new RasterHandwritingClassifier(
+            new ImagePreprocessor(false, 300, 4.5, true, 31, 0.2, true, false, 10, 1), 20, 1000, 700);
+
+    @Test
+    void computesGradientAndVarianceFeatures() {
+        BufferedImage image = new BufferedImage(2, 2, BufferedImage.TYPE_BYTE_GRAY);
+        image.getRaster().setSamples(0, 0, 2, 2, 0, new int[]{0, 10, 20, 30});
+
+        RasterHandwritingClassifier.Features features = RasterHandwritingClassifier.features(image);
+
+        // |10 - 0| horizontally plus |20 - 0| vertically over the single 1x1 crop
+        assertEquals(30.0, features.edgeDensity(), 1e-9);
+        assertEquals(125.0, features.variance(), 1e-9);
+    }
+
+    @Test
+    void cleanScanIsPrintedAndBusyScanIsHandwritten() {
+        BufferedImage clean = new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = clean.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, 200, 100);
+        g.setColor(Color.BLACK);
+        g.fillRect(20, 40, 160, 8);
+        g.dispose();
+
+        BufferedImage busy = new BufferedImage(200, 100, BufferedImage.TYPE_BYTE_GRAY);
+        Random random = new Random(42);
+        int[] noise = new int[200 * 100];
+        for (int i = 0; i < noise.length; i++) {
+            noise[i] = random.nextInt(256);
+        }
+        busy.getRaster().setSamples(0, 0, 200, 100, 0, noise);
+
+        HandwritingDetection printed = classifier.classify(clean);
+        HandwritingDetection handwritten = classifier.classify(busy);
+
+        assertFalse(printed.handwritten());
+        assertTrue(printed.confidence() > 0.5);
+        assertTrue(handwritten.handwritten());
+        assertTrue(handwritten.confidence() < 0.5);
+    }
+
+    @Test
+    void largeUploadMeasuresAsAtFullResolution() throws Exception {
+        BufferedImage card = new BufferedImage(2800, 2100, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = card.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, card.getWidth(), card.getHeight());
+        g.setColor(Color.BLACK);
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 60));
+        for (int y = 150; y < card.getHeight(); y += 120) {
+            g.drawString("DL D1234567  EXP 01/15/2029  DOB 01/15/1985", 100, y);
+        }
+        g.dispose();
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(card, "png", png);
+
+        // Decoded at every third pixel against area-averaged from full size, both 700 rows
+        RasterHandwritingClassifier.Features full = classifier.analyse(card);
+        RasterHandwritingClassifier.Features subsampled = classifier.analyse(
+                new ImagePreprocessor(false, 300, 4.5, true, 31, 0.2, true, false, 10, 1).read(png.toByteArray(), 700));
+
+        assertEquals(full.edgeDensity(), subsampled.edgeDensity(), full.edgeDensity() * 0.1);
+        assertEquals(full.variance(), subsampled.variance(), full.variance() * 0.1);
+        assertFalse(classifier.classify(png.toByteArray()).handwritten());
+    }
+}
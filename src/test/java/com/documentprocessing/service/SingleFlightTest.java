@@ -0,0 +1,94 @@
+package com.documentprocessing.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SingleFlightTest {
+
+    private final SingleFlight<String> singleFlight = new SingleFlight<>();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentCallersShareOneExecutionAndTheKeyIsRemovedAfterwards() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+
+        Future<String> leader = executor.submit(() -> singleFlight.execute("doc", () -> {
+            runs.incrementAndGet();
+            started.countDown();
+            release.await();
+            return "license";
+        }));
+        assertTrue(started.await(2, TimeUnit.SECONDS));
+        Future<String> follower = executor.submit(() -> singleFlight.execute("doc", () -> {
+            runs.incrementAndGet();
+            return "second run";
+        }));
+        awaitCoalesced(1);
+        assertEquals(1, singleFlight.getInFlight());
+
+        release.countDown();
+
+        assertEquals("license", leader.get(2, TimeUnit.SECONDS));
+        assertEquals("license", follower.get(2, TimeUnit.SECONDS));
+        assertEquals(1, runs.get());
+        assertEquals(1, singleFlight.getExecutions());
+        assertEquals(0, singleFlight.getInFlight());
+
+        // Once finished, the same key runs again
+        assertEquals("fresh", singleFlight.execute("doc", () -> "fresh"));
+        assertEquals(2, singleFlight.getExecutions());
+    }
+
+    @Test
+    void leadersExceptionReachesEveryWaiter() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> leader = executor.submit(() -> singleFlight.execute("doc", () -> {
+            started.countDown();
+            release.await();
+            throw new IllegalStateException("OCR failed");
+        }));
+        assertTrue(started.await(2, TimeUnit.SECONDS));
+        Future<String> follower = executor.submit(() -> singleFlight.execute("doc", () -> "unused"));
+        awaitCoalesced(1);
+
+        release.countDown();
+
+        for (Future<String> caller : List.of(leader, follower)) {
+            ExecutionException failure = assertThrows(ExecutionException.class, () -> caller.get(2, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, failure.getCause());
+            assertEquals("OCR failed", failure.getCause().getMessage());
+        }
+        assertEquals(0, singleFlight.getInFlight());
+    }
+
+    private void awaitCoalesced(long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (singleFlight.getCoalesced() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(expected, singleFlight.getCoalesced());
+    }
+}
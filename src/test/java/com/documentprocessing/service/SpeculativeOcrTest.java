@@ -0,0 +1,58 @@
+package com.documentprocessing.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpeculativeOcrTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void ocrFinishedDuringDetectionSavesItsWholeRunTime() throws Exception {
+        SpeculativeOcr speculative = SpeculativeOcr.start(executor, () -> {
+            Thread.sleep(50);
+            return "DL 123";
+        });
+
+        assertEquals("DL 123", speculative.await());
+        long detectionDone = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(200);
+        long saved = speculative.savedNanos(detectionDone);
+        assertTrue(saved >= TimeUnit.MILLISECONDS.toNanos(50), "saved " + saved);
+        assertTrue(saved < TimeUnit.MILLISECONDS.toNanos(200), "saved " + saved);
+    }
+
+    @Test
+    void cancelInterruptsWorkStillRunning() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        SpeculativeOcr speculative = SpeculativeOcr.start(executor, () -> {
+            started.countDown();
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return "unused";
+        });
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        speculative.cancel();
+
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        assertThrows(IllegalStateException.class, speculative::await);
+    }
+}
@@ -0,0 +1,156 @@
+package com.documentprocessing.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The cascade over the OCR corpus the extraction benchmarks use, with Ollama
+ * replaced by a stub that records what it was asked for.
+ */
+class TieredExtractionRouterTest {
+
+    private static final Path CORPUS = Path.of("benchmarks/src/main/resources/corpus/ocr");
+    private static final Set<String> JUNK = Set.of("Application", "DL", "ENCE", "0", "Number", "CALIFORNIA");
+
+    private final LicenseFieldRuleEngine ruleEngine = new LicenseFieldRuleEngine();
+    private final StubOllama ollama = new StubOllama();
+    private TieredExtractionRouter router;
+
+    @BeforeEach
+    void setUp() {
+        ExternalServiceGuard guard = new ExternalServiceGuard() {
+            @Override
+            public boolean isAvailable(ExternalService service) {
+                return true;
+            }
+        };
+        router = new TieredExtractionRouter(ruleEngine, ollama, guard,
+                new PipelineMetrics(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(router, "cascadeEnabled", true);
+        ReflectionTestUtils.setField(router, "acceptConfidence", 0.8);
+        ReflectionTestUtils.setField(router, "smallModel", "");
+    }
+
+    @Test
+    void labelledFormIsAnsweredByTheRules() throws IOException {
+        Map<String, Object> result = router.extract(corpus("labelled-form"));
+
+        assertEquals("RULES", result.get("extractionTier"));
+        assertEquals("987654321", result.get("licenseNumber"));
+        assertEquals("NY", result.get("state"));
+        assertEquals("2345 ANYWHERE STREET", result.get("address"));
+        assertTrue(ollama.requests.isEmpty());
+    }
+
+    @Test
+    void pdfApplicationTakesTheLabelledNumber() throws IOException {
+        Map<String, Object> result = router.extract(corpus("pdf-extracted"));
+
+        assertEquals("RULES", result.get("extractionTier"));
+        assertEquals("G452-118-88-722-0", result.get("licenseNumber"));
+        assertEquals("Florida", result.get("state"));
+    }
+
+    @Test
+    void lowConfidenceFieldsAreEscalatedWithTheMissingOnes() throws IOException {
+        ollama.answer.put("licenseNumber", "I1234568");
+        ollama.answer.put("firstName", "IMA");
+        ollama.answer.put("lastName", "CARDHOLDER");
+
+        Map<String, Object> result = router.extract(corpus("california-printed"));
+
+        assertEquals("LARGE_MODEL", result.get("extractionTier"));
+        List<String> asked = ollama.requests.get(0);
+        assertTrue(asked.containsAll(List.of("licenseNumber", "firstName", "lastName")), asked.toString());
+        assertFalse(asked.contains("dateOfBirth"), asked.toString());
+        assertEquals("I1234568", result.get("licenseNumber"));
+        assertEquals("IMA", result.get("firstName"));
+        assertEquals("CARDHOLDER", result.get("lastName"));
+    }
+
+    @Test
+    void unconfirmedValueIsKeptWhenTheModelHasNoAnswer() throws IOException {
+        Map<String, Object> result = router.extract(corpus("california-printed"));
+
+        assertEquals("I1234568", result.get("licenseNumber"));
+        assertEquals(1, ollama.requests.size());
+    }
+
+    @Test
+    void noCorpusDocumentIsAcceptedOnLowConfidenceHitsOrKeepsJunk() throws IOException {
+        for (String name : corpusNames()) {
+            ollama.requests.clear();
+            String text = corpus(name);
+            Map<String, Object> result = router.extract(text);
+
+            if ("RULES".equals(result.get("extractionTier"))) {
+                Map<String, LicenseFieldRuleEngine.RuleHit> hits = ruleEngine.extractHits(text);
+                for (String field : FieldCoverage.IMPORTANT_FIELDS) {
+                    assertFalse(hits.get(field).lowConfidence(), name + " accepted on a low-confidence " + field);
+                }
+            }
+            for (String field : List.of("licenseNumber", "firstName", "lastName", "middleName")) {
+                Object value = result.get(field);
+                assertFalse(value != null && JUNK.contains(value), name + " " + field + "=" + value);
+            }
+            Object address = result.get("address");
+            assertTrue(address == null || !address.toString().contains("\n"), name + " address spans lines");
+        }
+    }
+
+    @Test
+    void bareKeywordInsideAWordIsNoLabel() throws IOException {
+        assertNull(ruleEngine.extract(corpus("uk-photocard")).get("licenseNumber"));
+        assertNull(ruleEngine.extract(corpus("tesseract-noisy")).get("licenseNumber"));
+    }
+
+    private static String corpus(String name) throws IOException {
+        return Files.readString(CORPUS.resolve(name + ".txt"));
+    }
+
+    private static List<String> corpusNames() throws IOException {
+        List<String> names = new ArrayList<>();
+        for (String line : Files.readAllLines(CORPUS.resolve("index.txt"))) {
+            if (!line.isBlank() && !line.startsWith("#")) {
+                names.add(line.trim().replace(".txt", ""));
+            }
+        }
+        return names;
+    }
+
+    private static final class StubOllama extends OllamaAIDocumentProcessingService {
+        private final List<List<String>> requests = new ArrayList<>();
+        private final Map<String, Object> answer = new HashMap<>();
+
+        private StubOllama() {
+            super(null, null, null, null);
+        }
+
+        @Override
+        public Map<String, Object> extractFields(String extractedText, String model, List<String> fields) {
+            requests.add(List.copyOf(fields));
+            return new HashMap<>(answer);
+        }
+
+        @Override
+        public String getDefaultModel() {
+            return "large";
+        }
+    }
+}